@@ -0,0 +1,107 @@
+package com.example.accounting;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.context.ContextRegistry;
+
+// Billable Firestore usage of one scope: an HTTP request, or a service operation inside it.
+// The current scope is a thread-local. FirestoreCallInterceptor captures it when a call starts and counts the
+// call's document reads, writes, deletes and bytes into it and every enclosing scope. FirestoreFutures and FanOut
+// carry the scope to the threads that continue the work; on the reactive stack Reactor's context propagation
+// restores it from the subscriber context under CONTEXT_KEY.
+public final class FirestoreUsage {
+
+    public static final String CONTEXT_KEY = "firestore.usage";
+
+    private static final ThreadLocal<FirestoreUsage> CURRENT = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(CONTEXT_KEY, CURRENT::get, CURRENT::set, CURRENT::remove);
+    }
+
+    private final FirestoreUsage parent;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder deletes = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private FirestoreUsage(FirestoreUsage parent) {
+        this.parent = parent;
+    }
+
+    // A new top-level scope, e.g. for an HTTP request
+    public static FirestoreUsage root() {
+        return new FirestoreUsage(null);
+    }
+
+    // A scope nested in the current one (or top-level if there is none)
+    public static FirestoreUsage nested() {
+        return new FirestoreUsage(CURRENT.get());
+    }
+
+    public static FirestoreUsage current() {
+        return CURRENT.get();
+    }
+
+    // Makes usage the current scope and returns the previous one, to be passed to exit
+    public static FirestoreUsage enter(FirestoreUsage usage) {
+        FirestoreUsage previous = CURRENT.get();
+        CURRENT.set(usage);
+        return previous;
+    }
+
+    public static void exit(FirestoreUsage previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public void addReads(long documents, long bytes) {
+        for (FirestoreUsage scope = this; scope != null; scope = scope.parent) {
+            scope.reads.add(documents);
+            scope.bytesRead.add(bytes);
+        }
+    }
+
+    public void addWrites(long documents, long bytes) {
+        for (FirestoreUsage scope = this; scope != null; scope = scope.parent) {
+            scope.writes.add(documents);
+            scope.bytesWritten.add(bytes);
+        }
+    }
+
+    public void addDeletes(long documents) {
+        for (FirestoreUsage scope = this; scope != null; scope = scope.parent) {
+            scope.deletes.add(documents);
+        }
+    }
+
+    public long getReads() {
+        return reads.sum();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getDeletes() {
+        return deletes.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    // Value of the X-Firestore-Usage debug header
+    public String toHeaderValue() {
+        return "reads=" + getReads() + "; writes=" + getWrites() + "; deletes=" + getDeletes()
+            + "; bytesRead=" + getBytesRead() + "; bytesWritten=" + getBytesWritten();
+    }
+}
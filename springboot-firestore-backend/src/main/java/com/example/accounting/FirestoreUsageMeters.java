@@ -0,0 +1,53 @@
+package com.example.accounting;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Per-scope usage distributions for one endpoint or service method, registered up front:
+//   <prefix>.documents  documents per scope, tagged kind=read|write|delete
+//   <prefix>.bytes      payload bytes per scope, tagged direction=read|write
+// Count is the number of scopes recorded, so sum/count is the average cost of one request or call.
+public final class FirestoreUsageMeters {
+
+    private final DistributionSummary reads;
+    private final DistributionSummary writes;
+    private final DistributionSummary deletes;
+    private final DistributionSummary bytesRead;
+    private final DistributionSummary bytesWritten;
+
+    public FirestoreUsageMeters(MeterRegistry registry, String prefix, String tagKey, String tagValue) {
+        this.reads = documents(registry, prefix, tagKey, tagValue, "read");
+        this.writes = documents(registry, prefix, tagKey, tagValue, "write");
+        this.deletes = documents(registry, prefix, tagKey, tagValue, "delete");
+        this.bytesRead = bytes(registry, prefix, tagKey, tagValue, "read");
+        this.bytesWritten = bytes(registry, prefix, tagKey, tagValue, "write");
+    }
+
+    private static DistributionSummary documents(MeterRegistry registry, String prefix, String tagKey, String tagValue,
+                                                 String kind) {
+        return DistributionSummary.builder(prefix + ".documents")
+            .description("Billable Firestore documents per " + tagKey)
+            .baseUnit("documents")
+            .tag(tagKey, tagValue)
+            .tag("kind", kind)
+            .register(registry);
+    }
+
+    private static DistributionSummary bytes(MeterRegistry registry, String prefix, String tagKey, String tagValue,
+                                             String direction) {
+        return DistributionSummary.builder(prefix + ".bytes")
+            .description("Firestore document payload per " + tagKey)
+            .baseUnit("bytes")
+            .tag(tagKey, tagValue)
+            .tag("direction", direction)
+            .register(registry);
+    }
+
+    public void record(FirestoreUsage usage) {
+        reads.record(usage.getReads());
+        writes.record(usage.getWrites());
+        deletes.record(usage.getDeletes());
+        bytesRead.record(usage.getBytesRead());
+        bytesWritten.record(usage.getBytesWritten());
+    }
+}
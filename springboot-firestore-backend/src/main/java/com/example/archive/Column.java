@@ -0,0 +1,18 @@
+package com.example.archive;
+
+// Columns of a segment file, in file order. Row columns hold one value per match;
+// PLAYERS and CHARACTERS are the dictionaries the PLAYER*, WINNER and CHARACTER* columns index into.
+enum Column {
+    PLAYERS,
+    CHARACTERS,
+    GAME_ID,
+    ROOM_ID,
+    PLAYER1,
+    PLAYER2,
+    WINNER,      // 0 = none, 1 = player 1, 2 = player 2
+    CHARACTER1,  // -1 = unknown
+    CHARACTER2,
+    ROUNDS,
+    FINISHED_AT, // ascending, delta-encoded
+    DURATION
+}
@@ -0,0 +1,120 @@
+package com.example.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Column encodings: zigzag varints for numbers, length-prefixed UTF-8 for strings, and Deflate over each
+// encoded column. Small integers (dictionary indices, rounds, timestamp deltas) take one or two bytes
+// before compression.
+final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    static final class Encoder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeLong(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        // null is stored as length 0, every other string as length + 1
+        void writeString(String value) {
+            if (value == null) {
+                writeLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(bytes.length + 1L);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    static final class Decoder {
+        private final byte[] in;
+        private int position;
+
+        Decoder(byte[] in) {
+            this.in = in;
+        }
+
+        long readLong() {
+            long v = 0;
+            int shift = 0;
+            while (true) {
+                byte b = in[position++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+                shift += 7;
+            }
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        int readInt() {
+            return (int) readLong();
+        }
+
+        String readString() {
+            int length = (int) readLong();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(in, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+    }
+
+    static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, raw.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated column");
+                }
+                length += read;
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.example.cache.ScalableBloomFilter;
+import com.example.model.ArchivedMatch;
+
+// Append-only archive of finished matches: a directory of immutable, compressed columnar segment files.
+// Scans skip segments by time range (header min/max) and, for player lookups, by each segment's
+// player Bloom filter; aggregations decode only the columns they use and run over segments in parallel.
+public class MatchArchive {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final double GAME_FILTER_FPP = 0.01;
+
+    private final Path directory;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final ScalableBloomFilter gameIds;
+    private int nextSequence;
+
+    private MatchArchive(Path directory, long expectedGames) {
+        this.directory = directory;
+        this.gameIds = new ScalableBloomFilter(Math.max(1024, expectedGames), GAME_FILTER_FPP);
+    }
+
+    public static MatchArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    Files.delete(entry); // left over from an interrupted write
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    files.add(entry);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(Path::toString));
+
+        List<Segment> opened = new ArrayList<>(files.size());
+        long rows = 0;
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            opened.add(segment);
+            rows += segment.rowCount;
+        }
+
+        MatchArchive archive = new MatchArchive(directory, rows);
+        for (Segment segment : opened) {
+            archive.register(segment);
+        }
+        archive.nextSequence = files.size();
+        return archive;
+    }
+
+    // Writes the matches as one new segment
+    public synchronized void append(List<ArchivedMatch> matches) throws IOException {
+        if (matches.isEmpty()) {
+            return;
+        }
+        Path file;
+        do {
+            file = directory.resolve(String.format("segment-%08d%s", nextSequence++, SEGMENT_SUFFIX));
+        } while (Files.exists(file));
+        SegmentWriter.write(file, matches);
+        register(Segment.open(file));
+    }
+
+    public boolean contains(String gameId) throws IOException {
+        return gameIds.mightContain(gameId) && find(gameId) != null;
+    }
+
+    public ArchivedMatch find(String gameId) throws IOException {
+        if (!gameIds.mightContain(gameId)) {
+            return null;
+        }
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment segment = segments.get(s);
+            String[] ids = segment.strings(Column.GAME_ID);
+            for (int i = 0; i < ids.length; i++) {
+                if (gameId.equals(ids[i])) {
+                    return new Rows(segment).get(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    // A player's matches finished in [from, to], newest first
+    public List<ArchivedMatch> history(String playerId, long from, long to, int limit) throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.overlaps(from, to) && segment.mayContainPlayer(playerId)) {
+                candidates.add(segment);
+            }
+        }
+        candidates.sort(Comparator.comparingLong((Segment segment) -> segment.maxFinishedAt).reversed());
+
+        List<ArchivedMatch> matches = new ArrayList<>();
+        for (Segment segment : candidates) {
+            if (matches.size() >= limit && matches.get(limit - 1).getFinishedAt() > segment.maxFinishedAt) {
+                break; // nothing in this or any later candidate can make the cut
+            }
+            int player = indexOf(segment.strings(Column.PLAYERS), playerId);
+            if (player < 0) {
+                continue; // Bloom filter false positive
+            }
+            int[] player1 = segment.ints(Column.PLAYER1);
+            int[] player2 = segment.ints(Column.PLAYER2);
+            long[] finishedAt = segment.longs(Column.FINISHED_AT);
+            Rows rows = null;
+            for (int i = 0; i < segment.rowCount; i++) {
+                if ((player1[i] == player || player2[i] == player) && finishedAt[i] >= from && finishedAt[i] <= to) {
+                    if (rows == null) {
+                        rows = new Rows(segment);
+                    }
+                    matches.add(rows.get(i));
+                }
+            }
+            matches.sort(Comparator.comparingLong(ArchivedMatch::getFinishedAt).reversed());
+            if (matches.size() > limit) {
+                matches.subList(limit, matches.size()).clear();
+            }
+        }
+        return matches;
+    }
+
+    // Match count, decisive results, average rounds and duration over [from, to]
+    public Map<String, Object> summary(long from, long to) {
+        Tally total = overlapping(from, to).parallelStream()
+            .map(segment -> unchecked(() -> {
+                int[] winner = segment.ints(Column.WINNER);
+                int[] rounds = segment.ints(Column.ROUNDS);
+                long[] duration = segment.longs(Column.DURATION);
+                long[] finishedAt = segment.longs(Column.FINISHED_AT);
+                Tally tally = new Tally();
+                for (int i = 0; i < segment.rowCount; i++) {
+                    if (finishedAt[i] >= from && finishedAt[i] <= to) {
+                        tally.add(winner[i] != 0, rounds[i], duration[i]);
+                    }
+                }
+                return tally;
+            }))
+            .reduce(new Tally(), Tally::merge);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("matches", total.matches);
+        summary.put("decisive", total.wins);
+        total.putAverages(summary);
+        return summary;
+    }
+
+    // Picks, wins and win rate per character over [from, to], most picked first
+    public Map<String, Object> characterStats(long from, long to) {
+        Map<String, long[]> merged = overlapping(from, to).parallelStream()
+            .map(segment -> unchecked(() -> {
+                String[] characters = segment.strings(Column.CHARACTERS);
+                int[] character1 = segment.ints(Column.CHARACTER1);
+                int[] character2 = segment.ints(Column.CHARACTER2);
+                int[] winner = segment.ints(Column.WINNER);
+                long[] finishedAt = segment.longs(Column.FINISHED_AT);
+                long[][] counts = new long[characters.length][2];
+                for (int i = 0; i < segment.rowCount; i++) {
+                    if (finishedAt[i] < from || finishedAt[i] > to) {
+                        continue;
+                    }
+                    if (character1[i] >= 0) {
+                        counts[character1[i]][0]++;
+                        counts[character1[i]][1] += winner[i] == 1 ? 1 : 0;
+                    }
+                    if (character2[i] >= 0) {
+                        counts[character2[i]][0]++;
+                        counts[character2[i]][1] += winner[i] == 2 ? 1 : 0;
+                    }
+                }
+                Map<String, long[]> partial = new HashMap<>();
+                for (int c = 0; c < characters.length; c++) {
+                    partial.put(characters[c], counts[c]);
+                }
+                return partial;
+            }))
+            .reduce(new HashMap<>(), MatchArchive::mergeCounts);
+
+        return toCharacterStats(merged);
+    }
+
+    // One player's record over [from, to], with per-character breakdown
+    public Map<String, Object> playerStats(String playerId, long from, long to) throws IOException {
+        Tally total = new Tally();
+        Map<String, long[]> characters = new HashMap<>();
+        for (Segment segment : overlapping(from, to)) {
+            if (!segment.mayContainPlayer(playerId)) {
+                continue;
+            }
+            int player = indexOf(segment.strings(Column.PLAYERS), playerId);
+            if (player < 0) {
+                continue;
+            }
+            int[] player1 = segment.ints(Column.PLAYER1);
+            int[] player2 = segment.ints(Column.PLAYER2);
+            int[] winner = segment.ints(Column.WINNER);
+            int[] rounds = segment.ints(Column.ROUNDS);
+            long[] duration = segment.longs(Column.DURATION);
+            long[] finishedAt = segment.longs(Column.FINISHED_AT);
+            String[] characterNames = null;
+            int[] character1 = null;
+            int[] character2 = null;
+            for (int i = 0; i < segment.rowCount; i++) {
+                int side = player1[i] == player ? 1 : player2[i] == player ? 2 : 0;
+                if (side == 0 || finishedAt[i] < from || finishedAt[i] > to) {
+                    continue;
+                }
+                boolean won = winner[i] == side;
+                total.add(won, rounds[i], duration[i]);
+                total.firstAt = Math.min(total.firstAt, finishedAt[i]);
+                total.lastAt = Math.max(total.lastAt, finishedAt[i]);
+
+                if (characterNames == null) {
+                    characterNames = segment.strings(Column.CHARACTERS);
+                    character1 = segment.ints(Column.CHARACTER1);
+                    character2 = segment.ints(Column.CHARACTER2);
+                }
+                int character = side == 1 ? character1[i] : character2[i];
+                if (character >= 0) {
+                    long[] counts = characters.computeIfAbsent(characterNames[character], name -> new long[2]);
+                    counts[0]++;
+                    counts[1] += won ? 1 : 0;
+                }
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("playerId", playerId);
+        stats.put("matches", total.matches);
+        stats.put("wins", total.wins);
+        stats.put("losses", total.matches - total.wins);
+        stats.put("winRate", total.matches == 0 ? 0.0 : (double) total.wins / total.matches);
+        total.putAverages(stats);
+        stats.put("firstMatchAt", total.matches == 0 ? null : total.firstAt);
+        stats.put("lastMatchAt", total.matches == 0 ? null : total.lastAt);
+        stats.put("characters", toCharacterStats(characters).get("characters"));
+        return stats;
+    }
+
+    public Map<String, Object> stats() {
+        long rows = 0;
+        long bytes = 0;
+        long oldest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        for (Segment segment : segments) {
+            rows += segment.rowCount;
+            bytes += segment.sizeBytes;
+            oldest = Math.min(oldest, segment.minFinishedAt);
+            newest = Math.max(newest, segment.maxFinishedAt);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("segments", segments.size());
+        stats.put("matches", rows);
+        stats.put("sizeBytes", bytes);
+        stats.put("bytesPerMatch", rows == 0 ? 0.0 : (double) bytes / rows);
+        stats.put("oldestFinishedAt", rows == 0 ? null : oldest);
+        stats.put("newestFinishedAt", rows == 0 ? null : newest);
+        return stats;
+    }
+
+    private void register(Segment segment) throws IOException {
+        for (String gameId : segment.strings(Column.GAME_ID)) {
+            gameIds.put(gameId);
+        }
+        segments.add(segment);
+    }
+
+    private List<Segment> overlapping(long from, long to) {
+        List<Segment> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.overlaps(from, to)) {
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (value.equals(values[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, long[]> mergeCounts(Map<String, long[]> a, Map<String, long[]> b) {
+        Map<String, long[]> merged = new HashMap<>(a);
+        b.forEach((name, counts) -> merged.merge(name, counts, (x, y) -> new long[] {x[0] + y[0], x[1] + y[1]}));
+        return merged;
+    }
+
+    private static Map<String, Object> toCharacterStats(Map<String, long[]> counts) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0]).reversed());
+
+        long picks = 0;
+        Map<String, Object> characters = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : entries) {
+            long[] value = entry.getValue();
+            picks += value[0];
+            Map<String, Object> character = new LinkedHashMap<>();
+            character.put("picks", value[0]);
+            character.put("wins", value[1]);
+            character.put("winRate", value[0] == 0 ? 0.0 : (double) value[1] / value[0]);
+            characters.put(entry.getKey(), character);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("picks", picks);
+        stats.put("characters", characters);
+        return stats;
+    }
+
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static <T> T unchecked(IoSupplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Match count, wins and totals for averages; merged across segments
+    private static final class Tally {
+        long matches;
+        long wins;
+        long rounds;
+        long timedMatches;
+        long durationMs;
+        long firstAt = Long.MAX_VALUE;
+        long lastAt = Long.MIN_VALUE;
+
+        void add(boolean won, int matchRounds, long matchDurationMs) {
+            matches++;
+            wins += won ? 1 : 0;
+            rounds += matchRounds;
+            if (matchDurationMs > 0) {
+                // Games archived from before start times were recorded have no duration
+                timedMatches++;
+                durationMs += matchDurationMs;
+            }
+        }
+
+        Tally merge(Tally other) {
+            Tally merged = new Tally();
+            merged.matches = matches + other.matches;
+            merged.wins = wins + other.wins;
+            merged.rounds = rounds + other.rounds;
+            merged.timedMatches = timedMatches + other.timedMatches;
+            merged.durationMs = durationMs + other.durationMs;
+            merged.firstAt = Math.min(firstAt, other.firstAt);
+            merged.lastAt = Math.max(lastAt, other.lastAt);
+            return merged;
+        }
+
+        void putAverages(Map<String, Object> stats) {
+            stats.put("avgRounds", matches == 0 ? 0.0 : (double) rounds / matches);
+            stats.put("avgDurationMs", timedMatches == 0 ? 0.0 : (double) durationMs / timedMatches);
+        }
+    }
+
+    // All columns of one segment, for turning row numbers back into matches
+    private static final class Rows {
+        final String[] players;
+        final String[] characters;
+        final String[] gameIds;
+        final String[] roomIds;
+        final int[] player1;
+        final int[] player2;
+        final int[] winner;
+        final int[] character1;
+        final int[] character2;
+        final int[] rounds;
+        final long[] finishedAt;
+        final long[] duration;
+
+        Rows(Segment segment) throws IOException {
+            players = segment.strings(Column.PLAYERS);
+            characters = segment.strings(Column.CHARACTERS);
+            gameIds = segment.strings(Column.GAME_ID);
+            roomIds = segment.strings(Column.ROOM_ID);
+            player1 = segment.ints(Column.PLAYER1);
+            player2 = segment.ints(Column.PLAYER2);
+            winner = segment.ints(Column.WINNER);
+            character1 = segment.ints(Column.CHARACTER1);
+            character2 = segment.ints(Column.CHARACTER2);
+            rounds = segment.ints(Column.ROUNDS);
+            finishedAt = segment.longs(Column.FINISHED_AT);
+            duration = segment.longs(Column.DURATION);
+        }
+
+        ArchivedMatch get(int i) {
+            ArchivedMatch match = new ArchivedMatch();
+            match.setGameId(gameIds[i]);
+            match.setRoomId(roomIds[i]);
+            match.setPlayer1Id(players[player1[i]]);
+            match.setPlayer2Id(players[player2[i]]);
+            match.setWinnerId(winner[i] == 1 ? match.getPlayer1Id() : winner[i] == 2 ? match.getPlayer2Id() : null);
+            match.setPlayer1Character(character1[i] >= 0 ? characters[character1[i]] : null);
+            match.setPlayer2Character(character2[i] >= 0 ? characters[character2[i]] : null);
+            match.setRounds(rounds[i]);
+            match.setFinishedAt(finishedAt[i]);
+            match.setDurationMs(duration[i]);
+            match.setStartedAt(finishedAt[i] - duration[i]);
+            return match;
+        }
+    }
+}
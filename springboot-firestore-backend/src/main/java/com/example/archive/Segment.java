@@ -0,0 +1,149 @@
+package com.example.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+
+import com.example.cache.ScalableBloomFilter;
+
+// Read side of a segment file. Only the header, the column directory and a Bloom filter of the segment's
+// players stay in memory; columns are read and decompressed on demand, each on its own, so a scan
+// touches only the columns it needs.
+final class Segment {
+
+    private static final double PLAYER_FILTER_FPP = 0.01;
+
+    final Path file;
+    final int rowCount;
+    final long minFinishedAt;
+    final long maxFinishedAt;
+    final long sizeBytes;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final ScalableBloomFilter players;
+
+    private Segment(Path file, int rowCount, long minFinishedAt, long maxFinishedAt, long sizeBytes,
+                    long[] offsets, int[] compressedLengths, int[] rawLengths, ScalableBloomFilter players) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.minFinishedAt = minFinishedAt;
+        this.maxFinishedAt = maxFinishedAt;
+        this.sizeBytes = sizeBytes;
+        this.offsets = offsets;
+        this.compressedLengths = compressedLengths;
+        this.rawLengths = rawLengths;
+        this.players = players;
+    }
+
+    static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, SegmentWriter.HEADER_BYTES);
+            if (header.getInt() != SegmentWriter.MAGIC || header.getInt() != SegmentWriter.VERSION) {
+                throw new IOException("Not a match archive segment: " + file);
+            }
+            int rowCount = header.getInt();
+            long minFinishedAt = header.getLong();
+            long maxFinishedAt = header.getLong();
+            int columnCount = header.getInt();
+            if (columnCount != Column.values().length) {
+                throw new IOException("Unexpected column count " + columnCount + " in " + file);
+            }
+
+            long[] offsets = new long[columnCount];
+            int[] compressedLengths = new int[columnCount];
+            int[] rawLengths = new int[columnCount];
+            ByteBuffer directory = read(channel, SegmentWriter.HEADER_BYTES, SegmentWriter.DIRECTORY_ENTRY_BYTES * columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                int column = directory.getInt();
+                offsets[column] = directory.getLong();
+                compressedLengths[column] = directory.getInt();
+                rawLengths[column] = directory.getInt();
+            }
+
+            int dictionary = Column.PLAYERS.ordinal();
+            ColumnCodec.Decoder playerIds = decode(channel, file, offsets[dictionary], compressedLengths[dictionary], rawLengths[dictionary]);
+            int playerCount = playerIds.readInt();
+            ScalableBloomFilter players = new ScalableBloomFilter(playerCount, PLAYER_FILTER_FPP);
+            for (int i = 0; i < playerCount; i++) {
+                players.put(playerIds.readString());
+            }
+
+            return new Segment(file, rowCount, minFinishedAt, maxFinishedAt, channel.size(),
+                offsets, compressedLengths, rawLengths, players);
+        }
+    }
+
+    boolean overlaps(long from, long to) {
+        return rowCount > 0 && maxFinishedAt >= from && minFinishedAt <= to;
+    }
+
+    boolean mayContainPlayer(String playerId) {
+        return players.mightContain(playerId);
+    }
+
+    // Dictionary (PLAYERS, CHARACTERS) or string row column (GAME_ID, ROOM_ID)
+    String[] strings(Column column) throws IOException {
+        ColumnCodec.Decoder decoder = decoder(column);
+        int count = column == Column.PLAYERS || column == Column.CHARACTERS ? decoder.readInt() : rowCount;
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+
+    int[] ints(Column column) throws IOException {
+        ColumnCodec.Decoder decoder = decoder(column);
+        int[] values = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = decoder.readInt();
+        }
+        return values;
+    }
+
+    long[] longs(Column column) throws IOException {
+        ColumnCodec.Decoder decoder = decoder(column);
+        long[] values = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = decoder.readLong();
+            if (column == Column.FINISHED_AT) {
+                values[i] += previous;
+                previous = values[i];
+            }
+        }
+        return values;
+    }
+
+    private ColumnCodec.Decoder decoder(Column column) throws IOException {
+        int index = column.ordinal();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel, file, offsets[index], compressedLengths[index], rawLengths[index]);
+        }
+    }
+
+    private static ColumnCodec.Decoder decode(FileChannel channel, Path file, long offset, int compressedLength, int rawLength)
+            throws IOException {
+        ByteBuffer compressed = read(channel, offset, compressedLength);
+        try {
+            return new ColumnCodec.Decoder(ColumnCodec.inflate(compressed.array(), rawLength));
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column at offset " + offset + " in " + file, e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
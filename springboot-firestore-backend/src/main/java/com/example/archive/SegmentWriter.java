@@ -0,0 +1,117 @@
+package com.example.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.model.ArchivedMatch;
+
+// Writes one immutable segment file. Layout:
+//   header:    magic, version, row count, min/max finishedAt, column count
+//   directory: per column its id, offset, compressed and raw length
+//   data:      the Deflate-compressed columns in Column order
+// The file is written under a temporary name and renamed, so readers never see a partial segment.
+final class SegmentWriter {
+
+    static final int MAGIC = 0x464D4131; // "FMA1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8 + 4;
+    static final int DIRECTORY_ENTRY_BYTES = 4 + 8 + 4 + 4;
+
+    private SegmentWriter() {
+    }
+
+    static void write(Path file, List<ArchivedMatch> matches) throws IOException {
+        List<ArchivedMatch> rows = new ArrayList<>(matches);
+        rows.sort(Comparator.comparingLong(ArchivedMatch::getFinishedAt));
+
+        Map<String, Integer> players = new LinkedHashMap<>();
+        Map<String, Integer> characters = new LinkedHashMap<>();
+        ColumnCodec.Encoder[] columns = new ColumnCodec.Encoder[Column.values().length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnCodec.Encoder();
+        }
+
+        long previousFinishedAt = 0;
+        for (ArchivedMatch match : rows) {
+            int player1 = intern(players, match.getPlayer1Id());
+            int player2 = intern(players, match.getPlayer2Id());
+            int winner = match.getWinnerId() == null ? 0
+                : match.getWinnerId().equals(match.getPlayer1Id()) ? 1 : 2;
+
+            columns[Column.GAME_ID.ordinal()].writeString(match.getGameId());
+            columns[Column.ROOM_ID.ordinal()].writeString(match.getRoomId());
+            columns[Column.PLAYER1.ordinal()].writeLong(player1);
+            columns[Column.PLAYER2.ordinal()].writeLong(player2);
+            columns[Column.WINNER.ordinal()].writeLong(winner);
+            columns[Column.CHARACTER1.ordinal()].writeLong(match.getPlayer1Character() == null ? -1 : intern(characters, match.getPlayer1Character()));
+            columns[Column.CHARACTER2.ordinal()].writeLong(match.getPlayer2Character() == null ? -1 : intern(characters, match.getPlayer2Character()));
+            columns[Column.ROUNDS.ordinal()].writeLong(match.getRounds());
+            columns[Column.FINISHED_AT.ordinal()].writeLong(match.getFinishedAt() - previousFinishedAt);
+            columns[Column.DURATION.ordinal()].writeLong(match.getDurationMs());
+            previousFinishedAt = match.getFinishedAt();
+        }
+        writeDictionary(columns[Column.PLAYERS.ordinal()], players);
+        writeDictionary(columns[Column.CHARACTERS.ordinal()], characters);
+
+        byte[][] raw = new byte[columns.length][];
+        byte[][] compressed = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            raw[i] = columns[i].toByteArray();
+            compressed[i] = ColumnCodec.deflate(raw[i]);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + DIRECTORY_ENTRY_BYTES * columns.length);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows.size())
+            .putLong(rows.isEmpty() ? 0 : rows.get(0).getFinishedAt())
+            .putLong(rows.isEmpty() ? 0 : rows.get(rows.size() - 1).getFinishedAt())
+            .putInt(columns.length);
+        long offset = header.capacity();
+        for (int i = 0; i < columns.length; i++) {
+            header.putInt(i).putLong(offset).putInt(compressed[i].length).putInt(raw[i].length);
+            offset += compressed[i].length;
+        }
+        header.flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (byte[] column : compressed) {
+                ByteBuffer data = ByteBuffer.wrap(column);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int intern(Map<String, Integer> dictionary, String value) {
+        Integer existing = dictionary.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        dictionary.put(value, dictionary.size());
+        return dictionary.size() - 1;
+    }
+
+    private static void writeDictionary(ColumnCodec.Encoder column, Map<String, Integer> dictionary) {
+        column.writeLong(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            column.writeString(value);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// LRU cache with a per-entry TTL and a size bound. Each entry may carry a removal hook
+// (e.g. a Firestore listener to unregister) that runs when the entry is evicted, expires or is invalidated.
+// Expired entries are dropped when read and by expire(), which the owner should call periodically so idle
+// entries don't keep their hooks' resources (listeners) alive until LRU pushes them out.
+// Entries also carry the Firestore update time (micros) of the cached value so out-of-order updates are ignored.
+public class ExpiringCache<V> {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong servedAgeTotalMs = new AtomicLong();
+
+    public ExpiringCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+    }
+
+    public V get(String key) {
+        Runnable expiredHook = null;
+        try {
+            synchronized (this) {
+                Entry<V> entry = entries.get(key);
+                long now = System.currentTimeMillis();
+                if (entry != null && entry.expiresAt < now) {
+                    entries.remove(key);
+                    expirations.incrementAndGet();
+                    expiredHook = entry.onRemoval;
+                    entry = null;
+                }
+                if (entry == null) {
+                    misses.incrementAndGet();
+                    return null;
+                }
+                hits.incrementAndGet();
+                servedAgeTotalMs.addAndGet(now - entry.refreshedAt);
+                return entry.value;
+            }
+        } finally {
+            runHook(expiredHook);
+        }
+    }
+
+    // Adds a freshly loaded value, replacing (and running the hook of) any previous entry
+    public void load(String key, V value, long version, Runnable onRemoval) {
+        List<Runnable> hooks = new ArrayList<>();
+        synchronized (this) {
+            Entry<V> previous = entries.put(key, new Entry<>(value, version, onRemoval, System.currentTimeMillis() + ttlMs));
+            if (previous != null && previous.onRemoval != onRemoval) {
+                hooks.add(previous.onRemoval);
+            }
+            Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                Entry<V> eldest = it.next().getValue();
+                it.remove();
+                evictions.incrementAndGet();
+                hooks.add(eldest.onRemoval);
+            }
+        }
+        hooks.forEach(ExpiringCache::runHook);
+    }
+
+    // Removes every expired entry and runs its hook; returns how many were removed
+    public int expire() {
+        List<Runnable> hooks = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Iterator<Entry<V>> it = entries.values().iterator(); // iteration does not touch LRU order
+            while (it.hasNext()) {
+                Entry<V> entry = it.next();
+                if (entry.expiresAt < now) {
+                    it.remove();
+                    expirations.incrementAndGet();
+                    hooks.add(entry.onRemoval);
+                }
+            }
+        }
+        hooks.forEach(ExpiringCache::runHook);
+        return hooks.size();
+    }
+
+    // Replaces the value of a cached entry after a local write; does nothing if the key isn't cached
+    public synchronized void update(String key, V value, long version) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            entry.value = value;
+            entry.version = Math.max(entry.version, version);
+            entry.refreshedAt = System.currentTimeMillis();
+        }
+    }
+
+    // Applies a local partial write to the cached value in place; returns the patched value, or null if the key
+    // isn't cached. The version is kept, so the listener's snapshot of that write (the server's result) still applies.
+    public synchronized V patch(String key, Consumer<V> change) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        change.accept(entry.value);
+        entry.refreshedAt = System.currentTimeMillis();
+        return entry.value;
+    }
+
+    // Applies a newer remote version of a cached entry; returns false if not cached or not newer
+    public synchronized boolean replaceIfNewer(String key, V value, long version) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.version >= version) {
+            return false;
+        }
+        entry.value = value;
+        entry.version = version;
+        entry.refreshedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    public void invalidate(String key) {
+        Entry<V> entry;
+        synchronized (this) {
+            entry = entries.remove(key);
+        }
+        if (entry != null) {
+            runHook(entry.onRemoval);
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt >= System.currentTimeMillis();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMs);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("avgServedAgeMs", hitCount == 0 ? 0.0 : (double) servedAgeTotalMs.get() / hitCount);
+        return stats;
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.get();
+        long requests = hitCount + misses.get();
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+
+    private static void runHook(Runnable hook) {
+        if (hook != null) {
+            hook.run();
+        }
+    }
+
+    private static final class Entry<V> {
+        V value;
+        long version;
+        long refreshedAt;
+        final Runnable onRemoval;
+        final long expiresAt;
+
+        Entry(V value, long version, Runnable onRemoval, long expiresAt) {
+            this.value = value;
+            this.version = version;
+            this.onRemoval = onRemoval;
+            this.expiresAt = expiresAt;
+            this.refreshedAt = System.currentTimeMillis();
+        }
+    }
+}
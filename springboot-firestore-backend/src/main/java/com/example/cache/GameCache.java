@@ -0,0 +1,262 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.model.Game;
+import com.example.model.Player;
+
+// Bounded in-memory cache for games with entry-count and weight (approximate bytes) limits.
+// Games are kept in three LRU segments: finished games are evicted first, then idle (waiting) ones. Running games
+// are pinned while their players are connected: every action and read of a game goes through get() or put(), so
+// a running game nobody has touched for the idle timeout has lost both players. Only such abandoned games are
+// demoted to the idle segment, and only when the cache is over its bound; they stay in Firestore. If the limit is
+// still exceeded with nothing but live matches left, the cache runs over its bound rather than evict one.
+public class GameCache {
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GameCache.class);
+
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long runningIdleTimeoutMs;
+
+    // Access-ordered, so iteration starts from the least recently used entry
+    private final LinkedHashMap<String, Entry> finished = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> running = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, LinkedHashMap<String, Entry>> segmentOf = new HashMap<>();
+    private long totalWeight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong overCapacityPuts = new AtomicLong();
+
+    public GameCache(int maxEntries, long maxWeightBytes, long runningIdleTimeoutMs) {
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.runningIdleTimeoutMs = runningIdleTimeoutMs;
+    }
+
+    public synchronized Game get(String gameId) {
+        LinkedHashMap<String, Entry> segment = segmentOf.get(gameId);
+        if (segment == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        Entry entry = segment.get(gameId); // touches LRU order
+        entry.lastAccess = System.currentTimeMillis();
+        hits.incrementAndGet();
+        return entry.game;
+    }
+
+    // Lookup without touching LRU order or hit/miss counters
+    public synchronized boolean contains(String gameId) {
+        return segmentOf.containsKey(gameId);
+    }
+
+    public synchronized Game peek(String gameId) {
+        LinkedHashMap<String, Entry> segment = segmentOf.get(gameId);
+        return segment != null ? segment.get(gameId).game : null;
+    }
+
+    // Inserts or re-classifies a game; must be called again whenever the game status changes
+    public synchronized void put(Game game) {
+        Entry previous = removeEntry(game.getId());
+        insert(game, previous != null ? previous.version : 0);
+        evictIfNeeded();
+    }
+
+    // Records the Firestore update time (micros) of the cached state, e.g. after a local write
+    public synchronized void recordVersion(String gameId, long version) {
+        LinkedHashMap<String, Entry> segment = segmentOf.get(gameId);
+        if (segment != null) {
+            Entry entry = segment.get(gameId);
+            entry.version = Math.max(entry.version, version);
+        }
+    }
+
+    // Replaces a cached game with a newer Firestore version; games that are not cached are ignored
+    public synchronized boolean replaceIfNewer(Game game, long version) {
+        LinkedHashMap<String, Entry> segment = segmentOf.get(game.getId());
+        if (segment == null || segment.get(game.getId()).version >= version) {
+            return false;
+        }
+        Entry previous = removeEntry(game.getId());
+        insert(game, version).lastAccess = previous.lastAccess; // a write from elsewhere is not player activity
+        evictIfNeeded();
+        return true;
+    }
+
+    private Entry insert(Game game, long version) {
+        Entry entry = new Entry(game, estimateWeight(game));
+        entry.version = version;
+        LinkedHashMap<String, Entry> segment = segmentFor(game);
+        segment.put(game.getId(), entry);
+        segmentOf.put(game.getId(), segment);
+        totalWeight += entry.weight;
+        return entry;
+    }
+
+    public synchronized Game remove(String gameId) {
+        Entry entry = removeEntry(gameId);
+        return entry != null ? entry.game : null;
+    }
+
+    // Snapshot of the cached games, e.g. to find the ones another node now owns
+    public synchronized List<Game> games() {
+        List<Game> games = new ArrayList<>(segmentOf.size());
+        for (LinkedHashMap<String, Entry> segment : List.of(running, idle, finished)) {
+            segment.values().forEach(entry -> games.add(entry.game)); // iteration does not touch LRU order
+        }
+        return games;
+    }
+
+    public synchronized int size() {
+        return segmentOf.size();
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", segmentOf.size());
+        stats.put("running", running.size());
+        stats.put("idle", idle.size());
+        stats.put("finished", finished.size());
+        stats.put("weightBytes", totalWeight);
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxWeightBytes", maxWeightBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.get());
+        stats.put("overCapacityPuts", overCapacityPuts.get());
+        return stats;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private LinkedHashMap<String, Entry> segmentFor(Game game) {
+        if ("finished".equals(game.getStatus())) {
+            return finished;
+        }
+        if ("running".equals(game.getStatus())) {
+            return running;
+        }
+        return idle;
+    }
+
+    private Entry removeEntry(String gameId) {
+        LinkedHashMap<String, Entry> segment = segmentOf.remove(gameId);
+        if (segment == null) {
+            return null;
+        }
+        Entry entry = segment.remove(gameId);
+        totalWeight -= entry.weight;
+        return entry;
+    }
+
+    private boolean overLimit() {
+        return segmentOf.size() > maxEntries || totalWeight > maxWeightBytes;
+    }
+
+    private void evictIfNeeded() {
+        if (!overLimit()) {
+            return;
+        }
+
+        evictFrom(finished);
+        if (overLimit()) {
+            demoteAbandonedRunningGames();
+            evictFrom(idle);
+        }
+
+        if (overLimit()) {
+            // Only live matches are left; keep them and let the cache run over its bound
+            if (overCapacityPuts.incrementAndGet() % 1000 == 1) {
+                logger.warn("Game cache over capacity with {} live games ({} bytes)", running.size(), totalWeight);
+            }
+        }
+    }
+
+    private void evictFrom(LinkedHashMap<String, Entry> segment) {
+        Iterator<Map.Entry<String, Entry>> it = segment.entrySet().iterator();
+        while (overLimit() && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            segmentOf.remove(eldest.getKey());
+            totalWeight -= eldest.getValue().weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Running games neither player has acted on or read for the idle timeout are abandoned matches (both players
+    // disconnected); they stay in Firestore and become ordinary eviction candidates
+    private void demoteAbandonedRunningGames() {
+        long cutoff = System.currentTimeMillis() - runningIdleTimeoutMs;
+        Iterator<Map.Entry<String, Entry>> it = running.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getValue().lastAccess >= cutoff) {
+                break; // access order: everything after this is more recent
+            }
+            it.remove();
+            idle.put(eldest.getKey(), eldest.getValue());
+            segmentOf.put(eldest.getKey(), idle);
+        }
+    }
+
+    // Rough retained size of a game: object headers, fields and string payloads
+    static long estimateWeight(Game game) {
+        long weight = 64 + stringWeight(game.getId()) + stringWeight(game.getStatus()) + stringWeight(game.getWinner());
+        weight += playerWeight(game.getPlayer1()) + playerWeight(game.getPlayer2());
+        return weight;
+    }
+
+    private static long playerWeight(Player player) {
+        if (player == null) {
+            return 0;
+        }
+        return 56 + stringWeight(player.getId()) + stringWeight(player.getName())
+            + stringWeight(player.getFacing()) + stringWeight(player.getCurrentAnimation());
+    }
+
+    private static long stringWeight(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static final class Entry {
+        final Game game;
+        final long weight;
+        long lastAccess;
+        long version;
+
+        Entry(Game game, long weight) {
+            this.game = game;
+            this.weight = weight;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+}
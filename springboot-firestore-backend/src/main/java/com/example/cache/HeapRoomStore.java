@@ -0,0 +1,83 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.model.Room;
+
+// Default room store: Room objects in a ConcurrentHashMap. Rooms are copied in and out, so callers get the
+// snapshots RoomStore promises, like the off-heap store's decoded records.
+public class HeapRoomStore implements RoomStore {
+
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public Room get(String roomId) {
+        Room room = rooms.get(roomId);
+        return room != null ? new Room(room) : null;
+    }
+
+    @Override
+    public void put(Room room) {
+        rooms.put(room.getRoomId(), new Room(room));
+        versions.putIfAbsent(room.getRoomId(), 0L); // a new room starts at version 0, an existing one keeps its own
+    }
+
+    @Override
+    public boolean putIfNewer(Room room, long version) {
+        boolean[] applied = {false};
+        versions.compute(room.getRoomId(), (id, current) -> {
+            if (current != null && current >= version) {
+                return current;
+            }
+            rooms.put(id, new Room(room));
+            applied[0] = true;
+            return version;
+        });
+        return applied[0];
+    }
+
+    @Override
+    public void recordVersion(String roomId, long version) {
+        rooms.computeIfPresent(roomId, (id, room) -> {
+            versions.merge(id, version, Math::max);
+            return room;
+        });
+    }
+
+    @Override
+    public boolean remove(String roomId) {
+        versions.remove(roomId);
+        return rooms.remove(roomId) != null;
+    }
+
+    @Override
+    public boolean contains(String roomId) {
+        return rooms.containsKey(roomId);
+    }
+
+    @Override
+    public int size() {
+        return rooms.size();
+    }
+
+    @Override
+    public List<String> roomIds() {
+        return new ArrayList<>(rooms.keySet());
+    }
+
+    @Override
+    public List<Room> rooms() {
+        List<Room> snapshot = new ArrayList<>(rooms.size());
+        rooms.values().forEach(room -> snapshot.add(new Room(room)));
+        return snapshot;
+    }
+
+    @Override
+    public void clear() {
+        rooms.clear();
+        versions.clear();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Remembers keys that were recently looked up and not found, for a short TTL
+public class NegativeCache {
+
+    private final ConcurrentHashMap<String, Long> expiresAt = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntries;
+    private final AtomicLong hits = new AtomicLong();
+
+    public NegativeCache(long ttlMs, int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isKnownMissing(String key) {
+        Long expiry = expiresAt.get(key);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry < System.currentTimeMillis()) {
+            expiresAt.remove(key, expiry);
+            return false;
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    public void markMissing(String key) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        if (expiresAt.size() >= maxEntries) {
+            purgeExpired();
+            if (expiresAt.size() >= maxEntries) {
+                // Still full of live entries: start over rather than grow without bound
+                expiresAt.clear();
+            }
+        }
+        expiresAt.put(key, System.currentTimeMillis() + ttlMs);
+    }
+
+    public void invalidate(String key) {
+        expiresAt.remove(key);
+    }
+
+    public int size() {
+        return expiresAt.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        expiresAt.values().removeIf(expiry -> expiry < now);
+    }
+}
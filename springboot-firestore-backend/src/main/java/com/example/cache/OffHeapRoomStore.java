@@ -0,0 +1,513 @@
+package com.example.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+import com.example.model.Room;
+
+// Compact room store: each room is a fixed 104-byte record in direct ByteBuffer slabs outside the Java heap.
+// UUID room IDs are stored inline as two longs and indexed by a primitive open-addressing table; names, user IDs,
+// statuses and character/action maps are interned into ref-counted pools so each record only holds int references.
+// Room objects are materialized only when a caller asks for one.
+public class OffHeapRoomStore implements RoomStore {
+
+    private static final int RECORD_SIZE = 104;
+    private static final int RECORDS_PER_SLAB = 16384;
+
+    // Record layout
+    private static final int ROOM_ID_MSB = 0;         // long
+    private static final int ROOM_ID_LSB = 8;         // long
+    private static final int ROOM_ID_REF = 16;        // int, only for non-UUID room IDs
+    private static final int HOST_ID = 20;
+    private static final int HOST_NAME = 24;
+    private static final int HOST_CHARACTER = 28;
+    private static final int GUEST_ID = 32;
+    private static final int GUEST_NAME = 36;
+    private static final int GUEST_CHARACTER = 40;
+    private static final int STATUS = 44;
+    private static final int GAME_ID = 48;
+    private static final int WINNER = 52;
+    private static final int CREATED_AT = 56;         // long, millis when createdAt is numeric
+    private static final int CREATED_AT_REF = 64;     // int, when it isn't
+    private static final int BACKEND_ROOM_ID = 68;
+    private static final int LAST_UPDATED = 72;       // long
+    private static final int HOST_ACTION = 80;
+    private static final int GUEST_ACTION = 84;
+    private static final int FLAGS = 88;              // byte
+    private static final int VERSION = 96;            // long, Firestore update time in micros
+
+    private static final byte FLAG_HOST_READY = 1;
+    private static final byte FLAG_GUEST_READY = 2;
+    private static final long NO_CREATED_AT = Long.MIN_VALUE;
+    private static final int[] REF_FIELDS = {
+        ROOM_ID_REF, HOST_ID, HOST_NAME, GUEST_ID, GUEST_NAME, STATUS, GAME_ID, WINNER, CREATED_AT_REF, BACKEND_ROOM_ID
+    };
+    private static final int[] MAP_FIELDS = {HOST_CHARACTER, GUEST_CHARACTER, HOST_ACTION, GUEST_ACTION};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final UuidIndex uuidIndex = new UuidIndex();
+    private final Map<String, Integer> otherIndex = new HashMap<>(); // non-UUID room IDs
+    private final RefCountedPool<String> strings = new RefCountedPool<>(s -> s);
+    private final RefCountedPool<Map<String, Object>> maps = new RefCountedPool<>(HashMap::new);
+    private int nextSlot;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int size;
+
+    @Override
+    public Room get(String roomId) {
+        lock.readLock().lock();
+        try {
+            int slot = find(roomId);
+            return slot < 0 ? null : materialize(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Room room) {
+        lock.writeLock().lock();
+        try {
+            store(room);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean putIfNewer(Room room, long version) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(room.getRoomId());
+            if (slot >= 0 && slab(slot).getLong(offset(slot) + VERSION) >= version) {
+                return false;
+            }
+            slot = store(room);
+            slab(slot).putLong(offset(slot) + VERSION, version);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void recordVersion(String roomId, long version) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(roomId);
+            if (slot >= 0) {
+                ByteBuffer slab = slab(slot);
+                int base = offset(slot);
+                slab.putLong(base + VERSION, Math.max(slab.getLong(base + VERSION), version));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Writes the room into its existing slot (keeping the version) or a new one; caller holds the write lock
+    private int store(Room room) {
+        String roomId = room.getRoomId();
+        int slot = find(roomId);
+        if (slot >= 0) {
+            releaseRefs(slot);
+        } else {
+            slot = allocateSlot();
+            index(roomId, slot);
+            slab(slot).putLong(offset(slot) + VERSION, 0);
+            size++;
+        }
+        write(slot, room);
+        return slot;
+    }
+
+    @Override
+    public boolean remove(String roomId) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(roomId);
+            if (slot < 0) {
+                return false;
+            }
+            releaseRefs(slot);
+            unindex(roomId);
+            freeSlot(slot);
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String roomId) {
+        lock.readLock().lock();
+        try {
+            return find(roomId) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> roomIds() {
+        lock.readLock().lock();
+        try {
+            List<String> ids = new ArrayList<>(size);
+            forEachSlot(slot -> ids.add(readRoomId(slot)));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Room> rooms() {
+        lock.readLock().lock();
+        try {
+            List<Room> rooms = new ArrayList<>(size);
+            forEachSlot(slot -> rooms.add(materialize(slot)));
+            return rooms;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slabs.clear();
+            uuidIndex.clear();
+            otherIndex.clear();
+            strings.clear();
+            maps.clear();
+            nextSlot = 0;
+            freeCount = 0;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slabs.size() * RECORDS_PER_SLAB * RECORD_SIZE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int internedStrings() {
+        lock.readLock().lock();
+        try {
+            return strings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- record encoding ---
+
+    private void write(int slot, Room room) {
+        ByteBuffer slab = slab(slot);
+        int base = offset(slot);
+
+        UUID uuid = asUuid(room.getRoomId());
+        slab.putLong(base + ROOM_ID_MSB, uuid != null ? uuid.getMostSignificantBits() : 0);
+        slab.putLong(base + ROOM_ID_LSB, uuid != null ? uuid.getLeastSignificantBits() : 0);
+        slab.putInt(base + ROOM_ID_REF, uuid != null ? RefCountedPool.NULL_REF : strings.acquire(room.getRoomId()));
+
+        slab.putInt(base + HOST_ID, strings.acquire(room.getHostId()));
+        slab.putInt(base + HOST_NAME, strings.acquire(room.getHostName()));
+        slab.putInt(base + HOST_CHARACTER, maps.acquire(room.getHostCharacter()));
+        slab.putInt(base + GUEST_ID, strings.acquire(room.getGuestId()));
+        slab.putInt(base + GUEST_NAME, strings.acquire(room.getGuestName()));
+        slab.putInt(base + GUEST_CHARACTER, maps.acquire(room.getGuestCharacter()));
+        slab.putInt(base + STATUS, strings.acquire(room.getStatus()));
+        slab.putInt(base + GAME_ID, strings.acquire(room.getGameId()));
+        slab.putInt(base + WINNER, strings.acquire(room.getWinner()));
+
+        long createdAt = parseMillis(room.getCreatedAt());
+        slab.putLong(base + CREATED_AT, createdAt);
+        slab.putInt(base + CREATED_AT_REF,
+            createdAt == NO_CREATED_AT ? strings.acquire(room.getCreatedAt()) : RefCountedPool.NULL_REF);
+
+        slab.putInt(base + BACKEND_ROOM_ID, strings.acquire(room.getBackendRoomId()));
+        slab.putLong(base + LAST_UPDATED, room.getLastUpdated());
+        slab.putInt(base + HOST_ACTION, maps.acquire(room.getHostAction()));
+        slab.putInt(base + GUEST_ACTION, maps.acquire(room.getGuestAction()));
+
+        byte flags = 0;
+        if (room.isHostReady()) {
+            flags |= FLAG_HOST_READY;
+        }
+        if (room.isGuestReady()) {
+            flags |= FLAG_GUEST_READY;
+        }
+        slab.put(base + FLAGS, flags);
+    }
+
+    private Room materialize(int slot) {
+        ByteBuffer slab = slab(slot);
+        int base = offset(slot);
+
+        Room room = new Room();
+        room.setRoomId(readRoomId(slot));
+        room.setHostId(strings.get(slab.getInt(base + HOST_ID)));
+        room.setHostName(strings.get(slab.getInt(base + HOST_NAME)));
+        room.setHostCharacter(copy(maps.get(slab.getInt(base + HOST_CHARACTER))));
+        room.setGuestId(strings.get(slab.getInt(base + GUEST_ID)));
+        room.setGuestName(strings.get(slab.getInt(base + GUEST_NAME)));
+        room.setGuestCharacter(copy(maps.get(slab.getInt(base + GUEST_CHARACTER))));
+        room.setStatus(strings.get(slab.getInt(base + STATUS)));
+        room.setGameId(strings.get(slab.getInt(base + GAME_ID)));
+        room.setWinner(strings.get(slab.getInt(base + WINNER)));
+
+        long createdAt = slab.getLong(base + CREATED_AT);
+        room.setCreatedAt(createdAt != NO_CREATED_AT
+            ? String.valueOf(createdAt)
+            : strings.get(slab.getInt(base + CREATED_AT_REF)));
+
+        room.setBackendRoomId(strings.get(slab.getInt(base + BACKEND_ROOM_ID)));
+        room.setHostAction(copy(maps.get(slab.getInt(base + HOST_ACTION))));
+        room.setGuestAction(copy(maps.get(slab.getInt(base + GUEST_ACTION))));
+
+        byte flags = slab.get(base + FLAGS);
+        room.setHostReady((flags & FLAG_HOST_READY) != 0);
+        room.setGuestReady((flags & FLAG_GUEST_READY) != 0);
+
+        // Setters above touch lastUpdated, so restore it last
+        room.setLastUpdated(slab.getLong(base + LAST_UPDATED));
+        return room;
+    }
+
+    private String readRoomId(int slot) {
+        ByteBuffer slab = slab(slot);
+        int base = offset(slot);
+        int ref = slab.getInt(base + ROOM_ID_REF);
+        if (ref != RefCountedPool.NULL_REF) {
+            return strings.get(ref);
+        }
+        return new UUID(slab.getLong(base + ROOM_ID_MSB), slab.getLong(base + ROOM_ID_LSB)).toString();
+    }
+
+    private void releaseRefs(int slot) {
+        ByteBuffer slab = slab(slot);
+        int base = offset(slot);
+        for (int field : REF_FIELDS) {
+            strings.release(slab.getInt(base + field));
+        }
+        for (int field : MAP_FIELDS) {
+            maps.release(slab.getInt(base + field));
+        }
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> pooled) {
+        return pooled == null ? null : new HashMap<>(pooled);
+    }
+
+    // Only canonical lowercase UUID strings are stored inline, so they round-trip exactly
+    private static UUID asUuid(String roomId) {
+        if (roomId == null || roomId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(roomId);
+            return uuid.toString().equals(roomId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long parseMillis(String value) {
+        if (value == null || value.isEmpty() || value.length() > 19) {
+            return NO_CREATED_AT;
+        }
+        try {
+            long millis = Long.parseLong(value);
+            return String.valueOf(millis).equals(value) ? millis : NO_CREATED_AT;
+        } catch (NumberFormatException e) {
+            return NO_CREATED_AT;
+        }
+    }
+
+    // --- slots and index ---
+
+    private ByteBuffer slab(int slot) {
+        return slabs.get(slot / RECORDS_PER_SLAB);
+    }
+
+    private static int offset(int slot) {
+        return (slot % RECORDS_PER_SLAB) * RECORD_SIZE;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = nextSlot++;
+        if (slot / RECORDS_PER_SLAB >= slabs.size()) {
+            slabs.add(ByteBuffer.allocateDirect(RECORDS_PER_SLAB * RECORD_SIZE));
+        }
+        return slot;
+    }
+
+    private void freeSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void forEachSlot(IntConsumer action) {
+        uuidIndex.forEachSlot(action);
+        for (int slot : otherIndex.values()) {
+            action.accept(slot);
+        }
+    }
+
+    private int find(String roomId) {
+        if (roomId == null) {
+            return -1;
+        }
+        UUID uuid = asUuid(roomId);
+        if (uuid != null) {
+            return uuidIndex.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+        Integer slot = otherIndex.get(roomId);
+        return slot != null ? slot : -1;
+    }
+
+    private void index(String roomId, int slot) {
+        UUID uuid = asUuid(roomId);
+        if (uuid != null) {
+            uuidIndex.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot);
+        } else {
+            otherIndex.put(roomId, slot);
+        }
+    }
+
+    private void unindex(String roomId) {
+        UUID uuid = asUuid(roomId);
+        if (uuid != null) {
+            uuidIndex.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } else {
+            otherIndex.remove(roomId);
+        }
+    }
+
+    // Open-addressing (linear probing) map from a 128-bit UUID to a slot, backed by primitive arrays
+    private static final class UuidIndex {
+        private long[] msbs = new long[1024];
+        private long[] lsbs = new long[1024];
+        private int[] slots = new int[1024]; // slot + 1; 0 marks an empty bucket
+        private int count;
+
+        int get(long msb, long lsb) {
+            int mask = slots.length - 1;
+            for (int i = bucket(msb, lsb, mask); slots[i] != 0; i = (i + 1) & mask) {
+                if (msbs[i] == msb && lsbs[i] == lsb) {
+                    return slots[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(long msb, long lsb, int slot) {
+            if ((count + 1) * 2 > slots.length) {
+                resize();
+            }
+            int mask = slots.length - 1;
+            int i = bucket(msb, lsb, mask);
+            while (slots[i] != 0) {
+                if (msbs[i] == msb && lsbs[i] == lsb) {
+                    slots[i] = slot + 1;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            msbs[i] = msb;
+            lsbs[i] = lsb;
+            slots[i] = slot + 1;
+            count++;
+        }
+
+        void remove(long msb, long lsb) {
+            int mask = slots.length - 1;
+            int i = bucket(msb, lsb, mask);
+            while (slots[i] != 0 && (msbs[i] != msb || lsbs[i] != lsb)) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] == 0) {
+                return;
+            }
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int hole = i;
+            for (int j = (hole + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+                int home = bucket(msbs[j], lsbs[j], mask);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    msbs[hole] = msbs[j];
+                    lsbs[hole] = lsbs[j];
+                    slots[hole] = slots[j];
+                    hole = j;
+                }
+            }
+            slots[hole] = 0;
+            count--;
+        }
+
+        void forEachSlot(IntConsumer action) {
+            for (int slot : slots) {
+                if (slot != 0) {
+                    action.accept(slot - 1);
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(slots, 0);
+            count = 0;
+        }
+
+        private void resize() {
+            long[] oldMsbs = msbs;
+            long[] oldLsbs = lsbs;
+            int[] oldSlots = slots;
+            msbs = new long[oldSlots.length * 2];
+            lsbs = new long[oldSlots.length * 2];
+            slots = new int[oldSlots.length * 2];
+            count = 0;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != 0) {
+                    put(oldMsbs[i], oldLsbs[i], oldSlots[i] - 1);
+                }
+            }
+        }
+
+        private static int bucket(long msb, long lsb, int mask) {
+            long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
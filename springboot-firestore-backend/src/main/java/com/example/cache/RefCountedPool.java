@@ -0,0 +1,82 @@
+package com.example.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+// Interning pool handing out int references to deduplicated values. Each acquire must be paired
+// with a release; a value is dropped once nothing references it. Not thread-safe.
+class RefCountedPool<T> {
+
+    static final int NULL_REF = -1;
+
+    private final UnaryOperator<T> copier;
+    private final Map<T, Integer> refs = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+    private int[] refCounts = new int[64];
+    private int[] freeRefs = new int[64];
+    private int freeCount;
+
+    RefCountedPool(UnaryOperator<T> copier) {
+        this.copier = copier;
+    }
+
+    int acquire(T value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        Integer existing = refs.get(value);
+        if (existing != null) {
+            refCounts[existing]++;
+            return existing;
+        }
+
+        // Keep a private copy so later changes to the caller's object can't corrupt the pool
+        T copy = copier.apply(value);
+        int ref;
+        if (freeCount > 0) {
+            ref = freeRefs[--freeCount];
+            values.set(ref, copy);
+        } else {
+            ref = values.size();
+            values.add(copy);
+            if (ref >= refCounts.length) {
+                refCounts = Arrays.copyOf(refCounts, refCounts.length * 2);
+            }
+        }
+        refCounts[ref] = 1;
+        refs.put(copy, ref);
+        return ref;
+    }
+
+    T get(int ref) {
+        return ref == NULL_REF ? null : values.get(ref);
+    }
+
+    void release(int ref) {
+        if (ref == NULL_REF) {
+            return;
+        }
+        if (--refCounts[ref] == 0) {
+            refs.remove(values.get(ref));
+            values.set(ref, null);
+            if (freeCount == freeRefs.length) {
+                freeRefs = Arrays.copyOf(freeRefs, freeRefs.length * 2);
+            }
+            freeRefs[freeCount++] = ref;
+        }
+    }
+
+    int size() {
+        return refs.size();
+    }
+
+    void clear() {
+        refs.clear();
+        values.clear();
+        freeCount = 0;
+    }
+}
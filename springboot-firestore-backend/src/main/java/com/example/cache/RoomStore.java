@@ -0,0 +1,32 @@
+package com.example.cache;
+
+import java.util.List;
+
+import com.example.model.Room;
+
+// In-memory room registry used by RoomService. Rooms returned by get/rooms are snapshots:
+// changes to them must be written back with put.
+public interface RoomStore {
+
+    Room get(String roomId);
+
+    void put(Room room);
+
+    // Stores the room only if version (Firestore update time, micros) is newer than the one held
+    boolean putIfNewer(Room room, long version);
+
+    // Records the Firestore version of the stored room, e.g. after a local write
+    void recordVersion(String roomId, long version);
+
+    boolean remove(String roomId);
+
+    boolean contains(String roomId);
+
+    int size();
+
+    List<String> roomIds();
+
+    List<Room> rooms();
+
+    void clear();
+}
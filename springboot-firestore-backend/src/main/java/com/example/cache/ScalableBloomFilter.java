@@ -0,0 +1,163 @@
+package com.example.cache;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Scalable Bloom filter (Almeida et al.): when the current stage reaches its capacity a new stage
+// with double the capacity and half the false positive rate is added, so the compound
+// false positive rate stays below targetFpp however many keys are added.
+// Membership checks and inserts are lock-free; only adding a stage synchronizes.
+public class ScalableBloomFilter {
+
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final int GROWTH_FACTOR = 2;
+
+    private final double targetFpp;
+    private final CopyOnWriteArrayList<Stage> stages = new CopyOnWriteArrayList<>();
+    private final AtomicLong count = new AtomicLong();
+
+    public ScalableBloomFilter(long initialCapacity, double targetFpp) {
+        if (targetFpp <= 0 || targetFpp >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        this.targetFpp = targetFpp;
+        stages.add(new Stage(Math.max(64, initialCapacity), targetFpp * (1 - TIGHTENING_RATIO)));
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return; // already (probably) present, don't spend capacity on it
+            }
+        }
+        Stage stage = currentStage();
+        stage.put(h1, h2);
+        count.incrementAndGet();
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public int stageCount() {
+        return stages.size();
+    }
+
+    public double getTargetFpp() {
+        return targetFpp;
+    }
+
+    // Current compound false positive probability, from each stage's fill level
+    public double expectedFpp() {
+        double miss = 1.0;
+        for (Stage stage : stages) {
+            miss *= 1.0 - stage.expectedFpp();
+        }
+        return 1.0 - miss;
+    }
+
+    public long bitSize() {
+        long bits = 0;
+        for (Stage stage : stages) {
+            bits += stage.numBits;
+        }
+        return bits;
+    }
+
+    private Stage currentStage() {
+        Stage last = stages.get(stages.size() - 1);
+        if (last.inserted.get() < last.capacity) {
+            return last;
+        }
+        synchronized (this) {
+            last = stages.get(stages.size() - 1);
+            if (last.inserted.get() >= last.capacity) {
+                last = new Stage(last.capacity * GROWTH_FACTOR, last.fpp * TIGHTENING_RATIO);
+                stages.add(last);
+            }
+            return last;
+        }
+    }
+
+    // 64-bit FNV-1a over the UTF-16 chars, finished with the murmur3 avalanche step
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Stage {
+        final long capacity;
+        final double fpp;
+        final long numBits;
+        final int numHashes;
+        final AtomicLongArray bits;
+        final AtomicLong inserted = new AtomicLong();
+
+        Stage(long capacity, double fpp) {
+            this.capacity = capacity;
+            this.fpp = fpp;
+            // Optimal sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+            long m = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, (m + 63) / 64 * 64);
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((int) (numBits / 64));
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long h1, long h2) {
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = bits.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(index, word, word | mask));
+            }
+            inserted.incrementAndGet();
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) numHashes * inserted.get() / numBits), numHashes);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Consistent-hash ring over backend nodes. Each node is placed at virtualNodes points on a 64-bit ring and a key
+// belongs to the first point clockwise from the key's hash, so load spreads evenly and adding or removing one of
+// N nodes moves only about 1/N of the keys, all of them to or from that node. Every node that sees the same
+// node set builds the same ring. Immutable: ClusterService builds a new one when membership changes.
+// A key of the form "<parent>~<child>" (a room's game) is placed by its parent, so it lands with the parent.
+public final class HashRing {
+
+    public static final char SHARD_SEPARATOR = '~';
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+    private final List<String> nodes;
+    private final int virtualNodes;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        List<String> sorted = new ArrayList<>(nodes);
+        Collections.sort(sorted);
+        this.nodes = Collections.unmodifiableList(sorted);
+        this.virtualNodes = virtualNodes;
+        for (String node : sorted) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.putIfAbsent(hash(node + "#" + i), node); // a 64-bit collision just drops one point
+            }
+        }
+    }
+
+    // Key for a child of parent that shares the parent's owner
+    public static String childKey(String parent, String child) {
+        return parent + SHARD_SEPARATOR + child;
+    }
+
+    // The part of the key that decides its owner
+    static String shardKey(String key) {
+        int separator = key.indexOf(SHARD_SEPARATOR);
+        return separator < 0 ? key : key.substring(0, separator);
+    }
+
+    // Owner of the key; null only for an empty ring
+    public String ownerOf(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(shardKey(key)));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    // Node that takes the key over if its owner leaves: the next distinct node clockwise. Null on a one-node ring.
+    public String successorOf(String key) {
+        String owner = ownerOf(key);
+        if (owner == null || nodes.size() < 2) {
+            return null;
+        }
+        long h = hash(shardKey(key));
+        for (Collection<String> arc : List.of(points.tailMap(h, true).values(), points.headMap(h, false).values())) {
+            for (String node : arc) {
+                if (!node.equals(owner)) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    // FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread similar keys ("node#1", "node#2")
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.service.AdmissionService;
+import com.example.service.AdmissionService.Priority;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Admission control (AdmissionService) in front of the Firestore-bound endpoints, MVC stack. A request over its
+// priority's share of the limit gets 503 with Retry-After before it takes any Firestore work onto a server thread.
+// The permit is held until the response is done, including the async part of CompletableFuture endpoints.
+// Endpoints served from memory (stats, leaderboard, archive, admin, actuator, the frontend) are not limited.
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final List<String> FIRESTORE_PATHS = List.of(
+        "/api/games", "/api/rooms", "/api/users", "/api/ratings", "/games", "/users", "/todos");
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdmissionService admission;
+
+    public AdmissionFilter(AdmissionService admission) {
+        this.admission = admission;
+    }
+
+    // In-match actions and result updates first, listings last; null for endpoints that are not limited
+    static Priority priorityOf(String method, String path) {
+        String root = FIRESTORE_PATHS.stream()
+            .filter(prefix -> path.equals(prefix) || path.startsWith(prefix + "/"))
+            .findFirst()
+            .orElse(null);
+        if (root == null || "OPTIONS".equals(method) || path.endsWith("/stats")) {
+            return null;
+        }
+        if (("POST".equals(method) && (path.endsWith("/action") || path.endsWith("/action/")))
+                || ("PUT".equals(method) && path.endsWith("/status"))) {
+            return Priority.CRITICAL;
+        }
+        if ("GET".equals(method) && (path.equals(root) || path.equals(root + "/"))) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Priority priority = priorityOf(request.getMethod(), path);
+        if (priority == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!admission.tryAcquire(priority)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                admission.release();
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.service.AdmissionService;
+import com.example.service.AdmissionService.Priority;
+
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of AdmissionFilter; the permit is released when the response completes or is cancelled
+@Component
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionWebFilter implements WebFilter {
+
+    private final AdmissionService admission;
+
+    public AdmissionWebFilter(AdmissionService admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Priority priority = AdmissionFilter.priorityOf(exchange.getRequest().getMethod().name(),
+            exchange.getRequest().getPath().pathWithinApplication().value());
+        if (priority == null) {
+            return chain.filter(exchange);
+        }
+        if (!admission.tryAcquire(priority)) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, AdmissionFilter.RETRY_AFTER_SECONDS);
+            return response.setComplete();
+        }
+        return chain.filter(exchange)
+            .doFinally(signal -> admission.release());
+    }
+}
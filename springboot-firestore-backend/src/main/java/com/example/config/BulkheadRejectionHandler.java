@@ -0,0 +1,24 @@
+package com.example.config;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// A full bulkhead (Bulkheads.supply, or the lobby pool behind streamed lists) refuses work with
+// RejectedExecutionException; answer it like admission control does, 503 with Retry-After, not a 500.
+@RestControllerAdvice
+@Profile("!reactive")
+public class BulkheadRejectionHandler {
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, AdmissionFilter.RETRY_AFTER_SECONDS)
+            .build();
+    }
+}
@@ -1,25 +1,38 @@
 package com.example.config;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.example.service.AdmissionService;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
 
+import io.grpc.ClientInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+
 @Configuration
 public class FirebaseConfig {
     
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FirebaseConfig.class);
     
     @Bean
-    public Firestore firestore() throws IOException {
+    public Firestore firestore(MeterRegistry meterRegistry, ObjectProvider<Tracer> tracer, AdmissionService admission,
+                               @Value("${firestore.inject-latency-ms:0}") long injectLatencyMs,
+                               @Value("${firestore.inject-latency-jitter-ms:0}") long injectLatencyJitterMs)
+            throws IOException {
         logger.info("Initializing Firestore...");
         
         // Load the service account file from classpath
@@ -31,9 +44,25 @@ public class FirebaseConfig {
         GoogleCredentials credentials = GoogleCredentials.fromStream(serviceAccount);
         logger.info("Credentials loaded successfully");
 
+        // Каждый RPC Firestore проходит через интерцепторы метрик и трейсинга.
+        // Последний в списке вызывается первым, поэтому искусственная задержка (для нагрузочных тестов) - в начале
+        List<ClientInterceptor> interceptors = new ArrayList<>();
+        if (injectLatencyMs > 0 || injectLatencyJitterMs > 0) {
+            interceptors.add(new FirestoreLatencyInjector(injectLatencyMs, injectLatencyJitterMs));
+        }
+        interceptors.add(new FirestoreCallInterceptor(meterRegistry, admission));
+        interceptors.add(new FirestoreTracingInterceptor(tracer.getIfAvailable(() -> Tracer.NOOP)));
+
+        FirestoreOptions firestoreOptions = FirestoreOptions.newBuilder()
+            .setChannelProvider(FirestoreOptions.getDefaultTransportChannelProviderBuilder()
+                .setInterceptorProvider(() -> interceptors)
+                .build())
+            .build();
+
         FirebaseOptions options = FirebaseOptions.builder()
             .setCredentials(credentials)
             .setProjectId("fighting-game-199e4")
+            .setFirestoreOptions(firestoreOptions)
             .build();
 
         // Проверяем, не инициализировано ли уже приложение
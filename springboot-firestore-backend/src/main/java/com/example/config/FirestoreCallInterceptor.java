@@ -0,0 +1,261 @@
+package com.example.config;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.example.accounting.FirestoreUsage;
+import com.example.profiling.FirestoreCallEvent;
+import com.example.service.AdmissionService;
+import com.google.firestore.v1.BatchGetDocumentsRequest;
+import com.google.firestore.v1.BatchGetDocumentsResponse;
+import com.google.firestore.v1.BatchWriteRequest;
+import com.google.firestore.v1.CommitRequest;
+import com.google.firestore.v1.ListenResponse;
+import com.google.firestore.v1.RunAggregationQueryRequest;
+import com.google.firestore.v1.RunAggregationQueryResponse;
+import com.google.firestore.v1.RunQueryRequest;
+import com.google.firestore.v1.RunQueryResponse;
+import com.google.firestore.v1.Write;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Single choke point for Firestore metrics: every RPC the client library makes (document gets, queries,
+// commits of writes, batches and transactions, BulkWriter batches, listener streams) passes through this
+// gRPC interceptor, so no call site has to be wrapped.
+//   firestore.calls              timer per RPC attempt, by collection, operation and gRPC status
+//   firestore.documents.read     documents returned by gets, queries and listener changes (billed reads)
+//   firestore.documents.written  writes sent in commits and batch writes, by the written document's collection
+// Each call (except listener streams) is also a FirestoreCall JFR event while a recording is running, and is
+// billed to the FirestoreUsage scope current when it was made: documents read (a query or aggregation with no
+// results still costs one read), written and deleted, with their payload bytes.
+// Latencies of point operations and overload statuses are reported to AdmissionService as its congestion signal.
+// The collection comes from the request message; a commit touching several collections is tagged "batch".
+public class FirestoreCallInterceptor implements ClientInterceptor {
+
+    private static final Map<String, String> OPERATIONS = Map.ofEntries(
+        Map.entry("BatchGetDocuments", "get"),
+        Map.entry("GetDocument", "get"),
+        Map.entry("RunQuery", "query"),
+        Map.entry("RunAggregationQuery", "aggregate"),
+        Map.entry("Commit", "commit"),
+        Map.entry("BatchWrite", "batch_write"),
+        Map.entry("BeginTransaction", "begin_transaction"),
+        Map.entry("Rollback", "rollback"),
+        Map.entry("ListDocuments", "list"),
+        Map.entry("ListCollectionIds", "list"),
+        Map.entry("PartitionQuery", "partition"),
+        Map.entry("Listen", "listen"));
+
+    private static final String UNKNOWN = "unknown";
+
+    // Single-document operations: their latency tracks Firestore's health rather than result sizes
+    private static final Set<String> POINT_OPERATIONS = Set.of("get", "commit", "begin_transaction", "rollback");
+    private static final Set<Status.Code> OVERLOAD_STATUSES = Set.of(
+        Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED);
+
+    private final MeterRegistry registry;
+    private final AdmissionService admission;
+
+    public FirestoreCallInterceptor(MeterRegistry registry, AdmissionService admission) {
+        this.registry = registry;
+        this.admission = admission;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        String operation = operationOf(method);
+        // Listener updates keep arriving long after the request that registered the listener
+        FirestoreUsage usage = "listen".equals(operation) ? null : FirestoreUsage.current();
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            private long startNanos;
+            private String collection = UNKNOWN;
+            private final FirestoreCallEvent event = new FirestoreCallEvent();
+            private long documentsRead;
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                startNanos = System.nanoTime();
+                event.begin();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onMessage(RespT message) {
+                        long bytes = countReads(message, collection, operation);
+                        if (bytes >= 0) {
+                            documentsRead++;
+                            if (usage != null) {
+                                usage.addReads(1, bytes);
+                            }
+                        } else if (usage != null && message instanceof RunAggregationQueryResponse aggregation
+                                && aggregation.hasResult()) {
+                            documentsRead++;
+                            usage.addReads(1, 0);
+                        }
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        // Listener streams stay open for the life of the listener: only their reads are counted
+                        if (!"listen".equals(operation)) {
+                            long nanos = System.nanoTime() - startNanos;
+                            Timer.builder("firestore.calls")
+                                .description("Firestore RPC latency, per attempt")
+                                .tag("collection", collection)
+                                .tag("operation", operation)
+                                .tag("status", status.getCode().name())
+                                .publishPercentileHistogram()
+                                .register(registry)
+                                .record(nanos, TimeUnit.NANOSECONDS);
+                            if (OVERLOAD_STATUSES.contains(status.getCode())) {
+                                admission.onOverload();
+                            } else if (status.isOk() && POINT_OPERATIONS.contains(operation)) {
+                                admission.onLatency(nanos);
+                            }
+                            if (usage != null && status.isOk() && documentsRead == 0
+                                    && ("query".equals(operation) || "aggregate".equals(operation))) {
+                                usage.addReads(1, 0);
+                            }
+                            if (event.shouldCommit()) {
+                                event.operation = operation;
+                                event.collection = collection;
+                                event.status = status.getCode().name();
+                                event.commit();
+                            }
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                if (UNKNOWN.equals(collection)) {
+                    collection = collectionOf(message);
+                }
+                countWrites(message, usage);
+                super.sendMessage(message);
+            }
+        };
+    }
+
+    static String operationOf(MethodDescriptor<?, ?> method) {
+        return OPERATIONS.getOrDefault(method.getBareMethodName(), UNKNOWN);
+    }
+
+    // Collection a request targets, read from the request message
+    static String collectionOf(Object request) {
+        if (request instanceof BatchGetDocumentsRequest get && get.getDocumentsCount() > 0) {
+            return collectionOfPath(get.getDocuments(0));
+        }
+        if (request instanceof RunQueryRequest query && query.getStructuredQuery().getFromCount() > 0) {
+            return query.getStructuredQuery().getFrom(0).getCollectionId();
+        }
+        if (request instanceof RunAggregationQueryRequest aggregation
+                && aggregation.getStructuredAggregationQuery().getStructuredQuery().getFromCount() > 0) {
+            return aggregation.getStructuredAggregationQuery().getStructuredQuery().getFrom(0).getCollectionId();
+        }
+        if (request instanceof CommitRequest commit) {
+            return collectionOfWrites(commit.getWritesList());
+        }
+        if (request instanceof BatchWriteRequest batch) {
+            return collectionOfWrites(batch.getWritesList());
+        }
+        return UNKNOWN;
+    }
+
+    private static String collectionOfWrites(Iterable<Write> writes) {
+        String collection = null;
+        for (Write write : writes) {
+            String writeCollection = collectionOfPath(documentOf(write));
+            if (collection == null) {
+                collection = writeCollection;
+            } else if (!collection.equals(writeCollection)) {
+                return "batch";
+            }
+        }
+        return collection != null ? collection : UNKNOWN;
+    }
+
+    private void countWrites(Object request, FirestoreUsage usage) {
+        Iterable<Write> writes = request instanceof CommitRequest commit ? commit.getWritesList()
+            : request instanceof BatchWriteRequest batch ? batch.getWritesList()
+            : null;
+        if (writes == null) {
+            return;
+        }
+        for (Write write : writes) {
+            Counter.builder("firestore.documents.written")
+                .tag("collection", collectionOfPath(documentOf(write)))
+                .register(registry)
+                .increment();
+            if (usage == null) {
+                continue;
+            }
+            if (write.hasDelete()) {
+                usage.addDeletes(1);
+            } else {
+                usage.addWrites(1, write.getSerializedSize());
+            }
+        }
+    }
+
+    // Counts a document read carried by the response; returns its payload size, or -1 if it carries none
+    private long countReads(Object response, String collection, String operation) {
+        String readCollection;
+        long bytes;
+        if (response instanceof BatchGetDocumentsResponse get && get.hasFound()) {
+            readCollection = collectionOfPath(get.getFound().getName());
+            bytes = get.getFound().getSerializedSize();
+        } else if (response instanceof BatchGetDocumentsResponse get && !get.getMissing().isEmpty()) {
+            readCollection = collectionOfPath(get.getMissing()); // a lookup that finds nothing is billed as a read
+            bytes = 0;
+        } else if (response instanceof RunQueryResponse query && query.hasDocument()) {
+            readCollection = collection;
+            bytes = query.getDocument().getSerializedSize();
+        } else if (response instanceof ListenResponse listen && listen.hasDocumentChange()) {
+            readCollection = collectionOfPath(listen.getDocumentChange().getDocument().getName());
+            bytes = listen.getDocumentChange().getDocument().getSerializedSize();
+        } else {
+            return -1;
+        }
+        Counter.builder("firestore.documents.read")
+            .tag("collection", readCollection)
+            .tag("operation", operation)
+            .register(registry)
+            .increment();
+        return bytes;
+    }
+
+    private static String documentOf(Write write) {
+        if (write.hasUpdate()) {
+            return write.getUpdate().getName();
+        }
+        if (write.hasDelete()) {
+            return write.getDelete();
+        }
+        return write.hasTransform() ? write.getTransform().getDocument() : "";
+    }
+
+    // projects/{p}/databases/{d}/documents/{collection}/{id}[/{sub}/{id}] -> the document's own collection
+    static String collectionOfPath(String path) {
+        int end = path.lastIndexOf('/');
+        if (end <= 0) {
+            return UNKNOWN;
+        }
+        int start = path.lastIndexOf('/', end - 1);
+        return path.substring(start + 1, end);
+    }
+}
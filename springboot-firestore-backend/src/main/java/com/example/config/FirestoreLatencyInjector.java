@@ -0,0 +1,128 @@
+package com.example.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+// Fault injection for load tests: makes Firestore look slow by holding each RPC (except listener streams) for
+// firestore.inject-latency-ms plus up to firestore.inject-latency-jitter-ms before it is sent. Nothing blocks:
+// the call's start, messages and half-close are queued and replayed from a timer thread, so a caller parked on
+// .get() waits exactly as it would on a slow backend. Installed innermost, so the metrics, tracing and
+// admission control interceptors see the injected delay. Only added to the channel when the latency is set.
+public class FirestoreLatencyInjector implements ClientInterceptor {
+
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "firestore-latency-injector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FirestoreLatencyInjector.class);
+
+    public FirestoreLatencyInjector(long latencyMs, long jitterMs) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        this.jitterNanos = TimeUnit.MILLISECONDS.toNanos(jitterMs);
+        logger.warn("Injecting {} ms (+ up to {} ms) of latency into every Firestore call", latencyMs, jitterMs);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+        if ("listen".equals(FirestoreCallInterceptor.operationOf(method))) {
+            return call;
+        }
+        DelayedCall<ReqT, RespT> delayed = new DelayedCall<>(call);
+        long delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+        timer.schedule(delayed::drain, delay, TimeUnit.NANOSECONDS);
+        return delayed;
+    }
+
+    // Queues every operation until drain(), then passes them through in order
+    private static final class DelayedCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private List<Runnable> pending = new ArrayList<>(); // guarded by this; null once drained
+
+        DelayedCall(ClientCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        void drain() {
+            while (true) {
+                List<Runnable> batch;
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        pending = null;
+                        return;
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                }
+                batch.forEach(Runnable::run);
+            }
+        }
+
+        private void run(Runnable operation) {
+            synchronized (this) {
+                if (pending != null) {
+                    pending.add(operation);
+                    return;
+                }
+            }
+            operation.run();
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            run(() -> super.start(responseListener, headers));
+        }
+
+        @Override
+        public void request(int numMessages) {
+            run(() -> super.request(numMessages));
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            run(() -> super.sendMessage(message));
+        }
+
+        @Override
+        public void halfClose() {
+            run(super::halfClose);
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            run(() -> super.cancel(message, cause));
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            run(() -> super.setMessageCompression(enabled));
+        }
+
+        @Override
+        public boolean isReady() {
+            synchronized (this) {
+                if (pending != null) {
+                    return false;
+                }
+            }
+            return super.isReady();
+        }
+    }
+}
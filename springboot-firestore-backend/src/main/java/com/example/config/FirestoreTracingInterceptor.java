@@ -0,0 +1,73 @@
+package com.example.config;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+// Client span for each Firestore RPC, as a child of the span current when the call is made
+// (the Firestore client creates a call's first attempt on the caller's thread). Calls made outside a trace,
+// such as BulkWriter batches and retries on the client's executor, are not traced: they'd only be root spans.
+// Listener streams live as long as the listener and are skipped too.
+public class FirestoreTracingInterceptor implements ClientInterceptor {
+
+    private final Tracer tracer;
+
+    public FirestoreTracingInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        Span parent = tracer.currentSpan();
+        String operation = FirestoreCallInterceptor.operationOf(method);
+        if (parent == null || "listen".equals(operation)) {
+            return next.newCall(method, callOptions);
+        }
+
+        Span span = tracer.spanBuilder()
+            .setParent(parent.context())
+            .kind(Span.Kind.CLIENT)
+            .name("firestore " + operation)
+            .tag("db.system", "firestore")
+            .tag("db.operation", operation)
+            .tag("rpc.method", method.getFullMethodName())
+            .start();
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            private boolean named;
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        span.tag("rpc.grpc.status_code", status.getCode().name());
+                        if (!status.isOk()) {
+                            span.error(status.asRuntimeException());
+                        }
+                        span.end();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                if (!named) {
+                    String collection = FirestoreCallInterceptor.collectionOf(message);
+                    span.name("firestore " + operation + " " + collection).tag("db.collection.name", collection);
+                    named = true;
+                }
+                super.sendMessage(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.accounting.FirestoreUsage;
+import com.example.accounting.FirestoreUsageMeters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// Accounts the Firestore reads, writes, deletes and bytes of each HTTP request (MVC stack) and records them under
+// firestore.request.* tagged with the endpoint, e.g. endpoint="GET /api/rooms/available". Requests that went
+// async (CompletableFuture controllers) keep their scope across the async dispatch and are recorded when it ends.
+// With firestore.usage.header-enabled=true the totals are also sent in an X-Firestore-Usage response header; they
+// cover the work done before the response is committed.
+@Component
+@Profile("!reactive")
+public class FirestoreUsageFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-Firestore-Usage";
+    static final String UNMATCHED = "UNMATCHED";
+
+    private static final String USAGE_ATTRIBUTE = FirestoreUsageFilter.class.getName() + ".usage";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+    // One entry per route pattern; unmapped paths share UNMATCHED so the tag stays bounded
+    private final Map<String, FirestoreUsageMeters> endpointMeters = new ConcurrentHashMap<>();
+
+    public FirestoreUsageFilter(MeterRegistry meterRegistry,
+                                @Value("${firestore.usage.header-enabled:false}") boolean headerEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        FirestoreUsage usage = (FirestoreUsage) request.getAttribute(USAGE_ATTRIBUTE);
+        if (usage == null) {
+            usage = FirestoreUsage.root();
+            request.setAttribute(USAGE_ATTRIBUTE, usage);
+        }
+
+        HttpServletResponse target = headerEnabled ? new UsageHeaderResponse(response, usage) : response;
+        FirestoreUsage previous = FirestoreUsage.enter(usage);
+        try {
+            chain.doFilter(request, target);
+        } finally {
+            FirestoreUsage.exit(previous);
+            if (!isAsyncStarted(request)) {
+                if (headerEnabled && !response.isCommitted()) {
+                    response.setHeader(HEADER, usage.toHeaderValue());
+                }
+                meters(request).record(usage);
+            }
+        }
+    }
+
+    private FirestoreUsageMeters meters(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? UNMATCHED : request.getMethod() + " " + pattern;
+        return endpointMeters.computeIfAbsent(endpoint,
+            key -> new FirestoreUsageMeters(meterRegistry, "firestore.request", "endpoint", key));
+    }
+
+    // Sets the usage header just before the body starts, while headers can still be changed
+    private static final class UsageHeaderResponse extends HttpServletResponseWrapper {
+
+        private final FirestoreUsage usage;
+
+        UsageHeaderResponse(HttpServletResponse response, FirestoreUsage usage) {
+            super(response);
+            this.usage = usage;
+        }
+
+        private void addUsageHeader() {
+            if (!isCommitted()) {
+                setHeader(HEADER, usage.toHeaderValue());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addUsageHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addUsageHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addUsageHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            addUsageHeader();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            addUsageHeader();
+            super.sendError(status, message);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.accounting.FirestoreUsage;
+import com.example.accounting.FirestoreUsageMeters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of FirestoreUsageFilter. The request's scope travels in the subscriber context under
+// FirestoreUsage.CONTEXT_KEY and spring.reactor.context-propagation=auto (application-reactive.properties)
+// restores it as the current scope on whichever thread subscribes to a Firestore call.
+@Component
+@Profile("reactive")
+public class FirestoreUsageWebFilter implements WebFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+    private final Map<String, FirestoreUsageMeters> endpointMeters = new ConcurrentHashMap<>();
+
+    public FirestoreUsageWebFilter(MeterRegistry meterRegistry,
+                                   @Value("${firestore.usage.header-enabled:false}") boolean headerEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        FirestoreUsage usage = FirestoreUsage.root();
+        if (headerEnabled) {
+            exchange.getResponse().beforeCommit(() -> {
+                exchange.getResponse().getHeaders().set(FirestoreUsageFilter.HEADER, usage.toHeaderValue());
+                return Mono.empty();
+            });
+        }
+        return chain.filter(exchange)
+            .contextWrite(context -> context.put(FirestoreUsage.CONTEXT_KEY, usage))
+            .doFinally(signal -> meters(exchange).record(usage));
+    }
+
+    private FirestoreUsageMeters meters(ServerWebExchange exchange) {
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null
+            ? FirestoreUsageFilter.UNMATCHED
+            : exchange.getRequest().getMethod().name() + " " + pattern;
+        return endpointMeters.computeIfAbsent(endpoint,
+            key -> new FirestoreUsageMeters(meterRegistry, "firestore.request", "endpoint", key));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.config;
+
+import java.io.IOException;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.service.ClusterService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Node-to-node endpoints, MVC stack: /internal/** is answered with 403 unless the request carries the shared
+// cluster secret (ClusterService.SECRET_HEADER), which every node sends on heartbeats, handoffs and replication.
+// Runs first, before shard routing and admission control.
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class InternalAuthFilter extends OncePerRequestFilter {
+
+    private final ClusterService cluster;
+
+    public InternalAuthFilter(ClusterService cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith(ClusterService.INTERNAL_PREFIX)
+                && !cluster.isAuthorized(request.getHeader(ClusterService.SECRET_HEADER))) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
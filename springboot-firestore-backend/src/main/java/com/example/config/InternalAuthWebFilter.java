@@ -0,0 +1,39 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.service.ClusterService;
+
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of InternalAuthFilter
+@Component
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class InternalAuthWebFilter implements WebFilter {
+
+    private final ClusterService cluster;
+
+    public InternalAuthWebFilter(ClusterService cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getPath().pathWithinApplication().value().startsWith(ClusterService.INTERNAL_PREFIX)
+                && !cluster.isAuthorized(request.getHeaders().getFirst(ClusterService.SECRET_HEADER))) {
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (@Scheduled), e.g. the match archival in ArchiveService
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
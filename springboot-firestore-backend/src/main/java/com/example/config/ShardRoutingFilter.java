@@ -0,0 +1,246 @@
+package com.example.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.service.ArchiveService;
+import com.example.service.ClusterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Shard routing, MVC stack: a request for one game or room (by ID in the path, or gameId in an action body) or for
+// the match archive that another node owns is forwarded to that node and its response relayed, or answered with a
+// 307 to the owner when cluster.routing=redirect. Forwarded requests carry ClusterService.FORWARDED_HEADER and are
+// always served where they arrive, so nodes that briefly disagree about membership cannot bounce a request around.
+// If the owner cannot be reached it is dropped from the ring and the request goes to the key's new owner, which
+// holds the game's replica; when that is this node (or too many owners failed) the request is served here.
+// Runs before admission control and rate limiting, which then apply on the owner.
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern GAME_PATH = Pattern.compile("^(?:/api)?/games/([^/]+)(?:/updates)?/?$");
+    private static final Pattern ROOM_PATH = Pattern.compile("^/api/rooms/([^/]+)(?:/join|/status|/action)?/?$");
+    private static final Pattern ARCHIVE_PATH = Pattern.compile("^/api/archive(?:/.*)?$");
+    private static final Pattern ACTION_PATH = Pattern.compile("^(?:/api)?/games/action/?$");
+    private static final Set<String> NOT_IDS = Set.of("action", "cache", "settlements", "filter", "clear");
+
+    // Owners tried for one request when they cannot be reached, before serving it here
+    static final int MAX_FORWARD_ATTEMPTS = 3;
+
+    // Managed by the HTTP client or the container, or meaningful for one hop only
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "content-length", "expect", "host",
+        "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade");
+
+    private final ClusterService cluster;
+    private final ObjectMapper objectMapper;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ShardRoutingFilter.class);
+
+    public ShardRoutingFilter(ClusterService cluster, ObjectMapper objectMapper) {
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+    }
+
+    // Game or room ID that decides the owner; null when the path names none (lists, stats, actions by body).
+    // The match archive is on one node's disk, so its requests are keyed to that node.
+    static String routingKey(String path) {
+        if (ARCHIVE_PATH.matcher(path).matches()) {
+            return ArchiveService.ARCHIVE_KEY;
+        }
+        for (Pattern pattern : List.of(GAME_PATH, ROOM_PATH)) {
+            Matcher matcher = pattern.matcher(path);
+            if (matcher.matches() && !NOT_IDS.contains(matcher.group(1))) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    // Game actions name their game in the body
+    static boolean isActionByBody(String method, String path) {
+        return "POST".equals(method) && ACTION_PATH.matcher(path).matches();
+    }
+
+    static String gameIdOf(ObjectMapper objectMapper, byte[] body) {
+        try {
+            return objectMapper.readTree(body).path("gameId").asText(null);
+        } catch (IOException e) {
+            return null; // not JSON; the controller will reject it
+        }
+    }
+
+    static boolean isForwardable(String header) {
+        return !HOP_BY_HOP.contains(header.toLowerCase()) && !ClusterService.FORWARDED_HEADER.equalsIgnoreCase(header)
+            && !ClusterService.SECRET_HEADER.equalsIgnoreCase(header);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!cluster.isEnabled() || request.getHeader(ClusterService.FORWARDED_HEADER) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String key = routingKey(path);
+        byte[] body = null;
+        if (key == null && isActionByBody(request.getMethod(), path)) {
+            body = request.getInputStream().readAllBytes();
+            key = gameIdOf(objectMapper, body);
+        }
+        String owner = key != null ? cluster.ownerOf(key) : null;
+        if (owner == null || owner.equals(cluster.getSelf())) {
+            chain.doFilter(body != null ? new CachedBodyRequest(request, body) : request, response);
+            return;
+        }
+
+        String pathAndQuery = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        if (cluster.isRedirecting()) {
+            cluster.recordRouted("redirected");
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, owner + pathAndQuery);
+            response.setHeader(ClusterService.OWNER_HEADER, owner);
+            return;
+        }
+
+        if (body == null) {
+            body = request.getInputStream().readAllBytes();
+        }
+        HttpResponse<InputStream> forwarded = null;
+        for (int attempt = 1; forwarded == null; attempt++) {
+            try {
+                forwarded = cluster.forward(owner, request.getMethod(), pathAndQuery, headersOf(request), body,
+                                            HttpResponse.BodyHandlers.ofInputStream()).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return;
+            } catch (ExecutionException e) {
+                if (!ClusterService.isUnreachable(e)) {
+                    // The owner may already have applied the request, so it is not retried here
+                    logger.warn("Forwarding {} to {} failed: {}", path, owner, e.getCause().toString());
+                    response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+                    return;
+                }
+                // Never delivered: the key now belongs to the next node, usually the backup holding its replica
+                cluster.reportUnreachable(owner);
+                String next = cluster.ownerOf(key);
+                if (attempt >= MAX_FORWARD_ATTEMPTS || next.equals(owner) || next.equals(cluster.getSelf())) {
+                    logger.warn("Shard owner {} unreachable, serving {} locally", owner, path);
+                    chain.doFilter(new CachedBodyRequest(request, body), response);
+                    return;
+                }
+                logger.warn("Shard owner {} unreachable, forwarding {} to {}", owner, path, next);
+                owner = next;
+            }
+        }
+
+        cluster.recordRouted("forwarded");
+        response.setStatus(forwarded.statusCode());
+        forwarded.headers().map().forEach((name, values) -> {
+            if (isForwardable(name) && !name.startsWith(":")) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.setHeader(ClusterService.OWNER_HEADER, owner);
+        try (InputStream in = forwarded.body()) {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) >= 0; ) {
+                out.write(buffer, 0, read);
+                out.flush(); // relay streamed responses as they arrive
+            }
+        }
+    }
+
+    private static Map<String, List<String>> headersOf(HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (isForwardable(name)) {
+                headers.put(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    // Replays a body the filter has already read
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.config;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.service.ClusterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of ShardRoutingFilter. The owner's response body is relayed as it arrives, so forwarded
+// server-sent event streams (/api/games/{id}/updates) keep streaming.
+@Component
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class ShardRoutingWebFilter implements WebFilter {
+
+    private final ClusterService cluster;
+    private final ObjectMapper objectMapper;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ShardRoutingWebFilter.class);
+
+    public ShardRoutingWebFilter(ClusterService cluster, ObjectMapper objectMapper) {
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!cluster.isEnabled() || request.getHeaders().containsKey(ClusterService.FORWARDED_HEADER)) {
+            return chain.filter(exchange);
+        }
+        String path = request.getPath().pathWithinApplication().value();
+        String key = ShardRoutingFilter.routingKey(path);
+        if (key == null && ShardRoutingFilter.isActionByBody(request.getMethod().name(), path)) {
+            return bodyOf(request).flatMap(body ->
+                route(exchange, chain, ShardRoutingFilter.gameIdOf(objectMapper, body), body));
+        }
+        if (key == null || cluster.isLocal(key)) {
+            return chain.filter(exchange);
+        }
+        return bodyOf(request).flatMap(body -> route(exchange, chain, key, body));
+    }
+
+    private static Mono<byte[]> bodyOf(ServerHttpRequest request) {
+        return DataBufferUtils.join(request.getBody())
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .defaultIfEmpty(new byte[0]);
+    }
+
+    private Mono<Void> route(ServerWebExchange exchange, WebFilterChain chain, String key, byte[] body) {
+        String owner = key != null ? cluster.ownerOf(key) : null;
+        if (owner == null || owner.equals(cluster.getSelf())) {
+            return serveLocally(exchange, chain, body);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        String pathAndQuery = request.getURI().getRawPath()
+            + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : "");
+        if (cluster.isRedirecting()) {
+            cluster.recordRouted("redirected");
+            response.setStatusCode(HttpStatus.TEMPORARY_REDIRECT);
+            response.getHeaders().set(HttpHeaders.LOCATION, owner + pathAndQuery);
+            response.getHeaders().set(ClusterService.OWNER_HEADER, owner);
+            return response.setComplete();
+        }
+
+        return forward(exchange, chain, key, body, owner, pathAndQuery, 1);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, WebFilterChain chain, String key, byte[] body,
+                               String owner, String pathAndQuery, int attempt) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        request.getHeaders().forEach((name, values) -> {
+            if (ShardRoutingFilter.isForwardable(name)) {
+                headers.put(name, values);
+            }
+        });
+        return Mono.fromFuture(() -> cluster.forward(owner, request.getMethod().name(), pathAndQuery, headers, body,
+                                                     HttpResponse.BodyHandlers.ofPublisher()))
+            .flatMap(forwarded -> {
+                cluster.recordRouted("forwarded");
+                response.setStatusCode(HttpStatusCode.valueOf(forwarded.statusCode()));
+                forwarded.headers().map().forEach((name, values) -> {
+                    if (ShardRoutingFilter.isForwardable(name) && !name.startsWith(":")) {
+                        response.getHeaders().addAll(name, values);
+                    }
+                });
+                response.getHeaders().set(ClusterService.OWNER_HEADER, owner);
+                Flux<DataBuffer> relayed = JdkFlowAdapter.flowPublisherToFlux(forwarded.body())
+                    .flatMapIterable(buffers -> buffers)
+                    .map((ByteBuffer buffer) -> response.bufferFactory().wrap(buffer));
+                return response.writeAndFlushWith(relayed.map(Flux::just));
+            })
+            .onErrorResume(ClusterService::isUnreachable, error -> {
+                // Never delivered: the key now belongs to the next node, usually the backup holding its replica
+                cluster.reportUnreachable(owner);
+                String next = cluster.ownerOf(key);
+                if (attempt >= ShardRoutingFilter.MAX_FORWARD_ATTEMPTS || next.equals(owner)
+                        || next.equals(cluster.getSelf())) {
+                    logger.warn("Shard owner {} unreachable, serving {} locally", owner, request.getPath());
+                    return serveLocally(exchange, chain, body);
+                }
+                logger.warn("Shard owner {} unreachable, forwarding {} to {}", owner, request.getPath(), next);
+                return forward(exchange, chain, key, body, next, pathAndQuery, attempt + 1);
+            })
+            .onErrorResume(error -> {
+                // The owner may already have applied the request, so it is not retried here
+                logger.warn("Forwarding {} to {} failed: {}", request.getPath(), owner, error.toString());
+                response.setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                return response.setComplete();
+            });
+    }
+
+    // The body has been read already; hand the controllers a request that replays it
+    private static Mono<Void> serveLocally(ServerWebExchange exchange, WebFilterChain chain, byte[] body) {
+        ServerHttpRequest replaying = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+        return chain.filter(exchange.mutate().request(replaying).build());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.tracing.FileSpanExporter;
+import com.example.tracing.TailSamplingSpanProcessor;
+
+// Spans from Micrometer Tracing (OpenTelemetry bridge): HTTP requests, service operations (OperationTimer)
+// and Firestore RPCs (FirestoreTracingInterceptor). Every span is recorded (management.tracing.sampling
+// .probability=1.0); which traces are kept is decided per trace by TailSamplingSpanProcessor, which the
+// auto-configured tracer provider picks up as a SpanProcessor bean.
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor(
+            @Value("${tracing.export.file:data/traces/spans.jsonl}") String file,
+            @Value("${tracing.export.max-file-bytes:67108864}") long maxFileBytes,
+            @Value("${tracing.sampling.head-rate:0.05}") double headRate,
+            @Value("${tracing.sampling.slow-threshold-ms:250}") long slowThresholdMs,
+            @Value("${tracing.sampling.max-pending-traces:10000}") int maxPendingTraces,
+            @Value("${tracing.sampling.max-spans-per-trace:256}") int maxSpansPerTrace) throws IOException {
+        return new TailSamplingSpanProcessor(new FileSpanExporter(Path.of(file), maxFileBytes),
+            headRate, slowThresholdMs, maxPendingTraces, maxSpansPerTrace);
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.service.Bulkheads;
+import com.example.service.Bulkheads.Compartment;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final Bulkheads bulkheads;
+
+    public WebConfig(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -16,4 +26,11 @@ public class WebConfig implements WebMvcConfigurer {
             .allowCredentials(true)
             .maxAge(3600);
     }
+
+    // Streamed full-collection lists (StreamingResponseBody) are written from the lobby bulkhead, so a burst of
+    // scans queues there instead of on the threads that serve game actions
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(bulkheads.taskExecutor(Compartment.LOBBY));
+    }
 }
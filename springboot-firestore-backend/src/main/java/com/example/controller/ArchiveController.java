@@ -0,0 +1,107 @@
+package com.example.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.model.ArchivedMatch;
+import com.example.service.ArchiveService;
+
+// Archive queries run on ArchiveService's own pool and return CompletableFutures,
+// so this controller serves both the MVC and the reactive stack.
+@RestController
+@RequestMapping("/api/archive")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class ArchiveController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ArchiveController.class);
+
+    // Архивный матч по ID игры
+    @GetMapping("/matches/{gameId}")
+    public CompletableFuture<ResponseEntity<ArchivedMatch>> getMatch(@PathVariable String gameId) {
+        return archiveService.findAsync(gameId)
+            .thenApply(match -> match == null
+                ? ResponseEntity.notFound().<ArchivedMatch>build()
+                : ResponseEntity.ok().header("Content-Type", "application/json").body(match))
+            .exceptionally(e -> serverError("Error reading archived match", e));
+    }
+
+    // История матчей игрока, новые первыми; from/to - время окончания матча в мс
+    @GetMapping("/players/{playerId}/matches")
+    public CompletableFuture<ResponseEntity<List<ArchivedMatch>>> getHistory(@PathVariable String playerId,
+                                                                             @RequestParam(defaultValue = "0") long from,
+                                                                             @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                                                             @RequestParam(defaultValue = "20") int limit) {
+        return archiveService.historyAsync(playerId, from, to, Math.max(1, Math.min(limit, MAX_LIMIT)))
+            .thenApply(this::ok)
+            .exceptionally(e -> serverError("Error reading match history", e));
+    }
+
+    // Статистика игрока за период
+    @GetMapping("/players/{playerId}/stats")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getPlayerStats(@PathVariable String playerId,
+                                                                                 @RequestParam(defaultValue = "0") long from,
+                                                                                 @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+        return archiveService.playerStatsAsync(playerId, from, to)
+            .thenApply(this::ok)
+            .exceptionally(e -> serverError("Error aggregating player stats", e));
+    }
+
+    // Выбор и победы по персонажам за период
+    @GetMapping("/characters/stats")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getCharacterStats(@RequestParam(defaultValue = "0") long from,
+                                                                                    @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+        return archiveService.characterStatsAsync(from, to)
+            .thenApply(this::ok)
+            .exceptionally(e -> serverError("Error aggregating character stats", e));
+    }
+
+    // Общая сводка по матчам за период
+    @GetMapping("/summary")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getSummary(@RequestParam(defaultValue = "0") long from,
+                                                                             @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+        return archiveService.summaryAsync(from, to)
+            .thenApply(this::ok)
+            .exceptionally(e -> serverError("Error aggregating match summary", e));
+    }
+
+    // Размер архива и результат последнего запуска
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ok(archiveService.getStats());
+    }
+
+    // Запуск архивации вне расписания
+    @PostMapping("/run")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> runArchival() {
+        return archiveService.archiveFinishedGamesAsync()
+            .thenApply(this::ok)
+            .exceptionally(e -> serverError("Error archiving finished games", e));
+    }
+
+    private <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(body);
+    }
+
+    private <T> ResponseEntity<T> serverError(String message, Throwable e) {
+        logger.error("{}: {}", message, e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.model.Game;
+import com.example.service.ClusterService;
+import com.example.service.GameService;
+import com.example.service.ReplicationService;
+
+// Node-to-node endpoints of the cluster (heartbeats, game handoff and replication); not meant for browsers, so no CORS.
+// Nothing here blocks, so the controller serves both the MVC and the reactive stack.
+@RestController
+@RequestMapping("/internal/cluster")
+public class ClusterController {
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private ReplicationService replicationService;
+
+    // Heartbeat: узел жив и сообщает, каких соседей видит
+    @GetMapping("/ping")
+    public ResponseEntity<Map<String, Object>> ping() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(Map.of("node", clusterService.getSelf(), "liveNodes", clusterService.getRing().getNodes()));
+    }
+
+    // Передача игр от прежнего владельца после смены состава кластера
+    @PostMapping("/games")
+    public ResponseEntity<Map<String, Object>> adoptGames(@RequestBody List<Game> games) {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(Map.of("adopted", gameService.adoptGames(games)));
+    }
+
+    // Копии состояния матчей от основного узла (этот узел - резервный)
+    @PostMapping("/replicas")
+    public ResponseEntity<Map<String, Object>> receiveReplicas(@RequestBody List<ReplicationService.Update> updates) {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(Map.of("applied", replicationService.receive(updates)));
+    }
+}
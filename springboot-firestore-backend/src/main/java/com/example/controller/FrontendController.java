@@ -1,9 +1,11 @@
 package com.example.controller;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 @Controller
+@Profile("!reactive")
 public class FrontendController {
     
     // Forward non-API requests to React frontend
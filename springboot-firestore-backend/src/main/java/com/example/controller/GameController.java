@@ -2,19 +2,31 @@ package com.example.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.model.Game;
 import com.example.model.GameAction;
+import com.example.model.Page;
 import com.example.model.Player;
+import com.example.service.Bulkheads;
+import com.example.service.Bulkheads.Compartment;
 import com.example.service.GameService;
+import com.example.service.RateLimitService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/games")
 @CrossOrigin(
     origins = "http://localhost:3000",
@@ -27,93 +39,145 @@ public class GameController {
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Value("${api.list.page-size:500}")
+    private int listPageSize; // Firestore page size when streaming a whole collection
+
+    @Value("${api.list.max-limit:1000}")
+    private int listMaxLimit;
+
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GameController.class);
 
     // ✅ Создание новой игры
     @PostMapping({"", "/"})
-    public ResponseEntity<Game> createGame(@RequestBody Map<String, Map<String, String>> request) {
-        try {
-            logger.info("=== Creating New Game ===");
-            logger.debug("Request body: {}", request);
+    public CompletableFuture<ResponseEntity<Game>> createGame(@RequestBody Map<String, Map<String, String>> request) {
+        return bulkheads.supply(Compartment.GAME, () -> {
+            try {
+                logger.info("=== Creating New Game ===");
+                logger.debug("Request body: {}", request);
+
+                Map<String, String> player1Data = request.get("player1");
+                Map<String, String> player2Data = request.get("player2");
 
-            Map<String, String> player1Data = request.get("player1");
-            Map<String, String> player2Data = request.get("player2");
+                if (player1Data == null || player2Data == null) {
+                    logger.warn("Missing player data in request");
+                    return ResponseEntity.badRequest().build();
+                }
 
-            if (player1Data == null || player2Data == null) {
-                logger.warn("Missing player data in request");
-                return ResponseEntity.badRequest().build();
+                Player player1 = new Player(player1Data.get("id"), player1Data.get("name"));
+                Player player2 = new Player(player2Data.get("id"), player2Data.get("name"));            Game game = gameService.createGame(player1, player2);
+                logger.info("Game created with ID: {}", game.getId());
+
+                return ResponseEntity.ok()
+                    .header("Content-Type", "application/json")
+                    .body(game);
+            } catch (Exception e) {
+                logger.error("Failed to create game", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
             }
+        });
+    }
 
-            Player player1 = new Player(player1Data.get("id"), player1Data.get("name"));
-            Player player2 = new Player(player2Data.get("id"), player2Data.get("name"));            Game game = gameService.createGame(player1, player2);
-            logger.info("Game created with ID: {}", game.getId());
+    // ✅ Получение игры по ID (асинхронно: поток Tomcat освобождается, пока идёт чтение из Firestore)
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Game>> getGame(@PathVariable("id") String id) {
+        return gameService.getGameAsync(id)
+            .thenApply(game -> {
+                if (game == null) {
+                    logger.warn("Game not found: {}", id);
+                    return ResponseEntity.notFound().<Game>build();
+                }
+                return ResponseEntity.ok()
+                    .header("Content-Type", "application/json")
+                    .body(game);
+            })
+            .exceptionally(e -> {
+                logger.error("Error retrieving game", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            });
+    }
 
-            return ResponseEntity.ok()
-                .header("Content-Type", "application/json")
-                .body(game);
-        } catch (Exception e) {
-            logger.error("Failed to create game", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    // ✅ Метрики кэша активных игр
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(gameService.getCacheStats());
     }
 
-    // ✅ Получение игры по ID
-    @GetMapping("/{id}")    public ResponseEntity<Game> getGame(@PathVariable("id") String id) {
-        try {
-            Game game = gameService.getGame(id);
-            if (game == null) {
-                logger.warn("Game not found: {}", id);
-                return ResponseEntity.notFound().build();
-            }
-            return ResponseEntity.ok()
-                .header("Content-Type", "application/json")
-                .body(game);
-        } catch (ExecutionException | InterruptedException e) {
-            logger.error("Error retrieving game", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    // ✅ Счётчики расчёта завершённых матчей
+    @GetMapping("/settlements/stats")
+    public ResponseEntity<Map<String, Object>> getSettlementStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(gameService.getSettlementStats());
     }
 
-    // ✅ Получение всех игр
-    @GetMapping    public ResponseEntity<List<Game>> getAllGames() {
-        try {
-            List<Game> games = gameService.getAllGames();
-            return ResponseEntity.ok()
-                .header("Content-Type", "application/json")
-                .body(games);
-        } catch (ExecutionException | InterruptedException e) {
-            logger.error("Error retrieving all games", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    // ✅ Получение всех игр (потоковый JSON-массив, страница за страницей)
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getAllGames() {
+        return JsonStreams.array(objectMapper, writer -> gameService.streamGames(listPageSize, writer));
     }
 
-    // ✅ Обработка действий игрока
-    @PostMapping({"/action", "/action/"})    public ResponseEntity<Game> processAction(@RequestBody GameAction action) {
-        try {
-            logger.info("=== Processing Action ===");
-            logger.info("Action details: gameId={}, playerId={}, actionType={}, direction={}, attackType={}", 
-                      action.getGameId(), action.getPlayerId(), action.getActionType(), 
-                      action.getDirection(), action.getAttackType());
-            
-            Game updatedGame = gameService.processAction(action);
-            
-            if (updatedGame == null) {
-                logger.warn("Invalid action or game not found");
-                return ResponseEntity.badRequest().build();
+    // ✅ Постраничное получение игр: ?limit=50&startAfter=<nextCursor>
+    @GetMapping(params = "limit")
+    public CompletableFuture<ResponseEntity<Page<Game>>> getGamesPage(@RequestParam int limit,
+                                                                      @RequestParam(required = false) String startAfter) {
+        return bulkheads.supply(Compartment.LOBBY, () -> {
+            try {
+                Page<Game> page = gameService.getGamesPage(startAfter, Math.max(1, Math.min(limit, listMaxLimit)));
+                return ResponseEntity.ok()
+                    .header("Content-Type", "application/json")
+                    .body(page);
+            } catch (ExecutionException | InterruptedException e) {
+                logger.error("Error retrieving games page", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
             }
-            
-            // Логируем информацию о здоровье игроков после обработки действия
-            logger.info("Updated game state: player1.health={}, player2.health={}, round={}", 
-                      updatedGame.getPlayer1().getHealth(), 
-                      updatedGame.getPlayer2().getHealth(),
-                      updatedGame.getRound());
-            
-            return ResponseEntity.ok()
-                .header("Content-Type", "application/json")
-                .body(updatedGame);
-        } catch (ExecutionException | InterruptedException e) {
-            logger.error("Error processing action", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        });
+    }
+
+    // ✅ Обработка действий игрока (асинхронно)
+    @PostMapping({"/action", "/action/"})
+    public CompletableFuture<ResponseEntity<Game>> processAction(@RequestBody GameAction action,
+                                                                 HttpServletRequest request) {
+        long retryAfter = rateLimitService.checkAction(action.getPlayerId(), RateLimits.clientIp(request));
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(RateLimits.tooManyRequests(retryAfter).build());
         }
+
+        logger.info("=== Processing Action ===");
+        logger.info("Action details: gameId={}, playerId={}, actionType={}, direction={}, attackType={}", 
+                  action.getGameId(), action.getPlayerId(), action.getActionType(), 
+                  action.getDirection(), action.getAttackType());
+        
+        return gameService.processActionAsync(action)
+            .thenApply(updatedGame -> {
+                if (updatedGame == null) {
+                    logger.warn("Invalid action or game not found");
+                    return ResponseEntity.badRequest().<Game>build();
+                }
+                
+                // Логируем информацию о здоровье игроков после обработки действия
+                logger.info("Updated game state: player1.health={}, player2.health={}, round={}", 
+                          updatedGame.getPlayer1().getHealth(), 
+                          updatedGame.getPlayer2().getHealth(),
+                          updatedGame.getRound());
+                
+                return ResponseEntity.ok()
+                    .header("Content-Type", "application/json")
+                    .body(updatedGame);
+            })
+            .exceptionally(e -> {
+                logger.error("Error processing action", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            });
     }
 }
@@ -1,9 +1,11 @@
 package com.example.controller;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @Controller
+@Profile("!reactive")
 public class HomeController {
     @GetMapping("/")
     public String home() {
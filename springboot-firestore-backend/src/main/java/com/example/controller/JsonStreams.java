@@ -0,0 +1,45 @@
+package com.example.controller;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.service.FirestorePages;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Writes a list endpoint as a JSON array item by item instead of building the whole list in memory
+final class JsonStreams {
+
+    interface Source {
+        void writeTo(FirestorePages.ItemWriter<Object> writer) throws ExecutionException, InterruptedException, IOException;
+    }
+
+    private JsonStreams() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> array(ObjectMapper objectMapper, Source source) {
+        // Flushing after every item would turn each one into its own chunk; let the buffers fill instead
+        ObjectWriter itemWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                source.writeTo(item -> itemWriter.writeValue(generator, item));
+                generator.writeEndArray();
+            } catch (ExecutionException e) {
+                // Headers are already sent, so the client sees a truncated array
+                throw new IOException("Failed to stream list", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while streaming list", e);
+            }
+        };
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(body);
+    }
+}
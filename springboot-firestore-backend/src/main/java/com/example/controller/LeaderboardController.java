@@ -0,0 +1,68 @@
+package com.example.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.model.LeaderboardEntry;
+import com.example.service.LeaderboardService;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    // Топ игроков по рейтингу
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> getTop(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(leaderboardService.getTop(Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    // Размер таблицы
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(Map.of("players", leaderboardService.size(), "loaded", leaderboardService.isLoaded()));
+    }
+
+    // Позиция игрока
+    @GetMapping("/players/{userId}")
+    public ResponseEntity<LeaderboardEntry> getEntry(@PathVariable String userId) {
+        LeaderboardEntry entry = leaderboardService.getEntry(userId);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(entry);
+    }
+
+    // Игроки вокруг заданного
+    @GetMapping("/players/{userId}/around")
+    public ResponseEntity<List<LeaderboardEntry>> getAround(@PathVariable String userId,
+                                                           @RequestParam(defaultValue = "5") int radius) {
+        List<LeaderboardEntry> entries = leaderboardService.getAround(userId, Math.max(0, Math.min(radius, MAX_LIMIT)));
+        if (entries == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(entries);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.controller;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.service.ProfilingService;
+
+// Admin endpoints for on-demand JFR recordings. Stopping runs on ProfilingService's own thread and returns
+// a CompletableFuture, so this controller serves both the MVC and the reactive stack.
+@RestController
+@RequestMapping("/api/admin/profiling")
+public class ProfilingController {
+
+    private static final String TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private ProfilingService profilingService;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ProfilingController.class);
+
+    // Состояние текущей записи
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!profilingService.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ok(profilingService.getStatus());
+    }
+
+    // Запуск записи JFR: ?seconds=60&maxSizeMb=100&settings=profile (profile - с сэмплированием аллокаций и методов)
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start(@RequestHeader(value = TOKEN_HEADER, required = false) String token,
+                                                     @RequestParam(defaultValue = "60") long seconds,
+                                                     @RequestParam(defaultValue = "100") long maxSizeMb,
+                                                     @RequestParam(defaultValue = "profile") String settings) {
+        if (!profilingService.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ok(profilingService.start(seconds, maxSizeMb, settings));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error starting JFR recording", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Остановка записи; в ответе файл .jfr
+    @PostMapping("/stop")
+    public CompletableFuture<ResponseEntity<Resource>> stop(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!profilingService.isAuthorized(token)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return profilingService.stopAsync()
+            .thenApply(this::recording)
+            .exceptionally(e -> {
+                logger.error("Error stopping JFR recording", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            });
+    }
+
+    // Файл последней завершённой записи (например, остановленной по истечении времени)
+    @GetMapping("/recording")
+    public ResponseEntity<Resource> getRecording(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!profilingService.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return recording(profilingService.getLastRecording());
+    }
+
+    private ResponseEntity<Resource> recording(Path file) {
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+            .body(new FileSystemResource(file));
+    }
+
+    private <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(body);
+    }
+}
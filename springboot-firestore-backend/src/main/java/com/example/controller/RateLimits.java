@@ -0,0 +1,40 @@
+package com.example.controller;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Helpers for the endpoints checked by RateLimitService
+final class RateLimits {
+
+    static final String RETRY_AFTER_MS = "X-RateLimit-Retry-After-Ms";
+
+    private RateLimits() {
+    }
+
+    // 429 with Retry-After in whole seconds (as HTTP requires) and the exact wait in milliseconds
+    static ResponseEntity.BodyBuilder tooManyRequests(long waitNanos) {
+        long waitMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf((waitMs + 999) / 1000))
+            .header(RETRY_AFTER_MS, String.valueOf(waitMs));
+    }
+
+    static String clientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.service.ProfilingService;
+import com.example.service.RatingRecomputeService;
+
+@RestController
+@RequestMapping("/api/ratings")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class RatingController {
+
+    private static final String TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private RatingRecomputeService ratingRecomputeService;
+
+    @Autowired
+    private ProfilingService profilingService;
+
+    // Запуск полного пересчёта рейтингов по истории матчей (в фоне); только с админским токеном
+    @PostMapping("/recompute")
+    public ResponseEntity<Map<String, Object>> startRecompute(@RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!profilingService.isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        HttpStatus status = ratingRecomputeService.start() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status)
+            .header("Content-Type", "application/json")
+            .body(ratingRecomputeService.getStatus());
+    }
+
+    // Состояние последнего пересчёта
+    @GetMapping("/recompute")
+    public ResponseEntity<Map<String, Object>> getRecomputeStatus() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(ratingRecomputeService.getStatus());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.model.Game;
+import com.example.model.GameAction;
+import com.example.model.Page;
+import com.example.model.Player;
+import com.example.service.GameService;
+import com.example.service.RateLimitService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// WebFlux version of GameController, active with the "reactive" profile
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/games")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class ReactiveGameController {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Value("${api.list.page-size:500}")
+    private int listPageSize;
+
+    @Value("${api.list.max-limit:1000}")
+    private int listMaxLimit;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReactiveGameController.class);
+
+    // ✅ Создание новой игры
+    @PostMapping({"", "/"})
+    public Mono<ResponseEntity<Game>> createGame(@RequestBody Map<String, Map<String, String>> request) {
+        Map<String, String> player1Data = request.get("player1");
+        Map<String, String> player2Data = request.get("player2");
+
+        if (player1Data == null || player2Data == null) {
+            logger.warn("Missing player data in request");
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        Player player1 = new Player(player1Data.get("id"), player1Data.get("name"));
+        Player player2 = new Player(player2Data.get("id"), player2Data.get("name"));
+        return ReactiveSupport.blocking(() -> gameService.createGame(player1, player2))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Failed to create game", e));
+    }
+
+    // ✅ Получение игры по ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Game>> getGame(@PathVariable("id") String id) {
+        return Mono.fromFuture(() -> gameService.getGameAsync(id))
+            .map(this::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(e -> serverError("Error retrieving game", e));
+    }
+
+    // ✅ Поток обновлений игры (Server-Sent Events) до её завершения
+    @GetMapping(value = "/{id}/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<Game> getGameUpdates(@PathVariable("id") String id) {
+        return gameService.gameUpdates(id);
+    }
+
+    // ✅ Метрики кэша активных игр
+    @GetMapping("/cache/stats")
+    public Mono<Map<String, Object>> getCacheStats() {
+        return Mono.fromSupplier(gameService::getCacheStats);
+    }
+
+    // ✅ Счётчики расчёта завершённых матчей
+    @GetMapping("/settlements/stats")
+    public Mono<Map<String, Object>> getSettlementStats() {
+        return Mono.fromSupplier(gameService::getSettlementStats);
+    }
+
+    // ✅ Все игры: JSON-массив (или NDJSON) с учётом backpressure
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Game> getAllGames() {
+        return gameService.gamesFlux(listPageSize);
+    }
+
+    // ✅ Постраничное получение игр: ?limit=50&startAfter=<nextCursor>
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<Page<Game>>> getGamesPage(@RequestParam int limit,
+                                                         @RequestParam(required = false) String startAfter) {
+        int pageLimit = Math.max(1, Math.min(limit, listMaxLimit));
+        return ReactiveSupport.blocking(() -> gameService.getGamesPage(startAfter, pageLimit))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error retrieving games page", e));
+    }
+
+    // ✅ Обработка действий игрока
+    @PostMapping({"/action", "/action/"})
+    public Mono<ResponseEntity<Game>> processAction(@RequestBody GameAction action, ServerHttpRequest request) {
+        long retryAfter = rateLimitService.checkAction(action.getPlayerId(), RateLimits.clientIp(request));
+        if (retryAfter > 0) {
+            return Mono.just(RateLimits.tooManyRequests(retryAfter).build());
+        }
+        return Mono.fromFuture(() -> gameService.processActionAsync(action))
+            .map(this::ok)
+            .defaultIfEmpty(ResponseEntity.badRequest().build())
+            .onErrorResume(e -> serverError("Error processing action", e));
+    }
+
+    private <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
+    private <T> Mono<ResponseEntity<T>> serverError(String message, Throwable e) {
+        logger.error(message, e);
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.model.Game;
+import com.example.model.GameAction;
+import com.example.model.Page;
+import com.example.model.Room;
+import com.example.model.RoomJoinResult;
+import com.example.service.GameService;
+import com.example.service.RateLimitService;
+import com.example.service.RoomService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// WebFlux version of RoomController, active with the "reactive" profile
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/rooms")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class ReactiveRoomController {
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Value("${api.list.page-size:500}")
+    private int listPageSize;
+
+    @Value("${api.list.max-limit:1000}")
+    private int listMaxLimit;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReactiveRoomController.class);
+
+    // Create a new room
+    @PostMapping
+    @SuppressWarnings("unchecked")
+    public Mono<ResponseEntity<Room>> createRoom(@RequestBody Map<String, Object> request,
+                                                 ServerHttpRequest httpRequest) {
+        String hostId = (String) request.get("hostId");
+        long retryAfter = rateLimitService.checkLobby(hostId, RateLimits.clientIp(httpRequest));
+        if (retryAfter > 0) {
+            return Mono.just(RateLimits.tooManyRequests(retryAfter).build());
+        }
+
+        String hostName = (String) request.get("hostName");
+        Map<String, Object> hostCharacter = (Map<String, Object>) request.get("hostCharacter");
+
+        if (hostId == null || hostName == null || hostCharacter == null) {
+            logger.warn("Missing required fields in create room request");
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return ReactiveSupport.blocking(() -> roomService.createRoom(hostId, hostName, hostCharacter))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error creating room", e));
+    }
+
+    // Join an existing room; starts the game once both players are in
+    @PostMapping("/{roomId}/join")
+    @SuppressWarnings("unchecked")
+    public Mono<ResponseEntity<Object>> joinRoom(@PathVariable String roomId,
+                                                 @RequestBody Map<String, Object> request,
+                                                 ServerHttpRequest httpRequest) {
+        String guestId = (String) request.get("guestId");
+        long retryAfter = rateLimitService.checkLobby(guestId, RateLimits.clientIp(httpRequest));
+        if (retryAfter > 0) {
+            return Mono.just(RateLimits.tooManyRequests(retryAfter)
+                .body(Map.of("error", "RATE_LIMITED", "message", "Too many requests")));
+        }
+
+        String guestName = (String) request.get("guestName");
+        Map<String, Object> guestCharacter = (Map<String, Object>) request.get("guestCharacter");
+
+        if (guestId == null || guestName == null || guestCharacter == null) {
+            logger.warn("Missing required fields in join room request");
+            return Mono.just(ResponseEntity.badRequest()
+                .body(Map.of("error", "MISSING_FIELDS", "message", "Missing required fields")));
+        }
+
+        return ReactiveSupport.blocking(() -> {
+                RoomJoinResult result = roomService.joinRoom(roomId, guestId, guestName, guestCharacter);
+
+                if (!result.isSuccess()) {
+                    logger.warn("Failed to join room {}: {} - {}", roomId, result.getErrorCode(), result.getErrorMessage());
+                    HttpStatus status = switch (result.getErrorCode()) {
+                        case "ROOM_NOT_FOUND" -> HttpStatus.NOT_FOUND;
+                        case "ROOM_FULL", "ROOM_IN_PROGRESS", "ROOM_FINISHED", "ROOM_NOT_AVAILABLE" -> HttpStatus.CONFLICT;
+                        default -> HttpStatus.BAD_REQUEST;
+                    };
+                    return ResponseEntity.status(status)
+                        .<Object>body(Map.of("error", result.getErrorCode(), "message", result.getErrorMessage()));
+                }
+
+                Room room = result.getRoom();
+                if (room.getStatus().equals("playing")) {
+                    Game game = gameService.createRoomGame(room);
+                    room.setGameId(game.getId());
+                    roomService.updateRoom(room);
+                    logger.info("Game created for room {}: {}", roomId, game.getId());
+                }
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .<Object>body(room);
+            })
+            .onErrorResume(e -> {
+                logger.error("Error joining room", e);
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "INTERNAL_ERROR", "message", "Internal server error")));
+            });
+    }
+
+    // Get room details
+    @GetMapping("/{roomId}")
+    public Mono<ResponseEntity<Room>> getRoom(@PathVariable String roomId) {
+        return Mono.fromFuture(() -> roomService.getRoomAsync(roomId))
+            .map(this::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(e -> serverError("Error getting room", e));
+    }
+
+    // Update room status
+    @PutMapping("/{roomId}/status")
+    public Mono<ResponseEntity<Room>> updateRoomStatus(@PathVariable String roomId,
+                                                       @RequestBody Map<String, String> request) {
+        return ReactiveSupport.blocking(() -> roomService.updateRoomStatus(roomId, request.get("status"), request.get("winner")))
+            .map(this::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(e -> serverError("Error updating room status", e));
+    }
+
+    // Process game action in a room; completes the room when the game is over
+    @PostMapping("/{roomId}/action")
+    public Mono<ResponseEntity<Game>> processRoomAction(@PathVariable String roomId,
+                                                        @RequestBody GameAction action,
+                                                        ServerHttpRequest request) {
+        long retryAfter = rateLimitService.checkAction(action.getPlayerId(), RateLimits.clientIp(request));
+        if (retryAfter > 0) {
+            return Mono.just(RateLimits.tooManyRequests(retryAfter).build());
+        }
+        return Mono.fromFuture(() -> roomService.getRoomAsync(roomId))
+            .filter(room -> room.getStatus().equals("playing"))
+            .flatMap(room -> {
+                action.setGameId(room.getGameId());
+                return Mono.fromFuture(() -> gameService.processActionAsync(action))
+                    .flatMap(game -> completeRoomIfFinished(room, game).thenReturn(ok(game)));
+            })
+            .defaultIfEmpty(ResponseEntity.badRequest().build())
+            .onErrorResume(e -> serverError("Error processing room action", e));
+    }
+
+    private Mono<Room> completeRoomIfFinished(Room room, Game game) {
+        // Room games carry their roomId and are completed by the settlement batch
+        if (!game.getStatus().equals("finished") || game.getRoomId() != null) {
+            return Mono.empty();
+        }
+        String winner = null;
+        if (game.getPlayer1().getWins() >= 2) {
+            winner = room.getHostId().equals(game.getPlayer1().getId()) ? "host" : "guest";
+        } else if (game.getPlayer2().getWins() >= 2) {
+            winner = room.getHostId().equals(game.getPlayer2().getId()) ? "host" : "guest";
+        }
+        String roomWinner = winner;
+        return ReactiveSupport.blocking(() -> roomService.updateRoomStatus(room.getRoomId(), "completed", roomWinner));
+    }
+
+    // All rooms as a JSON array (or NDJSON) with backpressure
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Room> getAllRooms() {
+        return roomService.roomsFlux(listPageSize);
+    }
+
+    // Get one page of rooms: ?limit=50&startAfter=<nextCursor>
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<Page<Room>>> getRoomsPage(@RequestParam int limit,
+                                                         @RequestParam(required = false) String startAfter) {
+        int pageLimit = Math.max(1, Math.min(limit, listMaxLimit));
+        return ReactiveSupport.blocking(() -> roomService.getRoomsPage(startAfter, pageLimit))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error getting rooms page", e));
+    }
+
+    // Room ID filter metrics
+    @GetMapping("/filter/stats")
+    public Mono<Map<String, Object>> getRoomFilterStats() {
+        return Mono.fromSupplier(roomService::getRoomFilterStats);
+    }
+
+    private <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
+    private <T> Mono<ResponseEntity<T>> serverError(String message, Throwable e) {
+        logger.error(message, e);
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.controller;
+
+import java.util.concurrent.Callable;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Helpers shared by the reactive (WebFlux) controllers
+final class ReactiveSupport {
+
+    private ReactiveSupport() {
+    }
+
+    // Service methods without a non-blocking variant run on the bounded elastic pool, never on the event loop
+    static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.model.Page;
+import com.example.model.User;
+import com.example.service.UserService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// WebFlux-версия UserController, активна с профилем "reactive"
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/users")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class ReactiveUserController {
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${api.list.page-size:500}")
+    private int listPageSize;
+
+    @Value("${api.list.max-limit:1000}")
+    private int listMaxLimit;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReactiveUserController.class);
+
+    // Создание пользователя
+    @PostMapping
+    public Mono<ResponseEntity<User>> createUser(@RequestBody User user) {
+        return Mono.fromFuture(() -> userService.createUserAsync(user)
+                .thenCompose(userService::getUserAsync))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error creating user", e));
+    }
+
+    // Получение пользователя по ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getUser(@PathVariable String id) {
+        return Mono.fromFuture(() -> userService.getUserAsync(id))
+            .map(this::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(e -> serverError("Error getting user", e));
+    }
+
+    // Все пользователи: JSON-массив (или NDJSON), страницы читаются по мере потребления
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<User> getAllUsers() {
+        return userService.usersFlux(listPageSize);
+    }
+
+    // Постраничное получение пользователей: ?limit=50&startAfter=<nextCursor>
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<Page<User>>> getUsersPage(@RequestParam int limit,
+                                                         @RequestParam(required = false) String startAfter) {
+        int pageLimit = Math.max(1, Math.min(limit, listMaxLimit));
+        return ReactiveSupport.blocking(() -> userService.getUsersPage(startAfter, pageLimit))
+            .map(page -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(page))
+            .onErrorResume(e -> serverError("Error getting users page", e));
+    }
+
+    // Метрики кэша профилей
+    @GetMapping("/cache/stats")
+    public Mono<Map<String, Object>> getCacheStats() {
+        return Mono.fromSupplier(userService::getCacheStats);
+    }
+
+    // Обновление пользователя
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<User>> updateUser(@PathVariable String id, @RequestBody User user) {
+        user.setId(id);
+        return Mono.fromFuture(() -> userService.updateUserAsync(user)
+                .thenCompose(userService::getUserAsync))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error updating user", e));
+    }
+
+    // Обновление рейтинга пользователя
+    @PutMapping("/{id}/rating")
+    public Mono<ResponseEntity<User>> updateUserRating(@PathVariable String id, @RequestParam boolean isWin) {
+        return ReactiveSupport.blocking(() -> userService.updateUserRating(id, isWin))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error updating user rating", e));
+    }
+
+    // Обновление валюты пользователя
+    @PutMapping("/{id}/currency")
+    public Mono<ResponseEntity<User>> updateUserCurrency(@PathVariable String id,
+                                                         @RequestParam(required = false, defaultValue = "0") Integer addCoins,
+                                                         @RequestParam(required = false, defaultValue = "0") Integer addGems) {
+        return ReactiveSupport.blocking(() -> userService.updateCurrency(id, addCoins, addGems))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error updating user currency", e));
+    }
+
+    // Удаление пользователя
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteUser(@PathVariable String id) {
+        return Mono.fromFuture(() -> userService.deleteUserAsync(id))
+            .map(deletedId -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\": \"User deleted successfully\"}"))
+            .onErrorResume(e -> serverError("Error deleting user", e));
+    }
+
+    // Добавление предмета в инвентарь
+    @PutMapping("/{id}/inventory")
+    public Mono<ResponseEntity<User>> addToInventory(@PathVariable String id, @RequestParam String itemId) {
+        return ReactiveSupport.blocking(() -> userService.hasItem(id, itemId)
+                ? userService.getUser(id)
+                : userService.addToInventory(id, itemId))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error updating user inventory", e));
+    }
+
+    // Проверка наличия предмета у пользователя
+    @GetMapping("/{id}/inventory/{itemId}")
+    public Mono<ResponseEntity<Boolean>> hasItem(@PathVariable String id, @PathVariable String itemId) {
+        return ReactiveSupport.blocking(() -> userService.hasItem(id, itemId))
+            .map(this::ok)
+            .onErrorResume(e -> serverError("Error checking user inventory", e));
+    }
+
+    private <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
+    private <T> Mono<ResponseEntity<T>> serverError(String message, Throwable e) {
+        logger.error(message, e);
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.service.AdmissionService;
+import com.example.service.Bulkheads;
+import com.example.service.ClusterService;
+import com.example.service.MatchStatsService;
+import com.example.service.RateLimitService;
+import com.example.service.ReplicationService;
+import com.example.tracing.TailSamplingSpanProcessor;
+
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(
+    origins = "http://localhost:3000",
+    methods = {RequestMethod.GET, RequestMethod.OPTIONS},
+    allowedHeaders = "*",
+    allowCredentials = "true"
+)
+public class StatsController {
+
+    @Autowired
+    private MatchStatsService matchStatsService;
+
+    @Autowired
+    private TailSamplingSpanProcessor tailSamplingSpanProcessor;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private ReplicationService replicationService;
+
+    // Статистика персонажей, приёмов и матчапов: window = 1m, 1h, 1d или all
+    @GetMapping("/characters")
+    public ResponseEntity<Map<String, Object>> getCharacterStats(@RequestParam(defaultValue = "all") String window) {
+        try {
+            return ResponseEntity.ok()
+                .header("Content-Type", "application/json")
+                .body(matchStatsService.getCharacterStats("all".equals(window) ? null : window));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Счётчики сэмплирования трейсов: сколько сохранено (ошибки, медленные, head) и сколько отброшено
+    @GetMapping("/tracing")
+    public ResponseEntity<Map<String, Object>> getTracingStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(tailSamplingSpanProcessor.getStats());
+    }
+
+    // Лимиты запросов: отклонённые (429) и отслеживаемые игроки/IP по действиям и лобби
+    @GetMapping("/ratelimit")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(rateLimitService.getStats());
+    }
+
+    // Адаптивный лимит параллельных запросов к Firestore и отброшенные (503) запросы по приоритетам
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(admissionService.getStats());
+    }
+
+    // Пулы потоков по классам запросов (игра, лобби, пользователи, админ): занятость, очередь и отказы
+    @GetMapping("/bulkheads")
+    public ResponseEntity<Map<String, Object>> getBulkheadStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(bulkheads.getStats());
+    }
+
+    // Кластер: живые узлы кольца, состояние соседей, перенаправленные запросы и переданные игры
+    @GetMapping("/cluster")
+    public ResponseEntity<Map<String, Object>> getClusterStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(clusterService.getStats());
+    }
+
+    // Репликация матчей: отправленные и полученные копии, резервные копии и повышения после отказа узла
+    @GetMapping("/replication")
+    public ResponseEntity<Map<String, Object>> getReplicationStats() {
+        return ResponseEntity.ok()
+            .header("Content-Type", "application/json")
+            .body(replicationService.getStats());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.model;
+
+// A finished match as stored in the columnar archive (see com.example.archive)
+public class ArchivedMatch {
+    private String gameId;
+    private String roomId;
+    private String player1Id;
+    private String player2Id;
+    private String winnerId; // null if the match ended without a winner
+    private String player1Character;
+    private String player2Character;
+    private int rounds;
+    private long startedAt;
+    private long finishedAt;
+    private long durationMs;
+    
+    public ArchivedMatch() {
+    }
+    
+    // Getters and Setters
+    public String getGameId() {
+        return gameId;
+    }
+    
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+    
+    public String getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+    
+    public String getPlayer1Id() {
+        return player1Id;
+    }
+    
+    public void setPlayer1Id(String player1Id) {
+        this.player1Id = player1Id;
+    }
+    
+    public String getPlayer2Id() {
+        return player2Id;
+    }
+    
+    public void setPlayer2Id(String player2Id) {
+        this.player2Id = player2Id;
+    }
+    
+    public String getWinnerId() {
+        return winnerId;
+    }
+    
+    public void setWinnerId(String winnerId) {
+        this.winnerId = winnerId;
+    }
+    
+    public String getPlayer1Character() {
+        return player1Character;
+    }
+    
+    public void setPlayer1Character(String player1Character) {
+        this.player1Character = player1Character;
+    }
+    
+    public String getPlayer2Character() {
+        return player2Character;
+    }
+    
+    public void setPlayer2Character(String player2Character) {
+        this.player2Character = player2Character;
+    }
+    
+    public int getRounds() {
+        return rounds;
+    }
+    
+    public void setRounds(int rounds) {
+        this.rounds = rounds;
+    }
+    
+    public long getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+}
@@ -9,6 +9,9 @@ public class Game {
     private int round = 1;
     private String status = "waiting"; // waiting, running, finished
     private String winner = null;
+    private String winnerId = null; // ID of the winning player, set together with winner
+    private String roomId = null; // Room the game was started from, if any
+    private long createdAt; // 0 for games created before start times were recorded
     private long lastUpdated;
     
     public Game() {
@@ -20,7 +23,8 @@ public class Game {
         this.id = UUID.randomUUID().toString();
         this.player1 = player1;
         this.player2 = player2;
-        this.lastUpdated = System.currentTimeMillis();
+        this.createdAt = System.currentTimeMillis();
+        this.lastUpdated = this.createdAt;
     }
     
     // Method to check if game is over
@@ -103,6 +107,30 @@ public class Game {
         this.lastUpdated = System.currentTimeMillis();
     }
     
+    public String getWinnerId() {
+        return winnerId;
+    }
+    
+    public void setWinnerId(String winnerId) {
+        this.winnerId = winnerId;
+    }
+    
+    public String getRoomId() {
+        return roomId;
+    }
+    
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+    
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+    
     public long getLastUpdated() {
         return lastUpdated;
     }
@@ -0,0 +1,61 @@
+package com.example.model;
+
+public class LeaderboardEntry {
+    private int position; // 1 = best rating
+    private String userId;
+    private String name;
+    private int rating;
+    private String rank;
+    
+    public LeaderboardEntry() {
+    }
+    
+    public LeaderboardEntry(int position, String userId, String name, int rating) {
+        this.position = position;
+        this.userId = userId;
+        this.name = name;
+        this.rating = rating;
+        this.rank = User.rankFor(rating);
+    }
+    
+    // Getters and Setters
+    public int getPosition() {
+        return position;
+    }
+    
+    public void setPosition(int position) {
+        this.position = position;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public int getRating() {
+        return rating;
+    }
+    
+    public void setRating(int rating) {
+        this.rating = rating;
+    }
+    
+    public String getRank() {
+        return rank;
+    }
+    
+    public void setRank(String rank) {
+        this.rank = rank;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.model;
+
+import java.util.List;
+
+// One page of a cursor-paginated list; nextCursor is the ID to pass as startAfter, or null on the last page
+public class Page<T> {
+    private List<T> items;
+    private String nextCursor;
+    
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -10,6 +10,7 @@ public class Player {
     private int wins = 0;
     private String currentAnimation = "idle";
     private boolean isAttacking = false;
+    private String character; // Selected character ID, if known
     
     public Player() {
     }
@@ -30,6 +31,14 @@ public class Player {
         this.id = id;
     }
     
+    public String getCharacter() {
+        return character;
+    }
+    
+    public void setCharacter(String character) {
+        this.character = character;
+    }
+    
     public String getName() {
         return name;
     }
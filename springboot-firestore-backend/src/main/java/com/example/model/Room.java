@@ -1,5 +1,6 @@
 package com.example.model;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -41,6 +42,31 @@ public class Room {
         this.hostReady = true; // Host is ready when they create the room
     }
 
+    // Copy of another room; the character and action maps are copied one level deep
+    public Room(Room other) {
+        this.roomId = other.roomId;
+        this.hostId = other.hostId;
+        this.hostName = other.hostName;
+        this.hostCharacter = copyOf(other.hostCharacter);
+        this.guestId = other.guestId;
+        this.guestName = other.guestName;
+        this.guestCharacter = copyOf(other.guestCharacter);
+        this.status = other.status;
+        this.gameId = other.gameId;
+        this.winner = other.winner;
+        this.createdAt = other.createdAt;
+        this.lastUpdated = other.lastUpdated;
+        this.backendRoomId = other.backendRoomId;
+        this.guestAction = copyOf(other.guestAction);
+        this.hostAction = copyOf(other.hostAction);
+        this.guestReady = other.guestReady;
+        this.hostReady = other.hostReady;
+    }
+
+    private static Map<String, Object> copyOf(Map<String, Object> map) {
+        return map != null ? new HashMap<>(map) : null;
+    }
+
     // Check if room is ready to start (has both players)
     public boolean hasAllPlayers() {
         return hostId != null && guestId != null && 
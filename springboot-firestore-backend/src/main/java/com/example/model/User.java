@@ -12,6 +12,10 @@ public class User {
     private int coin;
     private int gem;
     private List<String> inventory;
+    // Состояние Glicko-2; rating - его отображаемое значение
+    private double glickoRating;
+    private double glickoDeviation;
+    private double glickoVolatility;
     
     public User() {
         // Пустой конструктор для Firebase
@@ -83,6 +87,30 @@ public class User {
         this.gem = gem;
     }
     
+    public double getGlickoRating() {
+        return glickoRating;
+    }
+    
+    public void setGlickoRating(double glickoRating) {
+        this.glickoRating = glickoRating;
+    }
+    
+    public double getGlickoDeviation() {
+        return glickoDeviation;
+    }
+    
+    public void setGlickoDeviation(double glickoDeviation) {
+        this.glickoDeviation = glickoDeviation;
+    }
+    
+    public double getGlickoVolatility() {
+        return glickoVolatility;
+    }
+    
+    public void setGlickoVolatility(double glickoVolatility) {
+        this.glickoVolatility = glickoVolatility;
+    }
+    
     public List<String> getInventory() {
         if (inventory == null) {
             inventory = new ArrayList<>();
@@ -109,18 +137,23 @@ public class User {
     
     // Обновление ранга на основе рейтинга
     private void updateRank() {
+        rank = rankFor(rating);
+    }
+    
+    // Ранг, соответствующий рейтингу
+    public static String rankFor(int rating) {
         if (rating < 100) {
-            rank = "Бронза";
+            return "Бронза";
         } else if (rating < 200) {
-            rank = "Серебро";
+            return "Серебро";
         } else if (rating < 400) {
-            rank = "Золото";
+            return "Золото";
         } else if (rating < 600) {
-            rank = "Платина";
+            return "Платина";
         } else if (rating < 800) {
-            rank = "Алмаз";
+            return "Алмаз";
         } else {
-            rank = "Легенда";
+            return "Легенда";
         }
     }
 }
@@ -0,0 +1,27 @@
+package com.example.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One player action through GameService.processAction, from lookup to the Firestore write.
+// Committed from whichever thread completes the action, so the event thread may be a Firestore callback thread.
+@Name("com.example.ActionProcessed")
+@Label("Action Processed")
+@Category({"Fighting Game", "Game"})
+@Description("A player action applied to a game and persisted")
+@StackTrace(false)
+public class ActionProcessedEvent extends jdk.jfr.Event {
+
+    @Label("Game ID")
+    public String gameId;
+
+    @Label("Action Type")
+    public String actionType;
+
+    @Label("Outcome")
+    @Description("applied, rejected (game not running or player not in it) or error")
+    public String outcome;
+}
@@ -0,0 +1,46 @@
+package com.example.profiling;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A lookup that missed the in-memory cache; the duration is the Firestore load that followed
+@Name("com.example.CacheMiss")
+@Label("Cache Miss")
+@Category({"Fighting Game", "Cache"})
+@Description("A cache miss and the Firestore load it caused")
+@StackTrace(false)
+public class CacheMissEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Found")
+    @Description("Whether the document existed in Firestore")
+    public boolean found;
+
+    // Runs the load for a missed key and commits the event when it completes; found = it produced a value.
+    // Returns the load's own future.
+    public static <T> CompletableFuture<T> timeLoad(String cache, String key, Supplier<CompletableFuture<T>> load) {
+        CacheMissEvent event = new CacheMissEvent();
+        event.begin();
+        CompletableFuture<T> result = load.get();
+        result.whenComplete((value, error) -> {
+            if (event.shouldCommit()) {
+                event.cache = cache;
+                event.key = key;
+                event.found = value != null;
+                event.commit();
+            }
+        });
+        return result;
+    }
+}
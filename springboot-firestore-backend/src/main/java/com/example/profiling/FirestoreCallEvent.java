@@ -0,0 +1,26 @@
+package com.example.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One Firestore RPC attempt, from call start to close (see FirestoreCallInterceptor)
+@Name("com.example.FirestoreCall")
+@Label("Firestore Call")
+@Category({"Fighting Game", "Firestore"})
+@Description("A Firestore RPC attempt")
+@StackTrace(false)
+public class FirestoreCallEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Collection")
+    public String collection;
+
+    @Label("Status")
+    @Description("gRPC status code")
+    public String status;
+}
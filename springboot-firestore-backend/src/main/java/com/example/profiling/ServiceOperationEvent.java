@@ -0,0 +1,20 @@
+package com.example.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One timed service operation (OperationTimer), e.g. RoomService.joinRoom
+@Name("com.example.ServiceOperation")
+@Label("Service Operation")
+@Category({"Fighting Game", "Service"})
+@StackTrace(false)
+public class ServiceOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Outcome")
+    public String outcome;
+}
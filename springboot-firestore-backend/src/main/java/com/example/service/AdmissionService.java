@@ -0,0 +1,183 @@
+package com.example.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Adaptive admission control for requests that end up waiting on Firestore. Admitted requests are counted
+// against a concurrency limit that follows Firestore's health, gradient style: every point RPC (get, commit,
+// transaction) updates a short-term RTT (last ~10 calls) and a baseline RTT smoothed over
+// admission.baseline-window-seconds. While short-term RTT stays within rtt-tolerance of the baseline the limit
+// grows by about sqrt(limit) per step; beyond that it shrinks in proportion (gradient = tolerance * baseline / short,
+// at least 0.5), so the limit settles where adding requests only adds queueing. An UNAVAILABLE / DEADLINE_EXCEEDED /
+// RESOURCE_EXHAUSTED status from any RPC multiplies it by backoff-ratio, at most once per short-term RTT.
+// A slowdown that persists becomes the new baseline after a few windows, so a uniformly slower Firestore costs
+// throughput only through the max-limit cap, which keeps admitted requests below the server's thread count.
+// Priorities get a share of the limit: in-match requests all of it, other Firestore-bound requests
+// normal-share, listings low-share, so when the limit shrinks listings are shed first and actions last.
+// A request over its share is refused at once (503) instead of holding a server thread on a slow .get().
+@Service
+public class AdmissionService {
+
+    public enum Priority {
+        CRITICAL, NORMAL, LOW
+    }
+
+    private static final double SHORT_RTT_SMOOTHING = 0.1;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final boolean enabled;
+    private final double minLimit;
+    private final double maxLimit;
+    private final double rttTolerance;
+    private final double baselineWindowNanos;
+    private final double backoffRatio;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+
+    private volatile double limit;
+    private double shortRtt; // guarded by this
+    private double baselineRtt; // guarded by this
+    private long lastSampleAt; // guarded by this
+    private long nextBackoffAt; // guarded by this
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Map<Priority, LongAdder> rejections = new EnumMap<>(Priority.class);
+    private final LongAdder backoffs = new LongAdder();
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AdmissionService.class);
+
+    public AdmissionService(MeterRegistry meterRegistry,
+                            @Value("${admission.enabled:true}") boolean enabled,
+                            @Value("${admission.initial-limit:40}") double initialLimit,
+                            @Value("${admission.min-limit:16}") double minLimit,
+                            @Value("${admission.max-limit:150}") double maxLimit,
+                            @Value("${admission.rtt-tolerance:1.5}") double rttTolerance,
+                            @Value("${admission.baseline-window-seconds:10}") long baselineWindowSeconds,
+                            @Value("${admission.backoff-ratio:0.8}") double backoffRatio,
+                            @Value("${admission.normal-share:0.8}") double normalShare,
+                            @Value("${admission.low-share:0.5}") double lowShare) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.baselineWindowNanos = TimeUnit.SECONDS.toNanos(baselineWindowSeconds);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        shares.put(Priority.CRITICAL, 1.0);
+        shares.put(Priority.NORMAL, normalShare);
+        shares.put(Priority.LOW, lowShare);
+
+        for (Priority priority : Priority.values()) {
+            LongAdder rejected = new LongAdder();
+            rejections.put(priority, rejected);
+            FunctionCounter.builder("admission.rejections", rejected, LongAdder::sum)
+                .description("Requests shed with 503 by admission control")
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry);
+        }
+        Gauge.builder("admission.limit", this, AdmissionService::getLimit)
+            .description("Current adaptive concurrency limit for Firestore-bound requests")
+            .register(meterRegistry);
+        Gauge.builder("admission.inflight", inflight, AtomicInteger::get)
+            .description("Admitted Firestore-bound requests in progress")
+            .register(meterRegistry);
+    }
+
+    // Admits a request of the given priority; every true must be paired with one release()
+    public boolean tryAcquire(Priority priority) {
+        if (!enabled) {
+            return true;
+        }
+        int allowed = Math.max(1, (int) (getLimit() * shares.get(priority)));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                rejections.get(priority).increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (enabled) {
+            inflight.decrementAndGet();
+        }
+    }
+
+    // Latency sample of a point RPC (get, commit, transaction), fed by FirestoreCallInterceptor
+    public void onLatency(long nanos) {
+        long now = System.nanoTime();
+        int inflightNow = inflight.get();
+        synchronized (this) {
+            if (baselineRtt == 0) {
+                shortRtt = baselineRtt = nanos;
+                lastSampleAt = now;
+                return;
+            }
+            shortRtt += (nanos - shortRtt) * SHORT_RTT_SMOOTHING;
+            // Time-based smoothing, so the baseline moves at the same pace however few calls get through
+            double elapsed = now - lastSampleAt;
+            lastSampleAt = now;
+            baselineRtt += (shortRtt - baselineRtt) * (1 - Math.exp(-elapsed / baselineWindowNanos));
+            if (inflightNow * 2 < limit) {
+                return; // far below the limit, latency says nothing about where it should be
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * baselineRtt / shortRtt));
+            double target = limit * gradient + Math.sqrt(limit);
+            limit = clamp(limit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING);
+        }
+    }
+
+    // Firestore pushed back (UNAVAILABLE, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED)
+    public void onOverload() {
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (nextBackoffAt != 0 && now - nextBackoffAt < 0) {
+                return;
+            }
+            nextBackoffAt = now + Math.max(1, (long) shortRtt);
+            limit = clamp(limit * backoffRatio);
+            backoffs.increment();
+            logger.debug("Firestore overloaded, admission limit lowered to {}", limit);
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(value, maxLimit));
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("limit", getLimit());
+        stats.put("inflight", inflight.get());
+        synchronized (this) {
+            stats.put("shortRttMs", shortRtt / 1_000_000);
+            stats.put("baselineRttMs", baselineRtt / 1_000_000);
+        }
+        stats.put("overloadBackoffs", backoffs.sum());
+        Map<String, Object> rejected = new LinkedHashMap<>();
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority.name().toLowerCase(), rejections.get(priority).sum());
+        }
+        stats.put("rejections", rejected);
+        return stats;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.archive.MatchArchive;
+import com.example.model.ArchivedMatch;
+import com.example.model.Game;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+import jakarta.annotation.PreDestroy;
+
+// Moves finished games out of Firestore into the local columnar MatchArchive and answers history queries from it.
+// A batch of games is deleted only after its segment is on disk; games found already archived (a run interrupted
+// between the two steps) are just deleted. Queries run on a small pool of their own, off the request threads.
+// The archive lives on local disk, so in a cluster it belongs to one node: the ring owner of ARCHIVE_KEY runs the
+// scheduled archival, and shard routing sends every /api/archive request there.
+@Service
+public class ArchiveService {
+
+    // Ring key whose owner holds the archive
+    public static final String ARCHIVE_KEY = "match-archive";
+
+    private final Firestore firestore;
+    private final ClusterService cluster;
+    private final MatchArchive archive;
+    private final boolean enabled;
+    private final long minAgeMs;
+    private final int segmentRows;
+    private final int pageSize;
+    private final ExecutorService queryExecutor;
+
+    private final AtomicLong archivedTotal = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of("status", "idle");
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ArchiveService.class);
+
+    public ArchiveService(Firestore firestore,
+                          ClusterService cluster,
+                          @Value("${archive.directory:data/match-archive}") String directory,
+                          @Value("${archive.enabled:false}") boolean enabled,
+                          @Value("${archive.min-age-hours:24}") long minAgeHours,
+                          @Value("${archive.segment-rows:50000}") int segmentRows,
+                          @Value("${archive.page-size:500}") int pageSize,
+                          @Value("${archive.query-threads:4}") int queryThreads) throws IOException {
+        this.firestore = firestore;
+        this.cluster = cluster;
+        this.archive = MatchArchive.open(Path.of(directory));
+        this.enabled = enabled;
+        this.minAgeMs = minAgeHours * 3_600_000L;
+        this.segmentRows = segmentRows;
+        this.pageSize = pageSize;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.queryExecutor = Executors.newFixedThreadPool(queryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "archive-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queryExecutor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelayString = "${archive.initial-delay-ms:300000}")
+    public void scheduledArchive() {
+        if (!enabled || !cluster.isLocal(ARCHIVE_KEY)) {
+            return;
+        }
+        try {
+            archiveFinishedGames();
+        } catch (Exception e) {
+            logger.error("Match archival failed", e);
+        }
+    }
+
+    // Archives every finished game last updated more than archive.min-age-hours ago, oldest first.
+    // The age filter runs in the query (composite index on status + lastUpdated), so recent games are never read.
+    public synchronized Map<String, Object> archiveFinishedGames()
+            throws ExecutionException, InterruptedException, IOException {
+        long start = System.currentTimeMillis();
+        long cutoff = start - minAgeMs;
+        long scanned = 0;
+        long archived = 0;
+        long alreadyArchived = 0;
+        long deleted = 0;
+
+        Query base = firestore.collection("games")
+            .whereEqualTo("status", "finished")
+            .whereLessThan("lastUpdated", cutoff)
+            .orderBy("lastUpdated")
+            .limit(pageSize);
+        List<ArchivedMatch> pending = new ArrayList<>();
+        List<String> pendingIds = new ArrayList<>();
+        QueryDocumentSnapshot last = null;
+        while (true) {
+            List<QueryDocumentSnapshot> documents = (last == null ? base : base.startAfter(last)).get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                scanned++;
+                Game game = document.toObject(Game.class);
+                if (archive.contains(document.getId())) {
+                    alreadyArchived++;
+                } else {
+                    pending.add(toArchivedMatch(document.getId(), game));
+                    archived++;
+                }
+                pendingIds.add(document.getId());
+            }
+
+            boolean lastPage = documents.size() < pageSize;
+            if (pending.size() >= segmentRows || (lastPage && !pendingIds.isEmpty())) {
+                archive.append(pending);
+                deleted += deleteGames(pendingIds);
+                pending.clear();
+                pendingIds.clear();
+            }
+            if (lastPage) {
+                break;
+            }
+            last = documents.get(documents.size() - 1); // a cursor on values; deleted documents do not break it
+        }
+
+        archivedTotal.addAndGet(archived);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "done");
+        result.put("startedAt", start);
+        result.put("scanned", scanned);
+        result.put("archived", archived);
+        result.put("alreadyArchived", alreadyArchived);
+        result.put("deleted", deleted);
+        result.put("durationMs", System.currentTimeMillis() - start);
+        lastRun = result;
+        logger.info("Archived {} finished games ({} already archived, {} deleted from Firestore) in {} ms",
+            archived, alreadyArchived, deleted, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    public CompletableFuture<Map<String, Object>> archiveFinishedGamesAsync() {
+        return query(this::archiveFinishedGames);
+    }
+
+    public CompletableFuture<ArchivedMatch> findAsync(String gameId) {
+        return query(() -> archive.find(gameId));
+    }
+
+    public CompletableFuture<List<ArchivedMatch>> historyAsync(String playerId, long from, long to, int limit) {
+        return query(() -> archive.history(playerId, from, to, limit));
+    }
+
+    public CompletableFuture<Map<String, Object>> playerStatsAsync(String playerId, long from, long to) {
+        return query(() -> archive.playerStats(playerId, from, to));
+    }
+
+    public CompletableFuture<Map<String, Object>> characterStatsAsync(long from, long to) {
+        return query(() -> archive.characterStats(from, to));
+    }
+
+    public CompletableFuture<Map<String, Object>> summaryAsync(long from, long to) {
+        return query(() -> archive.summary(from, to));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(archive.stats());
+        stats.put("enabled", enabled);
+        stats.put("archivedSinceStart", archivedTotal.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private static ArchivedMatch toArchivedMatch(String gameId, Game game) {
+        ArchivedMatch match = new ArchivedMatch();
+        match.setGameId(gameId);
+        match.setRoomId(game.getRoomId());
+        match.setPlayer1Id(game.getPlayer1() != null ? game.getPlayer1().getId() : null);
+        match.setPlayer2Id(game.getPlayer2() != null ? game.getPlayer2().getId() : null);
+        match.setWinnerId(game.getWinnerId());
+        match.setPlayer1Character(game.getPlayer1() != null ? game.getPlayer1().getCharacter() : null);
+        match.setPlayer2Character(game.getPlayer2() != null ? game.getPlayer2().getCharacter() : null);
+        // The round counter has already moved past the deciding round; won rounds are exact
+        int rounds = game.getPlayer1() != null && game.getPlayer2() != null
+            ? game.getPlayer1().getWins() + game.getPlayer2().getWins()
+            : game.getRound();
+        match.setRounds(rounds);
+        match.setFinishedAt(game.getLastUpdated());
+        match.setStartedAt(game.getCreatedAt() > 0 ? game.getCreatedAt() : game.getLastUpdated());
+        match.setDurationMs(match.getFinishedAt() - match.getStartedAt());
+        return match;
+    }
+
+    private long deleteGames(List<String> gameIds) throws ExecutionException, InterruptedException {
+        AtomicLong deleted = new AtomicLong();
+        BulkWriter writer = firestore.bulkWriter();
+        for (String gameId : gameIds) {
+            FirestoreFutures.toCompletable(writer.delete(firestore.collection("games").document(gameId)))
+                .thenRun(deleted::incrementAndGet);
+        }
+        writer.close();
+        return deleted.get();
+    }
+
+    private interface ArchiveCall<T> {
+        T call() throws Exception;
+    }
+
+    private <T> CompletableFuture<T> query(ArchiveCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, queryExecutor);
+    }
+}
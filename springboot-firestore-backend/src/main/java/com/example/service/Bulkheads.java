@@ -0,0 +1,277 @@
+package com.example.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Component;
+
+import com.example.accounting.FirestoreUsage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import jakarta.annotation.PreDestroy;
+
+// Bulkheads: one bounded thread pool and queue per class of blocking endpoint, so a flood of one kind of request
+// (full-collection lobby scans, say) fills only its own queue and is refused there, while in-match actions keep
+// their threads. A full bulkhead rejects at once rather than queueing without bound.
+// Each pool is reported by Micrometer's executor metrics (executor.active, executor.queued,
+// executor.queue.remaining, executor.pool.size, executor timers for run time and queue wait), tagged
+// name=bulkhead-<compartment>, plus bulkhead.rejections.
+// With spring.threads.virtual.enabled=true on a Java 21+ runtime each compartment runs every task on its own
+// virtual thread instead, with semaphores keeping the same limits: at most `threads` tasks running, at most `queue`
+// more waiting for a slot, anything beyond refused at once.
+// Tasks run in the submitter's trace context and FirestoreUsage scope.
+// The pools are deliberately not beans: an Executor bean would replace Boot's applicationTaskExecutor.
+@Component
+public class Bulkheads {
+
+    public enum Compartment {
+        GAME("game"), LOBBY("lobby"), USERS("users"), ADMIN("admin");
+
+        final String label;
+
+        Compartment(String label) {
+            this.label = label;
+        }
+    }
+
+    private final Map<Compartment, ExecutorService> pools = new EnumMap<>(Compartment.class);
+    private final Map<Compartment, ExecutorService> executors = new EnumMap<>(Compartment.class);
+    private final Map<Compartment, LongAdder> rejections = new EnumMap<>(Compartment.class);
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Bulkheads.class);
+
+    public Bulkheads(MeterRegistry meterRegistry,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                     @Value("${bulkhead.game.threads:32}") int gameThreads,
+                     @Value("${bulkhead.game.queue:256}") int gameQueue,
+                     @Value("${bulkhead.lobby.threads:16}") int lobbyThreads,
+                     @Value("${bulkhead.lobby.queue:64}") int lobbyQueue,
+                     @Value("${bulkhead.users.threads:16}") int usersThreads,
+                     @Value("${bulkhead.users.queue:128}") int usersQueue,
+                     @Value("${bulkhead.admin.threads:2}") int adminThreads,
+                     @Value("${bulkhead.admin.queue:8}") int adminQueue) {
+        boolean virtual = virtualThreads && virtualThreadsAvailable();
+        create(meterRegistry, Compartment.GAME, gameThreads, gameQueue, virtual);
+        create(meterRegistry, Compartment.LOBBY, lobbyThreads, lobbyQueue, virtual);
+        create(meterRegistry, Compartment.USERS, usersThreads, usersQueue, virtual);
+        create(meterRegistry, Compartment.ADMIN, adminThreads, adminQueue, virtual);
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        ExecutorService probe = FanOut.newVirtualThreadPerTaskExecutor();
+        if (probe == null) {
+            logger.warn("Virtual threads requested but Java {} has none, bulkheads use platform threads",
+                        Runtime.version().feature());
+            return false;
+        }
+        probe.shutdown();
+        logger.info("Bulkheads use virtual threads");
+        return true;
+    }
+
+    private void create(MeterRegistry registry, Compartment compartment, int threads, int queue, boolean virtual) {
+        ExecutorService pool;
+        if (virtual) {
+            pool = new VirtualCompartment(FanOut.newVirtualThreadPerTaskExecutor(), threads, queue);
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor platform = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), runnable -> {
+                    Thread thread = new Thread(runnable, "bulkhead-" + compartment.label + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            platform.allowCoreThreadTimeOut(true);
+            pool = platform;
+        }
+        LongAdder rejected = new LongAdder();
+        FunctionCounter.builder("bulkhead.rejections", rejected, LongAdder::sum)
+            .description("Tasks refused because the bulkhead's threads and queue were full")
+            .tag("bulkhead", compartment.label)
+            .register(registry);
+
+        pools.put(compartment, pool);
+        executors.put(compartment, ExecutorServiceMetrics.monitor(registry, pool, "bulkhead-" + compartment.label));
+        rejections.put(compartment, rejected);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(ExecutorService::shutdown);
+    }
+
+    // Runs task in the compartment; if it is full the future fails with RejectedExecutionException right away
+    public <T> CompletableFuture<T> supply(Compartment compartment, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executors.get(compartment).execute(wrap(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            rejections.get(compartment).increment();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    // The compartment as a Spring task executor, e.g. for MVC's streaming responses
+    public AsyncTaskExecutor taskExecutor(Compartment compartment) {
+        TaskExecutorAdapter adapter = new TaskExecutorAdapter(executors.get(compartment)) {
+            @Override
+            protected void doExecute(Executor executor, TaskDecorator decorator, Runnable task) {
+                try {
+                    super.doExecute(executor, decorator, task);
+                } catch (RejectedExecutionException e) {
+                    rejections.get(compartment).increment();
+                    throw e;
+                }
+            }
+        };
+        adapter.setTaskDecorator(Bulkheads::wrap);
+        return adapter;
+    }
+
+    private static Runnable wrap(Runnable task) {
+        Context context = Context.current();
+        FirestoreUsage usage = FirestoreUsage.current();
+        return () -> {
+            FirestoreUsage previous = FirestoreUsage.enter(usage);
+            Scope scope = context.makeCurrent();
+            try {
+                task.run();
+            } finally {
+                scope.close();
+                FirestoreUsage.exit(previous);
+            }
+        };
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Compartment compartment : Compartment.values()) {
+            Map<String, Object> bulkhead = new LinkedHashMap<>();
+            if (pools.get(compartment) instanceof ThreadPoolExecutor pool) {
+                bulkhead.put("threads", pool.getMaximumPoolSize());
+                bulkhead.put("active", pool.getActiveCount());
+                bulkhead.put("queued", pool.getQueue().size());
+                bulkhead.put("queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+                bulkhead.put("completed", pool.getCompletedTaskCount());
+            } else if (pools.get(compartment) instanceof VirtualCompartment pool) {
+                bulkhead.put("threads", pool.limit);
+                bulkhead.put("virtual", true);
+                bulkhead.put("active", pool.active());
+                bulkhead.put("queued", pool.queued());
+                bulkhead.put("queueCapacity", pool.queue);
+                bulkhead.put("completed", pool.completed.sum());
+            }
+            bulkhead.put("rejected", rejections.get(compartment).sum());
+            stats.put(compartment.label, bulkhead);
+        }
+        return stats;
+    }
+
+    // A compartment on virtual threads: admitted (running plus waiting) is capped at limit + queue and refused
+    // beyond that, like a full ArrayBlockingQueue; admitted tasks park on a fair semaphore until one of the limit
+    // running slots frees, so they start in submission order as they would from the platform pool's queue.
+    static final class VirtualCompartment extends AbstractExecutorService {
+
+        private final ExecutorService threads;
+        final int limit;
+        final int queue;
+        private final Semaphore admitted;
+        private final Semaphore running;
+        final LongAdder completed = new LongAdder();
+
+        VirtualCompartment(ExecutorService threads, int limit, int queue) {
+            this.threads = threads;
+            this.limit = limit;
+            this.queue = queue;
+            this.admitted = new Semaphore(limit + queue);
+            this.running = new Semaphore(limit, true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (threads.isShutdown()) {
+                throw new RejectedExecutionException("Bulkhead is shut down");
+            }
+            if (!admitted.tryAcquire()) {
+                throw new RejectedExecutionException("Bulkhead is full");
+            }
+            try {
+                threads.execute(() -> {
+                    running.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                        admitted.release();
+                        completed.increment();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admitted.release();
+                throw e;
+            }
+        }
+
+        int active() {
+            return limit - running.availablePermits();
+        }
+
+        int queued() {
+            return Math.max(0, limit + queue - admitted.availablePermits() - active());
+        }
+
+        @Override
+        public void shutdown() {
+            threads.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return threads.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return threads.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return threads.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return threads.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.service;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.cluster.HashRing;
+import com.example.model.Game;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Membership and shard ownership for several backend instances serving one Firestore project. Every node is
+// configured with the same cluster.nodes (base URLs) and its own cluster.self. Nodes probe each other's
+// /internal/cluster/ping every heartbeat; a peer is live from its first answer until it misses failure-threshold
+// probes in a row or a forwarded request cannot connect to it. Game and room IDs are mapped to the live nodes with
+// a HashRing, so each game has exactly one node holding its state, and ShardRoutingFilter sends requests for it
+// there. When the live set changes the ring is rebuilt and ring listeners (GameService) hand over only the state
+// whose owner changed. With cluster.enabled=false every ID is local.
+// Node-to-node calls carry the shared cluster.secret in SECRET_HEADER; the internal auth filters refuse /internal/**
+// requests without it, so only nodes configured with the same secret can ping, hand off or replicate.
+@Service
+public class ClusterService {
+
+    public static final String FORWARDED_HEADER = "X-Shard-Forwarded-By";
+    public static final String OWNER_HEADER = "X-Shard-Owner";
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    public static final String INTERNAL_PREFIX = "/internal/";
+    public static final String PING_PATH = "/internal/cluster/ping";
+    public static final String HANDOFF_PATH = "/internal/cluster/games";
+    public static final String REPLICA_PATH = "/internal/cluster/replicas";
+
+    private final boolean enabled;
+    private final String self;
+    private final String secret;
+    private final byte[] secretBytes;
+    private final List<String> peers = new ArrayList<>();
+    private final int virtualNodes;
+    private final int failureThreshold;
+    private final boolean redirecting;
+    private final Duration heartbeatTimeout;
+    private final Duration forwardTimeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient http;
+
+    private volatile HashRing ring;
+    private final Map<String, Integer> missedHeartbeats = new ConcurrentHashMap<>(); // absent until a peer first answers
+    private final List<BiConsumer<HashRing, HashRing>> ringListeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Counter> routed = new LinkedHashMap<>();
+    private final LongAdder ringChanges = new LongAdder();
+    private final LongAdder handedOffGames = new LongAdder();
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ClusterService.class);
+
+    public ClusterService(MeterRegistry meterRegistry,
+                          ObjectMapper objectMapper,
+                          @Value("${cluster.enabled:false}") boolean enabled,
+                          @Value("${cluster.self:http://localhost:8080}") String self,
+                          @Value("${cluster.secret:}") String secret,
+                          @Value("${cluster.nodes:http://localhost:8080}") List<String> nodes,
+                          @Value("${cluster.virtual-nodes:128}") int virtualNodes,
+                          @Value("${cluster.routing:forward}") String routing,
+                          @Value("${cluster.heartbeat-timeout-ms:500}") long heartbeatTimeoutMs,
+                          @Value("${cluster.failure-threshold:3}") int failureThreshold,
+                          @Value("${cluster.forward-timeout-ms:10000}") long forwardTimeoutMs) {
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException("cluster.secret must be set when cluster.enabled=true");
+        }
+        this.enabled = enabled;
+        this.self = normalize(self);
+        this.secret = secret;
+        this.secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        this.virtualNodes = virtualNodes;
+        this.failureThreshold = failureThreshold;
+        this.redirecting = "redirect".equalsIgnoreCase(routing);
+        this.heartbeatTimeout = Duration.ofMillis(heartbeatTimeoutMs);
+        this.forwardTimeout = Duration.ofMillis(forwardTimeoutMs);
+        this.objectMapper = objectMapper;
+        for (String node : nodes) {
+            String peer = normalize(node);
+            if (!peer.isEmpty() && !peer.equals(this.self) && !peers.contains(peer)) {
+                peers.add(peer);
+            }
+        }
+        this.ring = new HashRing(List.of(this.self), virtualNodes);
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(heartbeatTimeout)
+            .build();
+
+        for (String outcome : List.of("forwarded", "redirected", "unreachable")) {
+            routed.put(outcome, Counter.builder("cluster.routed")
+                .description("Requests for a game or room owned by another node")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+        Gauge.builder("cluster.nodes.live", this, cluster -> cluster.ring.getNodes().size())
+            .description("Nodes currently on the hash ring, this one included")
+            .register(meterRegistry);
+        FunctionCounter.builder("cluster.handoff.games", handedOffGames, LongAdder::sum)
+            .description("Cached games handed to their new owner after a membership change")
+            .register(meterRegistry);
+        if (enabled) {
+            logger.info("Cluster node {} with peers {}", this.self, peers);
+        }
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // True for a node-to-node request carrying the cluster secret; always false while the cluster is off
+    public boolean isAuthorized(String presented) {
+        return enabled && presented != null
+            && MessageDigest.isEqual(secretBytes, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isRedirecting() {
+        return redirecting;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    // Node that owns the game or room ID
+    public String ownerOf(String key) {
+        return enabled ? ring.ownerOf(key) : self;
+    }
+
+    public boolean isLocal(String key) {
+        return self.equals(ownerOf(key));
+    }
+
+    // Node that would own the key if its owner left, i.e. where the owner keeps its backup; null without peers
+    public String backupOf(String key) {
+        return enabled ? ring.successorOf(key) : null;
+    }
+
+    // Called with (previous, current) ring after every membership change, on the thread that noticed it
+    public void addRingListener(BiConsumer<HashRing, HashRing> listener) {
+        ringListeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-interval-ms:1000}")
+    public void heartbeat() {
+        if (!enabled || peers.isEmpty()) {
+            return;
+        }
+        List<CompletableFuture<Void>> probes = new ArrayList<>();
+        for (String peer : peers) {
+            HttpRequest probe = HttpRequest.newBuilder(URI.create(peer + PING_PATH))
+                .timeout(heartbeatTimeout)
+                .header(SECRET_HEADER, secret)
+                .GET()
+                .build();
+            probes.add(http.sendAsync(probe, HttpResponse.BodyHandlers.discarding()).handle((response, error) -> {
+                if (error == null && response.statusCode() == 200) {
+                    missedHeartbeats.put(peer, 0);
+                } else {
+                    missedHeartbeats.computeIfPresent(peer, (node, missed) -> missed + 1);
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new)).thenRun(this::refreshRing);
+    }
+
+    // A forwarded request could not connect: take the peer off the ring now instead of after the missed heartbeats
+    public void reportUnreachable(String peer) {
+        routed.get("unreachable").increment();
+        if (missedHeartbeats.computeIfPresent(peer, (node, missed) -> Math.max(missed, failureThreshold)) != null) {
+            refreshRing();
+        }
+    }
+
+    private boolean isLive(String peer) {
+        Integer missed = missedHeartbeats.get(peer);
+        return missed != null && missed < failureThreshold;
+    }
+
+    private synchronized void refreshRing() {
+        List<String> live = new ArrayList<>();
+        live.add(self);
+        for (String peer : peers) {
+            if (isLive(peer)) {
+                live.add(peer);
+            }
+        }
+        HashRing previous = ring;
+        if (new HashSet<>(live).equals(new HashSet<>(previous.getNodes()))) {
+            return;
+        }
+        HashRing current = new HashRing(live, virtualNodes);
+        ring = current;
+        ringChanges.increment();
+        logger.info("Cluster membership changed: {} -> {}", previous.getNodes(), current.getNodes());
+        for (BiConsumer<HashRing, HashRing> listener : ringListeners) {
+            try {
+                listener.accept(previous, current);
+            } catch (RuntimeException e) {
+                logger.error("Ring listener failed", e);
+            }
+        }
+    }
+
+    // Sends a request on to the owner; the owner serves it locally because of the forwarded-by header
+    public <T> CompletableFuture<HttpResponse<T>> forward(String owner, String method, String pathAndQuery,
+                                                          Map<String, List<String>> headers, byte[] body,
+                                                          HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(owner + pathAndQuery))
+            .timeout(forwardTimeout)
+            .method(method, body.length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach((name, values) -> values.forEach(value -> request.header(name, value)));
+        request.header(FORWARDED_HEADER, self);
+        request.header(SECRET_HEADER, secret);
+        return http.sendAsync(request.build(), bodyHandler);
+    }
+
+    public void recordRouted(String outcome) {
+        routed.get(outcome).increment();
+    }
+
+    // True when the failure means the owner could not be reached at all, so the request was never delivered
+    public static boolean isUnreachable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Pushes cached games to their new owner so it need not reload them; on failure the owner reads Firestore
+    public void handOff(String owner, List<Game> games) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(games);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize {} games for handoff to {}", games.size(), owner, e);
+            return;
+        }
+        forward(owner, "POST", HANDOFF_PATH, Map.of("Content-Type", List.of("application/json")), body,
+                HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                if (error == null && response.statusCode() == 200) {
+                    handedOffGames.add(games.size());
+                    logger.info("Handed {} games to {}", games.size(), owner);
+                } else {
+                    logger.warn("Handoff of {} games to {} failed, it will load them from Firestore",
+                                games.size(), owner, error);
+                }
+            });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("self", self);
+        stats.put("routing", redirecting ? "redirect" : "forward");
+        stats.put("liveNodes", ring.getNodes());
+        Map<String, Object> peerStates = new LinkedHashMap<>();
+        for (String peer : peers) {
+            Integer missed = missedHeartbeats.get(peer);
+            peerStates.put(peer, missed == null ? "unknown" : isLive(peer) ? "live" : "down");
+        }
+        stats.put("peers", peerStates);
+        stats.put("virtualNodes", virtualNodes);
+        stats.put("ringChanges", ringChanges.sum());
+        Map<String, Object> routedCounts = new LinkedHashMap<>();
+        routed.forEach((outcome, counter) -> routedCounts.put(outcome, (long) counter.count()));
+        stats.put("routed", routedCounts);
+        stats.put("handedOffGames", handedOffGames.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.service;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.accounting.FirestoreUsage;
+
+import jakarta.annotation.PreDestroy;
+
+// Runs independent blocking Firestore calls in parallel. Concurrency is capped by a semaphore sized to what
+// Firestore should see from one instance, not by the thread count.
+// With spring.threads.virtual.enabled=true on a Java 21+ runtime every task gets its own virtual thread (the same
+// switch moves Tomcat and async MVC onto virtual threads); otherwise a fixed platform pool is used.
+// Tasks account their Firestore usage to the caller's FirestoreUsage scope.
+// The executor is deliberately not a bean: an Executor bean would replace Boot's applicationTaskExecutor.
+@Component
+public class FanOut {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FanOut.class);
+
+    public FanOut(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                  @Value("${fanout.platform-threads:32}") int platformThreads,
+                  @Value("${fanout.max-concurrency:64}") int maxConcurrency) {
+        this.executor = createExecutor(virtualThreads, platformThreads);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Runs all tasks and returns their results in order; the first failure is rethrown after all tasks finish
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) throws ExecutionException, InterruptedException {
+        FirestoreUsage usage = FirestoreUsage.current();
+        List<Callable<T>> bounded = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            bounded.add(() -> {
+                permits.acquire();
+                FirestoreUsage previous = FirestoreUsage.enter(usage);
+                try {
+                    return task.call();
+                } finally {
+                    FirestoreUsage.exit(previous);
+                    permits.release();
+                }
+            });
+        }
+
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> future : executor.invokeAll(bounded)) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static ExecutorService createExecutor(boolean virtualThreads, int platformThreads) {
+        if (virtualThreads) {
+            ExecutorService executor = newVirtualThreadPerTaskExecutor();
+            if (executor != null) {
+                logger.info("Fan-out uses virtual threads");
+                return executor;
+            }
+            logger.warn("Virtual threads requested but Java {} has none, fan-out uses {} platform threads",
+                        Runtime.version().feature(), platformThreads);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, runnable -> {
+            Thread thread = new Thread(runnable, "fanout-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // The build targets Java 17, so the Java 21 factory method is looked up at runtime; null before Java 21
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+}
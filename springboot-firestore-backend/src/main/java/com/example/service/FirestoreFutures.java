@@ -0,0 +1,54 @@
+package com.example.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.example.accounting.FirestoreUsage;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+// Bridges Firestore's ApiFuture to CompletableFuture without parking a thread on get().
+// Callbacks run on the Firestore client's executor, so continuations should stay short. They run in the
+// caller's trace context and FirestoreUsage scope, so Firestore calls made from a continuation join the caller's
+// trace and are accounted to the caller.
+final class FirestoreFutures {
+
+    private FirestoreFutures() {
+    }
+
+    static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Context context = Context.current();
+        FirestoreUsage usage = FirestoreUsage.current();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                FirestoreUsage previous = FirestoreUsage.enter(usage);
+                Scope scope = context.makeCurrent();
+                try {
+                    result.complete(value);
+                } finally {
+                    scope.close();
+                    FirestoreUsage.exit(previous);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                FirestoreUsage previous = FirestoreUsage.enter(usage);
+                Scope scope = context.makeCurrent();
+                try {
+                    result.completeExceptionally(error);
+                } finally {
+                    scope.close();
+                    FirestoreUsage.exit(previous);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+}
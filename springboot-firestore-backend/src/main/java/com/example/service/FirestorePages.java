@@ -0,0 +1,61 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import com.example.model.Page;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+// Walks a collection in document-ID order one bounded page at a time, so memory use
+// does not depend on the collection size
+public final class FirestorePages {
+
+    // Receives items one by one, e.g. to write them straight to a response stream
+    public interface ItemWriter<T> {
+        void write(T item) throws IOException;
+    }
+
+    private FirestorePages() {
+    }
+
+    static <T> Page<T> page(CollectionReference collection, Class<T> type, String startAfter, int limit)
+            throws ExecutionException, InterruptedException {
+        // One extra document tells whether there is a next page without another round trip
+        List<QueryDocumentSnapshot> documents = query(collection, startAfter, limit + 1).get().get().getDocuments();
+        boolean hasMore = documents.size() > limit;
+
+        List<T> items = new ArrayList<>(Math.min(documents.size(), limit));
+        for (int i = 0; i < documents.size() && i < limit; i++) {
+            items.add(documents.get(i).toObject(type));
+        }
+        return new Page<>(items, hasMore ? documents.get(limit - 1).getId() : null);
+    }
+
+    // Streams the whole collection; the next page is requested before the current one is written out
+    static <T> void forEach(CollectionReference collection, Class<T> type, int pageSize, ItemWriter<? super T> writer)
+            throws ExecutionException, InterruptedException, IOException {
+        ApiFuture<QuerySnapshot> pending = query(collection, null, pageSize).get();
+        while (pending != null) {
+            List<QueryDocumentSnapshot> documents = pending.get().getDocuments();
+            pending = documents.size() < pageSize
+                ? null
+                : query(collection, documents.get(documents.size() - 1).getId(), pageSize).get();
+
+            for (QueryDocumentSnapshot document : documents) {
+                writer.write(document.toObject(type));
+            }
+        }
+    }
+
+    static Query query(CollectionReference collection, String startAfter, int limit) {
+        Query query = collection.orderBy(FieldPath.documentId()).limit(limit);
+        return startAfter != null ? query.startAfter(startAfter) : query;
+    }
+}
@@ -1,28 +1,73 @@
 package com.example.service;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
+import com.example.cache.GameCache;
+import com.example.cache.NegativeCache;
+import com.example.cache.SingleFlight;
+import com.example.cluster.HashRing;
 import com.example.model.Game;
 import com.example.model.GameAction;
+import com.example.model.Page;
 import com.example.model.Player;
 import com.example.model.Room;
+import com.example.profiling.ActionProcessedEvent;
+import com.example.profiling.CacheMissEvent;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import reactor.core.publisher.Flux;
+
 @Service
 public class GameService {
 
     private final Firestore firestore;
-    private final Map<String, Game> activeGames = new HashMap<>(); // In-memory cache
+    private final SettlementService settlementService;
+    private final MatchStatsService matchStats;
+    private final ClusterService cluster;
+    private final ReplicationService replication;
+    private final GameCache activeGames; // Bounded in-memory cache
+    private final SingleFlight<String, Game> gameLoads = new SingleFlight<>(); // Coalesces concurrent cache misses
+    private final NegativeCache missingGames; // Recently looked-up IDs that do not exist
+    private final boolean gameSyncEnabled;
+    private volatile ListenerRegistration gamesListener; // Keeps cached running games in sync with external writes
+    // After a listener error the cached running games are untrusted (external writes may have been missed) until the
+    // re-registered listener's first snapshot has reconciled them; it is re-registered with exponential backoff
+    private static final long RESUBSCRIBE_MIN_DELAY_MS = 1000;
+    private static final long RESUBSCRIBE_MAX_DELAY_MS = 60_000;
+    private volatile boolean gamesSynced;
+    private volatile boolean stopped;
+    private long resubscribeDelayMs = RESUBSCRIBE_MIN_DELAY_MS; // guarded by this
+    private final Map<String, OperationTimer> actionTimers = new HashMap<>(); // game.actions, by action type
 
     // Constants for game mechanics
     private static final int MOVE_SPEED = 8;
@@ -33,9 +78,137 @@ public class GameService {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GameService.class);
 
     @Autowired
-    public GameService(Firestore firestore) {
+    public GameService(Firestore firestore,
+                       SettlementService settlementService,
+                       MatchStatsService matchStats,
+                       ClusterService cluster,
+                       ReplicationService replication,
+                       MeterRegistry meterRegistry,
+                       ObjectProvider<Tracer> tracer,
+                       @Value("${game.cache.max-entries:10000}") int cacheMaxEntries,
+                       @Value("${game.cache.max-weight-bytes:67108864}") long cacheMaxWeightBytes,
+                       @Value("${game.cache.running-idle-timeout-ms:1800000}") long runningIdleTimeoutMs,
+                       @Value("${game.lookup.negative-ttl-ms:5000}") long negativeTtlMs,
+                       @Value("${game.lookup.negative-max-entries:100000}") int negativeMaxEntries,
+                       @Value("${firestore.sync.enabled:true}") boolean gameSyncEnabled) {
         this.firestore = firestore;
-        logger.info("GameService initialized with Firestore dependency");
+        this.settlementService = settlementService;
+        this.matchStats = matchStats;
+        this.cluster = cluster;
+        this.replication = replication;
+        this.gameSyncEnabled = gameSyncEnabled;
+        this.activeGames = new GameCache(cacheMaxEntries, cacheMaxWeightBytes, runningIdleTimeoutMs);
+        this.missingGames = new NegativeCache(negativeTtlMs, negativeMaxEntries);
+
+        // Action types are a fixed set so a client can't grow the tag space
+        Tracer actionTracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        for (String type : List.of("move", "attack", "jump", "other")) {
+            actionTimers.put(type, new OperationTimer(meterRegistry, actionTracer, "game.actions",
+                "Player action processing, including the Firestore write", "GameService.processAction", "type", type));
+        }
+        Gauge.builder("game.cache.size", activeGames, GameCache::size)
+            .description("Games held in the in-memory cache")
+            .register(meterRegistry);
+        Gauge.builder("game.cache.hit.ratio", activeGames, GameService::hitRatio)
+            .description("Share of game lookups served from the cache")
+            .register(meterRegistry);
+        cluster.addRingListener(this::onRingChanged);
+        logger.info("GameService initialized with Firestore dependency (cache: {} entries, {} bytes)",
+                    cacheMaxEntries, cacheMaxWeightBytes);
+    }
+
+    // 🔄 Listen to running games so cached copies pick up writes made outside this service
+    @EventListener(ApplicationReadyEvent.class)
+    public void startGameSync() {
+        if (!gameSyncEnabled) {
+            return;
+        }
+        gamesListener = firestore.collection("games").whereEqualTo("status", "running")
+            .addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    onGameSyncError(error);
+                    return;
+                }
+                applyGameChanges(snapshot);
+            });
+        logger.info("Games listener registered");
+    }
+
+    @PreDestroy
+    public void stopGameSync() {
+        stopped = true;
+        ListenerRegistration registration = gamesListener;
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    // The listener is dead after an error: mark the cached games untrusted and subscribe again later
+    private synchronized void onGameSyncError(Throwable error) {
+        gamesSynced = false;
+        ListenerRegistration registration = gamesListener;
+        if (registration != null) {
+            registration.remove();
+        }
+        long delayMs = resubscribeDelayMs;
+        resubscribeDelayMs = Math.min(delayMs * 2, RESUBSCRIBE_MAX_DELAY_MS);
+        logger.error("Games listener failed, cached games may go stale; re-registering in {} ms", delayMs, error);
+        CompletableFuture.runAsync(() -> {
+            if (!stopped) {
+                startGameSync();
+            }
+        }, CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void applyGameChanges(QuerySnapshot snapshot) {
+        if (!gamesSynced) {
+            reconcileRunningGames(snapshot);
+        }
+
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            QueryDocumentSnapshot document = change.getDocument();
+
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                // Left the running set: finished or deleted elsewhere unless we finished it ourselves
+                Game cached = activeGames.peek(document.getId());
+                if (cached != null && !"finished".equals(cached.getStatus())) {
+                    activeGames.remove(document.getId());
+                }
+                continue;
+            }
+
+            // Only games we already hold are refreshed; older versions and echoes of our own writes are ignored
+            if (activeGames.contains(document.getId())) {
+                Game game = document.toObject(Game.class);
+                game.setId(document.getId());
+                activeGames.replaceIfNewer(game, toVersion(document.getUpdateTime()));
+            }
+        }
+    }
+
+    // First snapshot of a (re-)registered listener: it holds every running game, so a cached running game missing
+    // from it left the running set while nobody was listening and is dropped like a REMOVED change would drop it
+    private void reconcileRunningGames(QuerySnapshot snapshot) {
+        Set<String> runningIds = new HashSet<>();
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            runningIds.add(document.getId());
+        }
+        int dropped = 0;
+        for (Game cached : activeGames.games()) {
+            if ("running".equals(cached.getStatus()) && !runningIds.contains(cached.getId())) {
+                activeGames.remove(cached.getId());
+                dropped++;
+            }
+        }
+        synchronized (this) {
+            resubscribeDelayMs = RESUBSCRIBE_MIN_DELAY_MS;
+        }
+        gamesSynced = true;
+        logger.info("Games cache in sync with Firestore: {} running games, {} stale games dropped", runningIds.size(), dropped);
+    }
+
+    private static long toVersion(Timestamp updateTime) {
+        return updateTime.getSeconds() * 1_000_000L + updateTime.getNanos() / 1_000;
     }
 
     // 🎮 Create new game
@@ -47,8 +220,12 @@ public class GameService {
         player1.setX(0);
         player2.setX(CANVAS_WIDTH - PLAYER_WIDTH);
 
-        // Store in memory and Firestore
-        activeGames.put(game.getId(), game);
+        // Store in memory and Firestore; in a cluster only the owner caches it, other nodes forward to the owner
+        if (cluster.isLocal(game.getId())) {
+            activeGames.put(game);
+            replication.replicate(game);
+        }
+        missingGames.invalidate(game.getId());
         firestore.collection("games").document(game.getId()).set(game).get();
 
         logger.info("Game created: {}", game.getId());
@@ -62,10 +239,16 @@ public class GameService {
         // Create players from room data
         Player player1 = new Player(room.getHostId(), room.getHostName());
         Player player2 = new Player(room.getGuestId(), room.getGuestName());
+        player1.setCharacter(characterId(room.getHostCharacter()));
+        player2.setCharacter(characterId(room.getGuestCharacter()));
         
         // Create and configure the game
         Game game = new Game(player1, player2);
         game.setStatus("running");
+        game.setRoomId(room.getRoomId());
+        // Unique per match (rematches in the same room get a new game and settlement), sharded by the room's ID,
+        // so room actions and the game land on one node
+        game.setId(HashRing.childKey(room.getRoomId(), UUID.randomUUID().toString()));
 
         // Initial positions
         player1.setX(0);
@@ -74,29 +257,184 @@ public class GameService {
         player2.setY(0);
 
         // Store in memory and Firestore
-        activeGames.put(game.getId(), game);
+        activeGames.put(game);
+        replication.replicate(game);
+        missingGames.invalidate(game.getId());
         firestore.collection("games").document(game.getId()).set(game).get();
 
         logger.info("Room game created: {} for room: {}", game.getId(), room.getRoomId());
         return game;
     }
 
+    private static String characterId(Map<String, Object> character) {
+        Object id = character != null ? character.get("id") : null;
+        return id != null ? id.toString() : null;
+    }
+
+    // 🔀 Membership changed: games another node now owns leave the cache, and live ones are pushed to the new owner.
+    // Consistent hashing keeps this to the games whose owner actually changed.
+    // Replicas of games whose primary left are promoted, and games whose backup changed are sent to the new one.
+    private void onRingChanged(HashRing previous, HashRing current) {
+        Map<String, List<Game>> moved = new HashMap<>();
+        int evicted = 0;
+        for (Game game : activeGames.games()) {
+            String owner = current.ownerOf(game.getId());
+            if (owner.equals(cluster.getSelf())) {
+                if ("running".equals(game.getStatus())
+                        && !Objects.equals(previous.successorOf(game.getId()), current.successorOf(game.getId()))) {
+                    replication.replicate(game);
+                }
+                continue;
+            }
+            activeGames.remove(game.getId());
+            replication.forget(game.getId());
+            evicted++;
+            if ("running".equals(game.getStatus())) {
+                moved.computeIfAbsent(owner, node -> new ArrayList<>()).add(game);
+            }
+        }
+        if (evicted > 0) {
+            logger.info("Released {} games now owned by other nodes", evicted);
+        }
+        moved.forEach(cluster::handOff);
+
+        replication.promote(current, this::installPromoted);
+    }
+
+    // 🔀 A game this node just took over, requested before the ring listener promoted its replica
+    // (or while it was promoting it: the claim then waits for that and the game is found in the cache)
+    private Game takeOverReplica(String gameId) {
+        replication.promote(gameId, this::installPromoted);
+        return activeGames.peek(gameId);
+    }
+
+    private void installPromoted(Game game) {
+        if (activeGames.peek(game.getId()) == null) {
+            activeGames.put(game);
+            missingGames.invalidate(game.getId());
+        }
+        replication.replicate(game);
+    }
+
+    // 🔀 Games handed over by their previous owner
+    public int adoptGames(List<Game> games) {
+        int adopted = 0;
+        for (Game game : games) {
+            if (game.getId() != null && cluster.isLocal(game.getId())) {
+                activeGames.put(game);
+                replication.replicate(game);
+                missingGames.invalidate(game.getId());
+                adopted++;
+            }
+        }
+        return adopted;
+    }
+
     // 📦 Get game by ID
     public Game getGame(String gameId) throws ExecutionException, InterruptedException {
-        if (activeGames.containsKey(gameId)) {
-            return activeGames.get(gameId);
+        Game cachedGame = activeGames.get(gameId);
+        if (cachedGame != null) {
+            return cachedGame;
+        }
+        Game promoted = takeOverReplica(gameId);
+        if (promoted != null) {
+            return promoted;
         }
 
-        DocumentReference docRef = firestore.collection("games").document(gameId);
-        DocumentSnapshot document = docRef.get().get();
+        if (missingGames.isKnownMissing(gameId)) {
+            return null;
+        }
+
+        // Concurrent misses for the same ID share one Firestore read
+        return gameLoads.load(gameId, () -> loadGameAsync(gameId).get());
+    }
+
+    // 📦 Get game by ID without blocking the caller while Firestore is read
+    public CompletableFuture<Game> getGameAsync(String gameId) {
+        Game cachedGame = activeGames.get(gameId);
+        if (cachedGame != null) {
+            return CompletableFuture.completedFuture(cachedGame);
+        }
+        Game promoted = takeOverReplica(gameId);
+        if (promoted != null) {
+            return CompletableFuture.completedFuture(promoted);
+        }
+
+        if (missingGames.isKnownMissing(gameId)) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-        if (document.exists()) {
-            Game game = document.toObject(Game.class);
-            activeGames.put(gameId, game);
-            return game;
+        return gameLoads.loadAsync(gameId, () -> loadGameAsync(gameId));
+    }
+
+    private CompletableFuture<Game> loadGameAsync(String gameId) {
+        // Another request may have cached the game while we were waiting to become the loader
+        Game cachedGame = activeGames.get(gameId);
+        if (cachedGame != null) {
+            return CompletableFuture.completedFuture(cachedGame);
         }
 
-        return null;
+        DocumentReference docRef = firestore.collection("games").document(gameId);
+        return CacheMissEvent.timeLoad("games", gameId, () -> FirestoreFutures.toCompletable(docRef.get()).thenApply(document -> {
+            if (document.exists()) {
+                Game game = document.toObject(Game.class);
+                activeGames.put(game);
+                return game;
+            }
+
+            missingGames.markMissing(gameId);
+            return null;
+        }));
+    }
+
+    // 📊 Cache metrics
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = activeGames.stats();
+        stats.put("firestoreLoads", gameLoads.getLoads());
+        stats.put("coalescedLoads", gameLoads.getCoalesced());
+        stats.put("negativeEntries", missingGames.size());
+        stats.put("negativeHits", missingGames.getHits());
+        stats.put("listenerSynced", gamesSynced);
+        return stats;
+    }
+
+    // 📋 Page of games in ID order, starting after the cursor
+    public Page<Game> getGamesPage(String startAfter, int limit) throws ExecutionException, InterruptedException {
+        return FirestorePages.page(firestore.collection("games"), Game.class, startAfter, limit);
+    }
+
+    // 📋 Stream all games page by page without loading the whole collection
+    public void streamGames(int pageSize, FirestorePages.ItemWriter<? super Game> writer)
+            throws ExecutionException, InterruptedException, IOException {
+        FirestorePages.forEach(firestore.collection("games"), Game.class, pageSize, writer);
+    }
+
+    // 📋 Games as a Flux for the reactive API; Firestore pages are fetched on demand
+    public Flux<Game> gamesFlux(int pageSize) {
+        return ReactiveFirestore.documents(firestore.collection("games"), Game.class, pageSize);
+    }
+
+    // 📡 Live updates of one game until it finishes; slow subscribers only get the latest state
+    public Flux<Game> gameUpdates(String gameId) {
+        return Flux.<Game>create(sink -> {
+            ListenerRegistration registration = firestore.collection("games").document(gameId)
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null) {
+                        sink.error(error);
+                        return;
+                    }
+                    if (snapshot == null || !snapshot.exists()) {
+                        sink.complete();
+                        return;
+                    }
+                    Game game = snapshot.toObject(Game.class);
+                    sink.next(game);
+                    if ("finished".equals(game.getStatus())) {
+                        sink.complete();
+                    }
+                });
+            sink.onDispose(registration::remove);
+        }).onBackpressureLatest();
     }
 
     // 📋 Get all games
@@ -111,11 +449,65 @@ public class GameService {
         return games;
     }
 
+    private static double hitRatio(GameCache cache) {
+        long hits = cache.getHits();
+        long lookups = hits + cache.getMisses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private OperationTimer actionTimer(GameAction action) {
+        OperationTimer timer = action.getActionType() != null ? actionTimers.get(action.getActionType()) : null;
+        return timer != null ? timer : actionTimers.get("other");
+    }
+
     // ⚔️ Process player action
     public Game processAction(GameAction action) throws ExecutionException, InterruptedException {
-        Game game = getGame(action.getGameId());
+        return actionTimer(action).record(() -> {
+            ActionProcessedEvent event = new ActionProcessedEvent();
+            event.begin();
+            try {
+                Game game = getGame(action.getGameId());
+
+                if (!applyAction(game, action)) {
+                    commitActionEvent(event, action, "rejected");
+                    return null;
+                }
+
+                Game saved = persistAsync(game).get();
+                commitActionEvent(event, action, "applied");
+                return saved;
+            } catch (ExecutionException | InterruptedException | RuntimeException e) {
+                commitActionEvent(event, action, "error");
+                throw e;
+            }
+        });
+    }
 
-        if (game == null || !"running".equals(game.getStatus())) return null;
+    // ⚔️ Process player action; the servlet thread is released while Firestore reads and writes are in flight
+    public CompletableFuture<Game> processActionAsync(GameAction action) {
+        ActionProcessedEvent event = new ActionProcessedEvent();
+        event.begin();
+        return actionTimer(action).recordAsync(() -> getGameAsync(action.getGameId()).thenCompose(game -> {
+            if (!applyAction(game, action)) {
+                return CompletableFuture.<Game>completedFuture(null);
+            }
+            return persistAsync(game);
+        }).whenComplete((game, error) ->
+            commitActionEvent(event, action, error != null ? "error" : game == null ? "rejected" : "applied")));
+    }
+
+    private static void commitActionEvent(ActionProcessedEvent event, GameAction action, String outcome) {
+        if (event.shouldCommit()) {
+            event.gameId = action.getGameId();
+            event.actionType = action.getActionType();
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    // Applies the action to the game state in place; false if the game isn't running or the player isn't in it
+    private boolean applyAction(Game game, GameAction action) {
+        if (game == null || !"running".equals(game.getStatus())) return false;
 
         Player player, opponent;
 
@@ -126,7 +518,7 @@ public class GameService {
             player = game.getPlayer2();
             opponent = game.getPlayer1();
         } else {
-            return null; // Invalid player
+            return false; // Invalid player
         }
 
         switch (action.getActionType()) {
@@ -148,14 +540,17 @@ public class GameService {
             if (game.getPlayer1().getWins() >= 2) {
                 game.setStatus("finished");
                 game.setWinner(game.getPlayer1().getName());
+                game.setWinnerId(game.getPlayer1().getId());
+                matchStats.recordMatch(game.getPlayer1().getCharacter(), game.getPlayer2().getCharacter());
             } else if (game.getPlayer2().getWins() >= 2) {
                 game.setStatus("finished");
                 game.setWinner(game.getPlayer2().getName());
+                game.setWinnerId(game.getPlayer2().getId());
+                matchStats.recordMatch(game.getPlayer2().getCharacter(), game.getPlayer1().getCharacter());
             }
         }
 
-        updateGame(game);
-        return game;
+        return true;
     }
 
     // ⬅️➡️ Move logic
@@ -207,16 +602,41 @@ public class GameService {
                         defender.getHealth(), damage, newHealth);
             defender.setHealth(newHealth);
             defender.setCurrentAnimation("getHit");
+            matchStats.recordAttack(attacker.getCharacter(), attackType, true, damage);
             
             logger.debug("Defender health after hit: {}", defender.getHealth());
         } else {
             logger.debug("Attack missed!");
+            matchStats.recordAttack(attacker.getCharacter(), attackType, false, 0);
         }
     }
 
     // 💾 Save to Firestore and update cache
-    private void updateGame(Game game) throws ExecutionException, InterruptedException {
-        activeGames.put(game.getId(), game);
-        firestore.collection("games").document(game.getId()).set(game).get();
+    // 🏁 A finishing move is written by the settlement transaction together with the room and the rewards
+    private CompletableFuture<Game> persistAsync(Game game) {
+        if (!"finished".equals(game.getStatus())) {
+            return updateGameAsync(game);
+        }
+
+        activeGames.put(game);
+        replication.replicate(game);
+        missingGames.invalidate(game.getId());
+        return settlementService.settleAsync(game).thenApply(settledNow -> game);
+    }
+
+    // 🏁 Settlement counters
+    public Map<String, Object> getSettlementStats() {
+        return settlementService.getStats();
+    }
+
+    private CompletableFuture<Game> updateGameAsync(Game game) {
+        activeGames.put(game);
+        replication.replicate(game); // the backup is updated asynchronously, not after the Firestore write
+        missingGames.invalidate(game.getId());
+        return FirestoreFutures.toCompletable(firestore.collection("games").document(game.getId()).set(game))
+            .thenApply(result -> {
+                activeGames.recordVersion(game.getId(), toVersion(result.getUpdateTime()));
+                return game;
+            });
     }
 }
@@ -0,0 +1,103 @@
+package com.example.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token buckets per key (player ID, client IP) using the generic cell rate algorithm: each bucket is a single
+// "theoretical arrival time" (TAT) that advances by one emission interval per admitted request, so refill is
+// arithmetic on the clock at the time of the check - no timers, no background threads, one CAS per request.
+// A bucket whose TAT has passed is full and carries no information, which makes it free to drop: the key map is
+// bounded by sweeping full buckets when it reaches maxKeys. If every bucket is still in use (e.g. a flood of new
+// IPs), new keys share one overflow bucket until the sweep can free space again.
+final class GcraLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong nextSweepAt = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    // ratePerSecond requests per second sustained, bursts of up to burst requests
+    GcraLimiter(double ratePerSecond, int burst, int maxKeys) {
+        if (ratePerSecond <= 0 || burst < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("rate, burst and maxKeys must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    // Takes a token for key; returns 0 if the request is admitted, otherwise the nanoseconds until it would be
+    long tryAcquire(String key, long nowNanos) {
+        long wait = tryAcquire(bucket(key, nowNanos), nowNanos);
+        if (wait > 0) {
+            rejections.increment();
+        }
+        return wait;
+    }
+
+    private long tryAcquire(AtomicLong tat, long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            // Compared as differences so the arithmetic holds across nanoTime wrap-around
+            long start = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long next = start + intervalNanos;
+            long wait = next - toleranceNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys && !sweep(nowNanos)) {
+            overflowed.increment();
+            return overflow;
+        }
+        bucket = new AtomicLong(Long.MIN_VALUE);
+        AtomicLong raced = buckets.putIfAbsent(key, bucket);
+        return raced != null ? raced : bucket;
+    }
+
+    // Drops full buckets; runs at most once per emission interval and returns whether there is room afterwards
+    private boolean sweep(long nowNanos) {
+        long due = nextSweepAt.get();
+        if ((due != Long.MIN_VALUE && nowNanos - due < 0) || !nextSweepAt.compareAndSet(due, nowNanos + intervalNanos)) {
+            return buckets.size() < maxKeys;
+        }
+        Iterator<AtomicLong> it = buckets.values().iterator();
+        while (it.hasNext()) {
+            long tat = it.next().get();
+            if (tat == Long.MIN_VALUE || tat - nowNanos <= 0) {
+                it.remove();
+            }
+        }
+        return buckets.size() < maxKeys;
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    long getRejections() {
+        return rejections.sum();
+    }
+
+    // Requests that went to the shared overflow bucket because the key map was full
+    long getOverflowed() {
+        return overflowed.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.service;
+
+import com.example.model.User;
+
+// Glicko-2 rating system (Glickman, "Example of the Glicko-2 system").
+// Ratings are kept on the Glicko scale (1500 / 350 / 0.06 for a new player); the rating shown to players
+// is that value shifted by DISPLAY_OFFSET so a new player still starts at the historical 100.
+final class Glicko2 {
+
+    static final double DEFAULT_RATING = 1500;
+    static final double DEFAULT_DEVIATION = 350;
+    static final double DEFAULT_VOLATILITY = 0.06;
+    static final int DISPLAY_OFFSET = 1400;
+
+    private static final double SCALE = 173.7178;
+    private static final double MAX_PHI = DEFAULT_DEVIATION / SCALE;
+    private static final double EPSILON = 0.000001;
+
+    private Glicko2() {
+    }
+
+    record Rating(double rating, double deviation, double volatility) {
+
+        static final Rating DEFAULT = new Rating(DEFAULT_RATING, DEFAULT_DEVIATION, DEFAULT_VOLATILITY);
+
+        int displayRating() {
+            return Math.max(0, (int) Math.round(rating - DISPLAY_OFFSET));
+        }
+
+        void applyTo(User user) {
+            user.setGlickoRating(rating);
+            user.setGlickoDeviation(deviation);
+            user.setGlickoVolatility(volatility);
+            user.setRating(displayRating());
+        }
+    }
+
+    // Profiles written before Glicko-2 have no deviation yet: they start from their displayed rating
+    // with the deviation of a new player, so the first few matches settle them quickly
+    static Rating of(User user) {
+        if (user.getGlickoDeviation() <= 0) {
+            return new Rating(user.getRating() + DISPLAY_OFFSET, DEFAULT_DEVIATION, DEFAULT_VOLATILITY);
+        }
+        return new Rating(user.getGlickoRating(), user.getGlickoDeviation(), user.getGlickoVolatility());
+    }
+
+    // One-game rating period: the incremental update applied when a match is settled
+    static Rating rate(Rating player, Rating opponent, double score, double tau) {
+        double[] out = new double[3];
+        rate(toMu(player.rating()), toPhi(player.deviation()), player.volatility(),
+            new int[] {0}, new double[] {score}, 0, 1,
+            new double[] {toMu(opponent.rating())}, new double[] {toPhi(opponent.deviation())}, tau, out);
+        return new Rating(fromMu(out[0]), fromPhi(out[1]), out[2]);
+    }
+
+    // Update for one rating period on the internal Glicko-2 scale. The player's games are
+    // opponents[from..to) (indices into mus/phis, the opponents' pre-period values) with scores[from..to).
+    // Writes {mu, phi, sigma} to out; allocation-free so the batch recompute can call it from many threads.
+    static void rate(double mu, double phi, double sigma, int[] opponents, double[] scores, int from, int to,
+                     double[] mus, double[] phis, double tau, double[] out) {
+        if (from == to) {
+            out[0] = mu;
+            out[1] = idlePhi(phi, sigma);
+            out[2] = sigma;
+            return;
+        }
+
+        double vInverse = 0;
+        double improvement = 0;
+        for (int i = from; i < to; i++) {
+            int opponent = opponents[i];
+            double g = g(phis[opponent]);
+            double e = 1 / (1 + Math.exp(-g * (mu - mus[opponent])));
+            vInverse += g * g * e * (1 - e);
+            improvement += g * (scores[i] - e);
+        }
+        double v = 1 / vInverse;
+        double delta = v * improvement;
+
+        double newSigma = volatility(phi, sigma, v, delta, tau);
+        double phiStar = Math.sqrt(phi * phi + newSigma * newSigma);
+        double newPhi = Math.min(1 / Math.sqrt(1 / (phiStar * phiStar) + vInverse), MAX_PHI);
+
+        out[0] = mu + newPhi * newPhi * improvement;
+        out[1] = newPhi;
+        out[2] = newSigma;
+    }
+
+    // Deviation of a player who didn't play during a rating period
+    static double idlePhi(double phi, double sigma) {
+        return Math.min(Math.sqrt(phi * phi + sigma * sigma), MAX_PHI);
+    }
+
+    static double toMu(double rating) {
+        return (rating - DEFAULT_RATING) / SCALE;
+    }
+
+    static double toPhi(double deviation) {
+        return deviation / SCALE;
+    }
+
+    static double fromMu(double mu) {
+        return mu * SCALE + DEFAULT_RATING;
+    }
+
+    static double fromPhi(double phi) {
+        return phi * SCALE;
+    }
+
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    // Step 5: new volatility by the Illinois variant of regula falsi
+    private static double volatility(double phi, double sigma, double v, double delta, double tau) {
+        double a = Math.log(sigma * sigma);
+        double phi2 = phi * phi;
+        double delta2 = delta * delta;
+
+        double lower = a;
+        double upper;
+        if (delta2 > phi2 + v) {
+            upper = Math.log(delta2 - phi2 - v);
+        } else {
+            int k = 1;
+            while (f(a - k * tau, delta2, phi2, v, a, tau) < 0) {
+                k++;
+            }
+            upper = a - k * tau;
+        }
+
+        double fLower = f(lower, delta2, phi2, v, a, tau);
+        double fUpper = f(upper, delta2, phi2, v, a, tau);
+        while (Math.abs(upper - lower) > EPSILON) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = f(c, delta2, phi2, v, a, tau);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower /= 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    private static double f(double x, double delta2, double phi2, double v, double a, double tau) {
+        double ex = Math.exp(x);
+        double d = phi2 + v + ex;
+        return ex * (delta2 - phi2 - v - ex) / (2 * d * d) - (x - a) / (tau * tau);
+    }
+}
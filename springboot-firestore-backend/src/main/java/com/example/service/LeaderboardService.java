@@ -0,0 +1,313 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import com.example.model.LeaderboardEntry;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+// Рейтинговая таблица в памяти: индексированный skip list по рейтингу.
+// По умолчанию её ведёт слушатель коллекции users: первый снимок заменяет начальную загрузку, дальше приходят
+// изменения с временем записи, и более старая версия игрока никогда не затирает более новую. Так каждый узел
+// кластера видит все изменения рейтинга, а не только сделанные им самим. При ошибке слушатель переподключается.
+// Без синхронизации (firestore.sync.enabled=false) таблица загружается постранично один раз (только поля name
+// и rating) и дальше обновляется из UserService; игроки, изменённые во время загрузки, ею не перезаписываются.
+@Service
+public class LeaderboardService {
+
+    private static final long RESUBSCRIBE_MIN_DELAY_MS = 1000;
+    private static final long RESUBSCRIBE_MAX_DELAY_MS = 60_000;
+
+    private final Firestore firestore;
+    private final RankedSkipList ranking = new RankedSkipList();
+    private final Map<String, Long> versions = new HashMap<>(); // время записи (мкс) по игроку, под lock
+    private final Set<String> changedDuringLoad = new HashSet<>(); // под lock, пока идёт загрузка
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int loadPageSize;
+    private final boolean syncEnabled;
+    private volatile ListenerRegistration usersListener;
+    private volatile boolean loading;
+    private volatile boolean loaded;
+    private volatile boolean stopped;
+    private long resubscribeDelayMs = RESUBSCRIBE_MIN_DELAY_MS; // под this
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LeaderboardService.class);
+
+    public LeaderboardService(Firestore firestore,
+                              @Value("${leaderboard.load-page-size:1000}") int loadPageSize,
+                              @Value("${firestore.sync.enabled:true}") boolean syncEnabled) {
+        this.firestore = firestore;
+        this.loadPageSize = loadPageSize;
+        this.syncEnabled = syncEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (syncEnabled) {
+            startSync();
+        } else {
+            loadPages();
+        }
+    }
+
+    @PreDestroy
+    public void stopSync() {
+        stopped = true;
+        ListenerRegistration registration = usersListener;
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    private void startSync() {
+        usersListener = firestore.collection("users").addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                onSyncError(error);
+                return;
+            }
+            applyUserChanges(snapshot);
+        });
+        logger.info("Leaderboard listener registered");
+    }
+
+    private void applyUserChanges(QuerySnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot document = change.getDocument();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    ranking.remove(document.getId());
+                    versions.remove(document.getId());
+                } else {
+                    putIfNewer(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!loaded) {
+            loaded = true;
+            synchronized (this) {
+                resubscribeDelayMs = RESUBSCRIBE_MIN_DELAY_MS;
+            }
+            logger.info("Leaderboard in sync with Firestore: {} players", size());
+        }
+    }
+
+    // Слушатель после ошибки мёртв: подписываемся заново с растущей паузой. Таблица остаётся (слегка устаревшей),
+    // новый первый снимок приносит все документы, и версии отсеивают то, что уже известно.
+    private synchronized void onSyncError(Throwable error) {
+        ListenerRegistration registration = usersListener;
+        if (registration != null) {
+            registration.remove();
+        }
+        long delayMs = resubscribeDelayMs;
+        resubscribeDelayMs = Math.min(delayMs * 2, RESUBSCRIBE_MAX_DELAY_MS);
+        logger.error("Leaderboard listener failed, re-registering in {} ms", delayMs, error);
+        CompletableFuture.runAsync(() -> {
+            if (!stopped) {
+                startSync();
+            }
+        }, CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void loadPages() {
+        loading = true;
+        try {
+            long start = System.currentTimeMillis();
+            int count = 0;
+            QueryDocumentSnapshot last = null;
+            while (true) {
+                Query page = firestore.collection("users")
+                    .select("name", "rating")
+                    .orderBy(FieldPath.documentId())
+                    .limit(loadPageSize);
+                if (last != null) {
+                    page = page.startAfter(last);
+                }
+                QuerySnapshot snapshot = page.get().get();
+                List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+
+                lock.writeLock().lock();
+                try {
+                    for (QueryDocumentSnapshot document : documents) {
+                        // Изменение, пришедшее во время загрузки, новее прочитанной страницы
+                        if (!changedDuringLoad.contains(document.getId())) {
+                            putIfNewer(document);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                count += documents.size();
+                if (documents.size() < loadPageSize) {
+                    break;
+                }
+                last = documents.get(documents.size() - 1);
+            }
+            loaded = true;
+            logger.info("Leaderboard loaded: {} players in {} ms", count, System.currentTimeMillis() - start);
+        } catch (ExecutionException | InterruptedException e) {
+            logger.error("Failed to load leaderboard", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+                changedDuringLoad.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Под write lock
+    private void putIfNewer(DocumentSnapshot document) {
+        Timestamp updateTime = document.getUpdateTime();
+        long version = updateTime != null ? updateTime.getSeconds() * 1_000_000L + updateTime.getNanos() / 1_000 : 0;
+        Long held = versions.get(document.getId());
+        if (held != null && held >= version) {
+            return;
+        }
+        versions.put(document.getId(), version);
+        Long rating = document.getLong("rating");
+        ranking.put(document.getId(), document.getString("name"), rating != null ? rating.intValue() : 0);
+    }
+
+    // Вызывается при любом изменении рейтинга или имени игрока. Со слушателем изменение придёт от него
+    // (с версией и на всех узлах), поэтому локальные уведомления нужны только без синхронизации.
+    public void onRatingChanged(String userId, String name, int rating) {
+        if (syncEnabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ranking.put(userId, name, rating);
+            markChanged(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Новый рейтинг без имени (пакетный пересчёт): имя берём из таблицы, неизвестных игроков пропускаем
+    public void onRatingChanged(String userId, int rating) {
+        if (syncEnabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            RankedSkipList.Node node = ranking.get(userId);
+            if (node != null) {
+                ranking.put(userId, node.name, rating);
+            }
+            markChanged(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onUserRemoved(String userId) {
+        if (syncEnabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ranking.remove(userId);
+            markChanged(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Под write lock
+    private void markChanged(String userId) {
+        if (loading) {
+            changedDuringLoad.add(userId);
+        }
+    }
+
+    // Топ-N игроков
+    public List<LeaderboardEntry> getTop(int limit) {
+        lock.readLock().lock();
+        try {
+            return toEntries(1, ranking.range(1, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Позиция игрока, или null если его нет в таблице
+    public LeaderboardEntry getEntry(String userId) {
+        lock.readLock().lock();
+        try {
+            int position = ranking.rankOf(userId);
+            if (position == 0) {
+                return null;
+            }
+            RankedSkipList.Node node = ranking.get(userId);
+            return new LeaderboardEntry(position, node.userId, node.name, node.rating);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Игроки вокруг заданного: radius позиций выше и ниже
+    public List<LeaderboardEntry> getAround(String userId, int radius) {
+        lock.readLock().lock();
+        try {
+            int position = ranking.rankOf(userId);
+            if (position == 0) {
+                return null;
+            }
+            int from = Math.max(1, position - radius);
+            return toEntries(from, ranking.range(from, position - from + radius + 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ranking.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private static List<LeaderboardEntry> toEntries(int fromPosition, List<RankedSkipList.Node> nodes) {
+        List<LeaderboardEntry> entries = new ArrayList<>(nodes.size());
+        int position = fromPosition;
+        for (RankedSkipList.Node node : nodes) {
+            entries.add(new LeaderboardEntry(position++, node.userId, node.name, node.rating));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Real-time character, matchup and move statistics, fed by GameService as actions are applied.
+// Everything is lock-free WindowedCounters reached through ConcurrentHashMap lookups, so recording costs
+// two map lookups and a handful of striped increments on the action path. Counts are per instance and start empty on restart;
+// the match archive holds the durable history.
+@Service
+public class MatchStatsService {
+
+    static final String UNKNOWN = "unknown";
+    static final String OTHER = "other";
+
+    // Fields of the result counters (per character and per matchup) and of the move counters
+    private static final int MATCHES = 0;
+    private static final int WINS = 1;
+    private static final int ATTEMPTS = 0;
+    private static final int LANDED = 1;
+    private static final int DAMAGE = 2;
+    private static final Supplier<WindowedCounter> RESULT_COUNTER = () -> new WindowedCounter(2);
+    private static final Supplier<WindowedCounter> MOVE_COUNTER = () -> new WindowedCounter(3);
+
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, CharacterStats> characters = new ConcurrentHashMap<>();
+
+    public MatchStatsService(@Value("${stats.max-keys:64}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    void recordAttack(String character, String move, boolean landed, int damage) {
+        long now = System.currentTimeMillis();
+        WindowedCounter stats = lookup(lookup(characters, character, CharacterStats::new).moves, move, MOVE_COUNTER);
+        if (landed) {
+            stats.add(now, 1, 1, damage);
+        } else {
+            stats.add(now, 1);
+        }
+    }
+
+    void recordMatch(String winnerCharacter, String loserCharacter) {
+        long now = System.currentTimeMillis();
+        CharacterStats winner = lookup(characters, winnerCharacter, CharacterStats::new);
+        CharacterStats loser = lookup(characters, loserCharacter, CharacterStats::new);
+        winner.results.add(now, 1, 1);
+        loser.results.add(now, 1);
+        lookup(winner.matchups, loserCharacter, RESULT_COUNTER).add(now, 1, 1);
+        lookup(loser.matchups, winnerCharacter, RESULT_COUNTER).add(now, 1);
+    }
+
+    // Per character: matches, wins, moves and matchups over the window ("1m", "1h", "1d"), or all time for null
+    public Map<String, Object> getCharacterStats(String windowLabel) {
+        WindowedCounter.Window window = windowLabel == null ? null : WindowedCounter.Window.fromLabel(windowLabel);
+        if (windowLabel != null && window == null) {
+            throw new IllegalArgumentException("Unknown window: " + windowLabel);
+        }
+        long now = System.currentTimeMillis();
+
+        List<Map.Entry<String, CharacterStats>> entries = new ArrayList<>(characters.entrySet());
+        entries.sort(Comparator.comparing(Map.Entry::getKey));
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, CharacterStats> entry : entries) {
+            CharacterStats stats = entry.getValue();
+            long matches = stats.results.read(MATCHES, window, now);
+            long wins = stats.results.read(WINS, window, now);
+
+            Map<String, Object> character = new LinkedHashMap<>();
+            character.put("matches", matches);
+            character.put("wins", wins);
+            character.put("winRate", ratio(wins, matches));
+
+            Map<String, Object> moves = new LinkedHashMap<>();
+            stats.moves.forEach((name, move) -> {
+                long attempts = move.read(ATTEMPTS, window, now);
+                long landed = move.read(LANDED, window, now);
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("attempts", attempts);
+                values.put("landed", landed);
+                values.put("hitRate", ratio(landed, attempts));
+                values.put("damage", move.read(DAMAGE, window, now));
+                moves.put(name, values);
+            });
+            character.put("moves", moves);
+
+            Map<String, Object> matchups = new LinkedHashMap<>();
+            stats.matchups.forEach((opponent, matchup) -> {
+                long played = matchup.read(MATCHES, window, now);
+                long won = matchup.read(WINS, window, now);
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("matches", played);
+                values.put("wins", won);
+                values.put("winRate", ratio(won, played));
+                matchups.put(opponent, values);
+            });
+            character.put("matchups", matchups);
+
+            result.put(entry.getKey(), character);
+        }
+        return result;
+    }
+
+    // Missing keys become "unknown"; past maxKeys distinct keys new ones are pooled under "other",
+    // so client-supplied names can't grow the maps without bound
+    private <V> V lookup(ConcurrentHashMap<String, V> map, String key, Supplier<V> factory) {
+        String name = key != null ? key : UNKNOWN;
+        V value = map.get(name);
+        if (value != null) {
+            return value;
+        }
+        if (map.size() >= maxKeys) {
+            name = OTHER;
+        }
+        return map.computeIfAbsent(name, k -> factory.get());
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0.0 : (double) part / whole;
+    }
+
+    private static final class CharacterStats {
+        final WindowedCounter results = RESULT_COUNTER.get();
+        final ConcurrentHashMap<String, WindowedCounter> moves = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, WindowedCounter> matchups = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.profiling.ActionProcessedEvent;
+import com.example.profiling.CacheMissEvent;
+import com.example.profiling.FirestoreCallEvent;
+import com.example.profiling.ServiceOperationEvent;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+// On-demand Java Flight Recorder recordings for the admin profiling endpoint. One recording at a time,
+// bounded in duration and size; it writes to profiling.directory when stopped (or when its duration runs out),
+// and only the newest profiling.keep-recordings files are kept. The JFR "profile" settings add allocation and
+// method sampling to the app's own events (ActionProcessed, FirestoreCall, CacheMiss, ServiceOperation).
+// Endpoints are refused unless profiling.admin-token is set and sent in the X-Admin-Token header.
+@Service
+public class ProfilingService {
+
+    private static final List<Class<? extends jdk.jfr.Event>> APP_EVENTS = List.of(
+        ActionProcessedEvent.class, FirestoreCallEvent.class, CacheMissEvent.class, ServiceOperationEvent.class);
+
+    private final Path directory;
+    private final byte[] adminToken;
+    private final long maxDurationSeconds;
+    private final long maxSizeMb;
+    private final int keepRecordings;
+    private final ExecutorService executor;
+
+    private Recording recording; // guarded by this
+    private Path recordingFile; // guarded by this
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ProfilingService.class);
+
+    public ProfilingService(@Value("${profiling.directory:data/profiling}") String directory,
+                            @Value("${profiling.admin-token:}") String adminToken,
+                            @Value("${profiling.max-duration-seconds:600}") long maxDurationSeconds,
+                            @Value("${profiling.max-size-mb:256}") long maxSizeMb,
+                            @Value("${profiling.keep-recordings:5}") int keepRecordings) {
+        this.directory = Path.of(directory);
+        this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxSizeMb = maxSizeMb;
+        this.keepRecordings = keepRecordings;
+        // Stopping a recording writes its file, so that happens off the request threads
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "profiling");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        synchronized (this) {
+            if (recording != null) {
+                recording.close();
+            }
+        }
+    }
+
+    public boolean isAuthorized(String token) {
+        return adminToken.length > 0 && token != null
+            && MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Starts a recording; durations and sizes are capped by the configured limits
+    public synchronized Map<String, Object> start(long durationSeconds, long sizeMb, String settings)
+            throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        if (!"profile".equals(settings) && !"default".equals(settings)) {
+            throw new IllegalArgumentException("settings must be 'profile' or 'default'");
+        }
+        if (recording != null) {
+            recording.close();
+        }
+
+        Files.createDirectories(directory);
+        deleteOldRecordings();
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        for (Class<? extends jdk.jfr.Event> eventType : APP_EVENTS) {
+            started.enable(eventType).withThreshold(Duration.ZERO);
+        }
+        long seconds = Math.max(1, Math.min(durationSeconds, maxDurationSeconds));
+        Path file = directory.resolve("recording-" + System.currentTimeMillis() + ".jfr");
+        started.setName("on-demand " + file.getFileName());
+        started.setDuration(Duration.ofSeconds(seconds));
+        started.setMaxSize(Math.max(1, Math.min(sizeMb, maxSizeMb)) * 1024 * 1024);
+        started.setToDisk(true);
+        started.setDestination(file);
+        started.start();
+
+        recording = started;
+        recordingFile = file;
+        logger.info("Started JFR recording {} ({} s, {} settings)", file, seconds, settings);
+        return getStatus();
+    }
+
+    // Stops the running recording (if any) and completes with its file, or null if nothing was recorded
+    public CompletableFuture<Path> stopAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                if (recording == null) {
+                    return null;
+                }
+                if (recording.getState() == RecordingState.RUNNING) {
+                    recording.stop();
+                    logger.info("Stopped JFR recording {}", recordingFile);
+                }
+                return Files.exists(recordingFile) ? recordingFile : null;
+            }
+        }, executor);
+    }
+
+    // File of the last finished recording, e.g. one that ran out its duration
+    public synchronized Path getLastRecording() {
+        if (recording == null || recording.getState() == RecordingState.RUNNING || !Files.exists(recordingFile)) {
+            return null;
+        }
+        return recordingFile;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", adminToken.length > 0);
+        status.put("state", recording == null ? "NONE" : recording.getState().name());
+        if (recording != null) {
+            status.put("file", recordingFile.toString());
+            status.put("startedAt", recording.getStartTime() != null ? recording.getStartTime().toEpochMilli() : null);
+            status.put("durationSeconds", recording.getDuration() != null ? recording.getDuration().toSeconds() : null);
+            status.put("maxSizeBytes", recording.getMaxSize());
+            status.put("sizeBytes", recording.getSize());
+        }
+        status.put("maxDurationSeconds", maxDurationSeconds);
+        status.put("maxSizeMb", maxSizeMb);
+        return status;
+    }
+
+    private void deleteOldRecordings() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(".jfr"))
+                .sorted((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()))
+                .toList();
+        }
+        // Room for the recording about to start
+        for (Path old : files.subList(Math.min(files.size(), Math.max(0, keepRecordings - 1)), files.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Indexed skip list of players ordered by rating (highest first, ties by user ID).
+// Every forward link stores its span (how many level-0 nodes it skips), so rank lookups and
+// access by rank are O(log n), like Redis sorted sets. Not thread-safe: LeaderboardService guards it.
+class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    static final class Node {
+        final String userId;
+        final int rating;
+        String name;
+        final Node[] next;
+        final int[] span;
+
+        Node(String userId, String name, int rating, int level) {
+            this.userId = userId;
+            this.name = name;
+            this.rating = rating;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+
+    private final Node head = new Node(null, null, Integer.MAX_VALUE, MAX_LEVEL);
+    private final Map<String, Node> nodes = new HashMap<>();
+    private int level = 1;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    // Inserts the player or moves them to their new position
+    void put(String userId, String name, int rating) {
+        Node existing = nodes.get(userId);
+        if (existing != null) {
+            if (existing.rating == rating) {
+                existing.name = name;
+                return;
+            }
+            delete(existing);
+        }
+        insert(userId, name, rating);
+    }
+
+    void remove(String userId) {
+        Node existing = nodes.get(userId);
+        if (existing != null) {
+            delete(existing);
+        }
+    }
+
+    Node get(String userId) {
+        return nodes.get(userId);
+    }
+
+    // 1-based position of the player, or 0 if absent
+    int rankOf(String userId) {
+        Node node = nodes.get(userId);
+        if (node == null) {
+            return 0;
+        }
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.rating, node.userId) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    // Player at the given 1-based position, or null if out of range
+    Node byRank(int rank) {
+        if (rank < 1 || rank > size) {
+            return null;
+        }
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    // Up to count players starting at the given 1-based position
+    List<Node> range(int fromRank, int count) {
+        List<Node> result = new ArrayList<>(Math.max(0, Math.min(count, size)));
+        Node x = byRank(Math.max(1, fromRank));
+        while (x != null && result.size() < count) {
+            result.add(x);
+            x = x.next[0];
+        }
+        return result;
+    }
+
+    void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        nodes.clear();
+        level = 1;
+        size = 0;
+    }
+
+    private void insert(String userId, String name, int rating) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], rating, userId) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = newLevel;
+        }
+
+        x = new Node(userId, name, rating, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            x.next[i] = update[i].next[i];
+            update[i].next[i] = x;
+            x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+
+        nodes.put(userId, x);
+        size++;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.rating, node.userId) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+
+        nodes.remove(node.userId);
+        size--;
+    }
+
+    // Negative if node sorts before (rating, userId)
+    private static int compare(Node node, int rating, String userId) {
+        if (node.rating != rating) {
+            return node.rating > rating ? -1 : 1;
+        }
+        return node.userId.compareTo(userId);
+    }
+
+    private static int randomLevel() {
+        int newLevel = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (newLevel < MAX_LEVEL && random.nextDouble() < LEVEL_PROBABILITY) {
+            newLevel++;
+        }
+        return newLevel;
+    }
+}
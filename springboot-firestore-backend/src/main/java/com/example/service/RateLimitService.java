@@ -0,0 +1,107 @@
+package com.example.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Input rate limits for the endpoints where every request costs a Firestore write: game actions
+// (/games/action, /api/games/action, /api/rooms/{roomId}/action) and the lobby (create and join room).
+// Each class has a per-player and a per-client-IP token bucket (GcraLimiter); a request must get a token from both.
+// A check is a map lookup and a CAS per bucket. The client IP is the connection's remote address, so behind a
+// proxy set server.forward-headers-strategy for it to be the real client.
+@Service
+public class RateLimitService {
+
+    private final boolean enabled;
+    private final GcraLimiter actionPlayer;
+    private final GcraLimiter actionIp;
+    private final GcraLimiter lobbyPlayer;
+    private final GcraLimiter lobbyIp;
+
+    public RateLimitService(MeterRegistry meterRegistry,
+                            @Value("${rate-limit.enabled:true}") boolean enabled,
+                            @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                            @Value("${rate-limit.action.player.rate:20}") double actionPlayerRate,
+                            @Value("${rate-limit.action.player.burst:40}") int actionPlayerBurst,
+                            @Value("${rate-limit.action.ip.rate:60}") double actionIpRate,
+                            @Value("${rate-limit.action.ip.burst:120}") int actionIpBurst,
+                            @Value("${rate-limit.lobby.player.rate:1}") double lobbyPlayerRate,
+                            @Value("${rate-limit.lobby.player.burst:5}") int lobbyPlayerBurst,
+                            @Value("${rate-limit.lobby.ip.rate:5}") double lobbyIpRate,
+                            @Value("${rate-limit.lobby.ip.burst:20}") int lobbyIpBurst) {
+        this.enabled = enabled;
+        this.actionPlayer = limiter(meterRegistry, "action", "player", actionPlayerRate, actionPlayerBurst, maxKeys);
+        this.actionIp = limiter(meterRegistry, "action", "ip", actionIpRate, actionIpBurst, maxKeys);
+        this.lobbyPlayer = limiter(meterRegistry, "lobby", "player", lobbyPlayerRate, lobbyPlayerBurst, maxKeys);
+        this.lobbyIp = limiter(meterRegistry, "lobby", "ip", lobbyIpRate, lobbyIpBurst, maxKeys);
+    }
+
+    private static GcraLimiter limiter(MeterRegistry registry, String endpoint, String key, double rate, int burst,
+                                       int maxKeys) {
+        GcraLimiter limiter = new GcraLimiter(rate, burst, maxKeys);
+        FunctionCounter.builder("ratelimit.rejections", limiter, GcraLimiter::getRejections)
+            .description("Requests refused with 429")
+            .tag("endpoint", endpoint)
+            .tag("key", key)
+            .register(registry);
+        Gauge.builder("ratelimit.keys", limiter, GcraLimiter::size)
+            .description("Players or client IPs currently tracked")
+            .tag("endpoint", endpoint)
+            .tag("key", key)
+            .register(registry);
+        return limiter;
+    }
+
+    // Returns 0 if the game action may proceed, otherwise the nanoseconds after which it may be retried
+    public long checkAction(String playerId, String clientIp) {
+        return check(actionPlayer, actionIp, playerId, clientIp);
+    }
+
+    // Same for room creation and joining
+    public long checkLobby(String playerId, String clientIp) {
+        return check(lobbyPlayer, lobbyIp, playerId, clientIp);
+    }
+
+    private long check(GcraLimiter byPlayer, GcraLimiter byIp, String playerId, String clientIp) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (clientIp != null) {
+            long wait = byIp.tryAcquire(clientIp, now);
+            if (wait > 0) {
+                return wait;
+            }
+        }
+        return playerId != null ? byPlayer.tryAcquire(playerId, now) : 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("action", stats(actionPlayer, actionIp));
+        stats.put("lobby", stats(lobbyPlayer, lobbyIp));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(GcraLimiter byPlayer, GcraLimiter byIp) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("player", stats(byPlayer));
+        stats.put("ip", stats(byIp));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(GcraLimiter limiter) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", limiter.size());
+        stats.put("rejections", limiter.getRejections());
+        stats.put("overflowed", limiter.getOverflowed());
+        return stats;
+    }
+}
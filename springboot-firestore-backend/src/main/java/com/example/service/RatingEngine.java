@@ -0,0 +1,39 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.model.User;
+
+// Incremental Glicko-2 updates: every settled match is rated as its own rating period for both players,
+// each against the opponent's pre-match rating. RatingRecomputeService replays the full history with real periods.
+@Service
+public class RatingEngine {
+
+    private final double tau;
+
+    public RatingEngine(@Value("${rating.glicko.tau:0.5}") double tau) {
+        this.tau = tau;
+    }
+
+    double tau() {
+        return tau;
+    }
+
+    // New ratings for both players of a finished match; a missing profile plays as a new player
+    MatchRatings rateMatch(User winner, User loser) {
+        Glicko2.Rating winnerRating = winner != null ? Glicko2.of(winner) : Glicko2.Rating.DEFAULT;
+        Glicko2.Rating loserRating = loser != null ? Glicko2.of(loser) : Glicko2.Rating.DEFAULT;
+        return new MatchRatings(
+            Glicko2.rate(winnerRating, loserRating, 1, tau),
+            Glicko2.rate(loserRating, winnerRating, 0, tau));
+    }
+
+    // Result reported without an opponent (PUT /api/users/{id}/rating): rated against a new player
+    Glicko2.Rating rateAgainstReference(User user, boolean isWin) {
+        return Glicko2.rate(Glicko2.of(user), Glicko2.Rating.DEFAULT, isWin ? 1 : 0, tau);
+    }
+
+    record MatchRatings(Glicko2.Rating winner, Glicko2.Rating loser) {
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.model.User;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.FailedPreconditionException;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteResult;
+
+import io.grpc.Status;
+
+// Offline Glicko-2 recompute: replays the whole match history (the settlements collection) from scratch
+// in fixed rating periods and overwrites every player's rating.
+// Periods are applied in order; inside a period every player's update only reads the opponents' pre-period
+// ratings, so the players of one period are rated in parallel on a fork/join pool.
+// History is held in primitive arrays (16 bytes per match), so millions of matches fit comfortably in memory.
+// Players whose profile was written after the run started (a match settled meanwhile, a manual rating change)
+// keep their live rating: each overwrite is conditioned on the profile's update time read before the write.
+@Service
+public class RatingRecomputeService {
+
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    private final Firestore firestore;
+    private final UserService userService;
+    private final double tau;
+    private final long periodMs;
+    private final int parallelism;
+    private final int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastRun = Map.of("status", "idle");
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RatingRecomputeService.class);
+
+    public RatingRecomputeService(Firestore firestore,
+                                  UserService userService,
+                                  RatingEngine ratingEngine,
+                                  @Value("${rating.recompute.period-hours:24}") long periodHours,
+                                  @Value("${rating.recompute.parallelism:0}") int parallelism,
+                                  @Value("${rating.recompute.page-size:5000}") int pageSize) {
+        this.firestore = firestore;
+        this.userService = userService;
+        this.tau = ratingEngine.tau();
+        this.periodMs = periodHours * 3_600_000L;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pageSize = pageSize;
+    }
+
+    // Starts a recompute in the background; false if one is already running
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", "running");
+        status.put("startedAt", System.currentTimeMillis());
+        lastRun = status;
+
+        Thread thread = new Thread(() -> {
+            try {
+                lastRun = recompute();
+            } catch (Exception e) {
+                logger.error("Rating recompute failed", e);
+                Map<String, Object> failed = new LinkedHashMap<>(status);
+                failed.put("status", "failed");
+                failed.put("error", e.getMessage());
+                lastRun = failed;
+            } finally {
+                running.set(false);
+            }
+        }, "rating-recompute");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Map<String, Object> getStatus() {
+        return lastRun;
+    }
+
+    private Map<String, Object> recompute() throws ExecutionException, InterruptedException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "done");
+        result.put("startedAt", System.currentTimeMillis());
+
+        Timestamp startedAt = Timestamp.now();
+        long start = System.currentTimeMillis();
+        MatchHistory history = loadHistory();
+        long loaded = System.currentTimeMillis();
+
+        int players = history.players.size();
+        double[] mu = new double[players];
+        double[] phi = new double[players];
+        double[] sigma = new double[players];
+        Arrays.fill(phi, Glicko2.toPhi(Glicko2.DEFAULT_DEVIATION));
+        Arrays.fill(sigma, Glicko2.DEFAULT_VOLATILITY);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int periods;
+        try {
+            periods = replay(history, mu, phi, sigma, pool);
+        } finally {
+            pool.shutdown();
+        }
+        long computed = System.currentTimeMillis();
+
+        long[] outcome = write(history.players, mu, phi, sigma, startedAt);
+        long written = System.currentTimeMillis();
+
+        result.put("matches", history.size);
+        result.put("players", players);
+        result.put("periods", periods);
+        result.put("loadMs", loaded - start);
+        result.put("computeMs", computed - loaded);
+        result.put("writeMs", written - computed);
+        result.put("written", outcome[0]);
+        result.put("skipped", outcome[1]);
+        result.put("failed", outcome[2]);
+        logger.info("Rating recompute: {} matches, {} players, {} periods; load {} ms, compute {} ms, write {} ms; {} skipped",
+            history.size, players, periods, loaded - start, computed - loaded, written - computed, outcome[1]);
+        return result;
+    }
+
+    // Settlements in settledAt order, reading only the fields the replay needs; the next page is
+    // requested before the current one is indexed
+    private MatchHistory loadHistory() throws ExecutionException, InterruptedException {
+        MatchHistory history = new MatchHistory();
+        Query base = firestore.collection("settlements")
+            .select("winnerId", "loserId", "settledAt")
+            .orderBy("settledAt")
+            .limit(pageSize);
+
+        ApiFuture<QuerySnapshot> pending = base.get();
+        while (pending != null) {
+            List<QueryDocumentSnapshot> documents = pending.get().getDocuments();
+            pending = documents.size() < pageSize ? null : base.startAfter(documents.get(documents.size() - 1)).get();
+
+            for (QueryDocumentSnapshot document : documents) {
+                String winnerId = document.getString("winnerId");
+                String loserId = document.getString("loserId");
+                Timestamp settledAt = document.getTimestamp("settledAt");
+                if (winnerId != null && loserId != null && settledAt != null) {
+                    history.add(winnerId, loserId, settledAt.toDate().getTime());
+                }
+            }
+        }
+        return history;
+    }
+
+    // Applies every rating period in order; returns the number of periods
+    private int replay(MatchHistory history, double[] mu, double[] phi, double[] sigma, ForkJoinPool pool) {
+        int players = mu.length;
+        int[] games = new int[players];      // games per player in the current period
+        int[] offsets = new int[players];    // first slot of the player's games in opponents/scores
+        int[] active = new int[players];
+        int[] opponents = new int[0];
+        double[] scores = new double[0];
+        double[] next = new double[0];       // {mu, phi, sigma} per active player, written by the parallel pass
+
+        int periods = 0;
+        int from = 0;
+        while (from < history.size) {
+            long period = history.times[from] / periodMs;
+            int to = from;
+            while (to < history.size && history.times[to] / periodMs == period) {
+                to++;
+            }
+
+            int activeCount = 0;
+            for (int i = from; i < to; i++) {
+                if (games[history.winners[i]]++ == 0) {
+                    active[activeCount++] = history.winners[i];
+                }
+                if (games[history.losers[i]]++ == 0) {
+                    active[activeCount++] = history.losers[i];
+                }
+            }
+            int slots = 0;
+            for (int k = 0; k < activeCount; k++) {
+                offsets[active[k]] = slots;
+                slots += games[active[k]];
+            }
+            if (opponents.length < slots) {
+                opponents = new int[slots];
+                scores = new double[slots];
+            }
+            if (next.length < activeCount * 3) {
+                next = new double[activeCount * 3];
+            }
+
+            // offsets[] serves as the fill cursor and is rewound afterwards
+            for (int i = from; i < to; i++) {
+                int winner = history.winners[i];
+                int loser = history.losers[i];
+                opponents[offsets[winner]] = loser;
+                scores[offsets[winner]++] = 1;
+                opponents[offsets[loser]] = winner;
+                scores[offsets[loser]++] = 0;
+            }
+            for (int k = 0; k < activeCount; k++) {
+                offsets[active[k]] -= games[active[k]];
+            }
+
+            int[] periodOpponents = opponents;
+            double[] periodScores = scores;
+            double[] periodNext = next;
+            int periodActive = activeCount;
+            pool.invoke(new RangeTask(0, activeCount, (lo, hi) -> {
+                double[] out = new double[3];
+                for (int k = lo; k < hi; k++) {
+                    int player = active[k];
+                    Glicko2.rate(mu[player], phi[player], sigma[player], periodOpponents, periodScores,
+                        offsets[player], offsets[player] + games[player], mu, phi, tau, out);
+                    System.arraycopy(out, 0, periodNext, k * 3, 3);
+                }
+            }));
+            // Players who sat this period out only become less certain
+            pool.invoke(new RangeTask(0, players, (lo, hi) -> {
+                for (int player = lo; player < hi; player++) {
+                    if (games[player] == 0) {
+                        phi[player] = Glicko2.idlePhi(phi[player], sigma[player]);
+                    }
+                }
+            }));
+            for (int k = 0; k < periodActive; k++) {
+                int player = active[k];
+                mu[player] = next[k * 3];
+                phi[player] = next[k * 3 + 1];
+                sigma[player] = next[k * 3 + 2];
+                games[player] = 0;
+            }
+
+            periods++;
+            from = to;
+        }
+        return periods;
+    }
+
+    // Overwrites rating state through a BulkWriter (batched, rate-limited, retried); returns {written, skipped, failed}.
+    // Profiles are read page by page first: one written since the run started is skipped, and every overwrite
+    // carries the update time it was read at, so a write landing between the read and the overwrite wins too.
+    // Players whose profile no longer exists are only counted as failed.
+    private long[] write(List<String> players, double[] mu, double[] phi, double[] sigma, Timestamp startedAt)
+            throws ExecutionException, InterruptedException {
+        AtomicLong written = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        BulkWriter writer = firestore.bulkWriter();
+        for (int from = 0; from < players.size(); from += pageSize) {
+            int to = Math.min(from + pageSize, players.size());
+            DocumentReference[] refs = new DocumentReference[to - from];
+            for (int player = from; player < to; player++) {
+                refs[player - from] = firestore.collection("users").document(players.get(player));
+            }
+            List<DocumentSnapshot> documents = firestore.getAll(refs, FieldMask.of("rating")).get();
+
+            for (int player = from; player < to; player++) {
+                String userId = players.get(player);
+                DocumentSnapshot document = documents.get(player - from);
+                if (!document.exists()) {
+                    failed.incrementAndGet();
+                    continue;
+                }
+                if (document.getUpdateTime().compareTo(startedAt) > 0) {
+                    skipped.incrementAndGet(); // rated live while the recompute ran
+                    continue;
+                }
+                Glicko2.Rating rating = new Glicko2.Rating(Glicko2.fromMu(mu[player]), Glicko2.fromPhi(phi[player]), sigma[player]);
+
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("rating", rating.displayRating());
+                updates.put("rank", User.rankFor(rating.displayRating()));
+                updates.put("glickoRating", rating.rating());
+                updates.put("glickoDeviation", rating.deviation());
+                updates.put("glickoVolatility", rating.volatility());
+
+                ApiFuture<WriteResult> write = writer.update(document.getReference(), updates,
+                    Precondition.updatedAt(document.getUpdateTime()));
+                FirestoreFutures.toCompletable(write).whenComplete((result, error) -> {
+                    if (error == null) {
+                        written.incrementAndGet();
+                        userService.onRatingRecomputed(userId, rating.displayRating());
+                    } else if (isFailedPrecondition(error)) {
+                        skipped.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+        }
+        writer.close();
+        return new long[] {written.get(), skipped.get(), failed.get()};
+    }
+
+    private static boolean isFailedPrecondition(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof FailedPreconditionException) {
+                return true;
+            }
+            if (e instanceof FirestoreException firestoreError && firestoreError.getStatus() != null
+                    && firestoreError.getStatus().getCode() == Status.Code.FAILED_PRECONDITION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Matches in time order as parallel primitive arrays; players are interned to dense indices
+    private static final class MatchHistory {
+        final List<String> players = new ArrayList<>();
+        final Map<String, Integer> index = new HashMap<>();
+        int[] winners = new int[1024];
+        int[] losers = new int[1024];
+        long[] times = new long[1024];
+        int size;
+
+        void add(String winnerId, String loserId, long time) {
+            if (size == times.length) {
+                winners = Arrays.copyOf(winners, size * 2);
+                losers = Arrays.copyOf(losers, size * 2);
+                times = Arrays.copyOf(times, size * 2);
+            }
+            winners[size] = intern(winnerId);
+            losers[size] = intern(loserId);
+            times[size] = time;
+            size++;
+        }
+
+        private int intern(String userId) {
+            Integer existing = index.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            index.put(userId, players.size());
+            players.add(userId);
+            return players.size() - 1;
+        }
+    }
+
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    // Splits [from, to) in halves until a chunk is small enough to run directly
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient RangeBody body; // tasks are never serialized
+
+        RangeTask(int from, int to, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, body), new RangeTask(middle, to, body));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.service;
+
+import java.util.function.Supplier;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reactor view of Firestore for the reactive profile. Calls are lazy (nothing is sent until subscription)
+// and collections are read page by page only as fast as the subscriber requests items.
+final class ReactiveFirestore {
+
+    private ReactiveFirestore() {
+    }
+
+    static <T> Mono<T> mono(Supplier<ApiFuture<T>> call) {
+        return Mono.fromFuture(() -> FirestoreFutures.toCompletable(call.get()));
+    }
+
+    static <T> Flux<T> documents(CollectionReference collection, Class<T> type, int pageSize) {
+        return page(collection, null, pageSize)
+            .expand(snapshot -> snapshot.size() < pageSize
+                ? Mono.empty()
+                : page(collection, snapshot.getDocuments().get(snapshot.size() - 1).getId(), pageSize))
+            // Prefetch of one page: the next query is issued only once the current page is being drained
+            .concatMapIterable(QuerySnapshot::getDocuments, 1)
+            .map(document -> document.toObject(type));
+    }
+
+    private static Mono<QuerySnapshot> page(CollectionReference collection, String startAfter, int pageSize) {
+        return mono(() -> FirestorePages.query(collection, startAfter, pageSize).get());
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.service;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.cluster.HashRing;
+import com.example.model.Game;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// Primary/backup replication of live matches across the cluster. The node that owns a game (its primary) streams
+// every state change to the game's backup: the next node on the hash ring, which is exactly the node that takes
+// the game over if the primary leaves. Changes are queued per backup, coalesced to the newest state of each game
+// and sent in one batch every replication.flush-interval-ms from a background thread, so actions never wait on
+// the backup. Each update carries a per-game version that only grows, also across failovers, and backups ignore
+// anything older than what they hold. When the ring drops the primary, GameService promotes this node's replicas
+// of the games it now owns into the game cache: the first request after failover is served from memory instead
+// of a Firestore read, and at most the changes of the last flush interval are lost.
+@Service
+public class ReplicationService {
+
+    // Wire format of one replicated game state
+    public record Update(String gameId, long version, JsonNode game) {
+    }
+
+    private final ClusterService cluster;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long replicaTtlMs;
+
+    private final Map<String, Tracked> primaries = new ConcurrentHashMap<>(); // games this node replicates, by ID
+    private final Map<String, Map<String, Update>> outgoing = new ConcurrentHashMap<>(); // backup node -> newest per game
+    private final Set<String> sending = ConcurrentHashMap.newKeySet(); // backups with a batch in flight
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>(); // games this node backs up, by ID
+    private final ScheduledExecutorService flusher;
+    private long lastExpiry = System.currentTimeMillis(); // flusher thread only
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder staleUpdates = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReplicationService.class);
+
+    public ReplicationService(ClusterService cluster,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${replication.enabled:true}") boolean enabled,
+                              @Value("${replication.flush-interval-ms:20}") long flushIntervalMs,
+                              @Value("${replication.replica-ttl-ms:1800000}") long replicaTtlMs) {
+        this.cluster = cluster;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled && cluster.isEnabled();
+        this.replicaTtlMs = replicaTtlMs;
+
+        FunctionCounter.builder("replication.updates.sent", sent, LongAdder::sum)
+            .description("Game states delivered to backup nodes")
+            .register(meterRegistry);
+        FunctionCounter.builder("replication.batches.failed", failedBatches, LongAdder::sum)
+            .description("Batches a backup did not acknowledge; their updates are queued again")
+            .register(meterRegistry);
+        FunctionCounter.builder("replication.promotions", promoted, LongAdder::sum)
+            .description("Replicas taken over after their primary left the cluster")
+            .register(meterRegistry);
+        Gauge.builder("replication.replicas", replicas, Map::size)
+            .description("Games this node holds as a backup")
+            .register(meterRegistry);
+
+        if (this.enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-replication");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    // Queues the current state of a game this node owns for its backup; call after every change
+    public void replicate(Game game) {
+        if (!enabled || !cluster.isLocal(game.getId())) {
+            return;
+        }
+        String backup = cluster.backupOf(game.getId());
+        long version;
+        if ("finished".equals(game.getStatus())) {
+            primaries.remove(game.getId());
+            version = Long.MAX_VALUE; // a finished game ends its replica, however many changes preceded it
+        } else {
+            version = primaries.computeIfAbsent(game.getId(), id -> new Tracked(0)).next();
+        }
+        if (backup != null) {
+            enqueue(backup, new Update(game.getId(), version, objectMapper.valueToTree(game)));
+        }
+    }
+
+    private void enqueue(String backup, Update update) {
+        outgoing.computeIfAbsent(backup, node -> new ConcurrentHashMap<>())
+            .merge(update.gameId(), update, (queued, newer) -> newer.version() > queued.version() ? newer : queued);
+    }
+
+    // The game left this node (handed to a new owner); stop tracking it
+    public void forget(String gameId) {
+        primaries.remove(gameId);
+    }
+
+    private void flush() {
+        try {
+            flushQueues();
+        } catch (RuntimeException e) {
+            logger.error("Replica flush failed", e); // an exception would cancel the schedule
+        }
+    }
+
+    private void flushQueues() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Map<String, Update>> queue : outgoing.entrySet()) {
+            String backup = queue.getKey();
+            Map<String, Update> pending = queue.getValue();
+            if (!cluster.getRing().contains(backup)) {
+                pending.clear(); // the backup left; its games were re-replicated to their new backup
+                continue;
+            }
+            if (pending.isEmpty() || !sending.add(backup)) {
+                continue; // one batch in flight per backup; later changes keep coalescing meanwhile
+            }
+            List<Update> batch = new ArrayList<>();
+            for (String gameId : pending.keySet()) {
+                Update update = pending.remove(gameId);
+                if (update != null) {
+                    batch.add(update);
+                }
+            }
+            send(backup, batch);
+        }
+        if (now - lastExpiry > 60_000) {
+            lastExpiry = now;
+            expire(now);
+        }
+    }
+
+    private void send(String backup, List<Update> batch) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            sending.remove(backup);
+            logger.error("Could not serialize {} replica updates", batch.size(), e);
+            return;
+        }
+        cluster.forward(backup, "POST", ClusterService.REPLICA_PATH, Map.of("Content-Type", List.of("application/json")),
+                        body, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                sending.remove(backup);
+                if (error == null && response.statusCode() == 200) {
+                    sent.add(batch.size());
+                } else {
+                    // The updates go back into the queue unless a newer state of the game was queued meanwhile.
+                    // A backup that stays unreachable leaves the ring, its queue is dropped, and GameService
+                    // re-replicates the affected games to their new backup
+                    failedBatches.increment();
+                    requeued.add(batch.size());
+                    batch.forEach(update -> enqueue(backup, update));
+                    logger.debug("Replica batch of {} games to {} failed, queued again", batch.size(), backup, error);
+                }
+            });
+    }
+
+    // Replicas and versions of games nobody has touched for the TTL belong to abandoned matches
+    private void expire(long now) {
+        replicas.values().removeIf(replica -> now - replica.receivedAt > replicaTtlMs);
+        primaries.values().removeIf(tracked -> now - tracked.touchedAt > replicaTtlMs);
+    }
+
+    // Backup side: keeps the newest version of each game; a finished game drops its replica
+    public int receive(List<Update> updates) {
+        int applied = 0;
+        long now = System.currentTimeMillis();
+        for (Update update : updates) {
+            received.increment();
+            if (cluster.isLocal(update.gameId())) {
+                staleUpdates.increment(); // sent by a former primary; this node already took the game over
+                continue;
+            }
+            if (update.version() == Long.MAX_VALUE) {
+                replicas.remove(update.gameId());
+                continue;
+            }
+            Replica stored = replicas.merge(update.gameId(), new Replica(update, now),
+                (held, offered) -> offered.update.version() > held.update.version() ? offered : held);
+            if (stored.update == update) {
+                applied++;
+            } else {
+                staleUpdates.increment();
+            }
+        }
+        return applied;
+    }
+
+    // After a membership change: replicas of games this node now owns are promoted and handed to install (their
+    // primary left), and replicas this node no longer backs up are dropped; returns the number promoted
+    public int promote(HashRing current, Consumer<Game> install) {
+        int count = 0;
+        for (String gameId : replicas.keySet()) {
+            if (cluster.getSelf().equals(current.ownerOf(gameId))) {
+                if (claim(gameId, install)) {
+                    count++;
+                }
+            } else if (!cluster.getSelf().equals(current.successorOf(gameId))) {
+                replicas.remove(gameId);
+            }
+        }
+        if (count > 0) {
+            logger.info("Promoted {} replicated games after their primary left", count);
+        }
+        return count;
+    }
+
+    // The ring is published before its listeners run, so a request for a game this node just took over can
+    // arrive before promote(HashRing, ...) reached it; GameService then promotes that replica on its cache miss
+    public boolean promote(String gameId, Consumer<Game> install) {
+        return cluster.isLocal(gameId) && claim(gameId, install);
+    }
+
+    // The game is installed while its replica's entry is locked, so a concurrent claim waits and then finds the
+    // game installed; exactly one caller promotes each replica
+    private boolean claim(String gameId, Consumer<Game> install) {
+        boolean[] claimed = {false};
+        replicas.computeIfPresent(gameId, (id, replica) -> {
+            Update update = replica.update;
+            try {
+                Game game = objectMapper.treeToValue(update.game(), Game.class);
+                primaries.put(gameId, new Tracked(update.version())); // versions keep growing on the new primary
+                promoted.increment();
+                install.accept(game);
+                claimed[0] = true;
+            } catch (JsonProcessingException e) {
+                logger.error("Could not restore replica of game {}", gameId, e);
+            }
+            return null;
+        });
+        return claimed[0];
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("primaries", primaries.size());
+        stats.put("replicas", replicas.size());
+        int pending = 0;
+        for (Map<String, Update> queue : outgoing.values()) {
+            pending += queue.size();
+        }
+        stats.put("pending", pending);
+        stats.put("sent", sent.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("requeued", requeued.sum());
+        stats.put("received", received.sum());
+        stats.put("staleUpdates", staleUpdates.sum());
+        stats.put("promoted", promoted.sum());
+        return stats;
+    }
+
+    private static final class Tracked {
+        private long version; // guarded by this
+        private volatile long touchedAt = System.currentTimeMillis();
+
+        Tracked(long version) {
+            this.version = version;
+        }
+
+        synchronized long next() {
+            touchedAt = System.currentTimeMillis();
+            return ++version;
+        }
+    }
+
+    private record Replica(Update update, long receivedAt) {
+    }
+}
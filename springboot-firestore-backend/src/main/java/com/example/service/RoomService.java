@@ -1,36 +1,307 @@
 package com.example.service;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
+import com.example.cache.HeapRoomStore;
+import com.example.cache.OffHeapRoomStore;
+import com.example.cache.RoomStore;
+import com.example.cache.ScalableBloomFilter;
+import com.example.model.Page;
 import com.example.model.Room;
 import com.example.model.RoomJoinResult;
+import com.example.profiling.CacheMissEvent;
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
 import com.google.cloud.firestore.DocumentReference;
-import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
 import com.google.cloud.firestore.WriteResult;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import reactor.core.publisher.Flux;
+
 @Service
 public class RoomService {
     
     private final Firestore firestore;
-    private final Map<String, Room> activeRooms;
+    private final RoomStore activeRooms;
+    private final FanOut fanOut;
+    private final OperationTimer joinTimer;
+    private final OperationTimer getTimer;
+    private final OperationTimer statusTimer;
+    private final OperationTimer availableTimer;
+    private final OperationTimer cleanupTimer;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RoomService.class);
 
+    // Realtime listener on the rooms collection. Once its first snapshot has been applied, activeRooms mirrors
+    // Firestore (including writes made directly by the frontend) and reads are served from memory. A room the
+    // listener has not delivered yet (e.g. just created on another node) is still read from Firestore on a miss.
+    // After a listener error the cache is dropped and the listener re-registered with exponential backoff.
+    private static final long RESUBSCRIBE_MIN_DELAY_MS = 1000;
+    private static final long RESUBSCRIBE_MAX_DELAY_MS = 60_000;
+    private final boolean roomSyncEnabled;
+    private volatile ListenerRegistration roomsListener;
+    private volatile boolean roomsSynced;
+    private volatile boolean stopped;
+    private long resubscribeDelayMs = RESUBSCRIBE_MIN_DELAY_MS; // guarded by this
+
+    // Bloom filter of known room IDs: lets getRoom reject IDs that definitely don't exist without a Firestore read.
+    // Deletions can't be removed from a Bloom filter, so it is rebuilt once enough rooms have been removed.
+    // A miss is only trusted while the rooms listener is in sync, since then every room in Firestore (including
+    // those created on other nodes) reaches the filter. Before the first snapshot, after a listener error, or with
+    // sync disabled a miss still goes to Firestore and is counted as bypassed.
+    private final boolean roomFilterEnabled;
+    private final long roomFilterInitialCapacity;
+    private final double roomFilterFpp;
+    private final double roomFilterRebuildAfterRemovals;
+    private final Object roomFilterLock = new Object();
+    private final List<String> roomsAddedDuringRebuild = new ArrayList<>(); // guarded by roomFilterLock
+    private boolean roomFilterRebuilding; // guarded by roomFilterLock
+    private volatile ScalableBloomFilter knownRoomIds;
+    private volatile boolean roomFilterReady;
+    private final AtomicLong roomFilterRejections = new AtomicLong();
+    private final AtomicLong roomFilterFalsePositives = new AtomicLong();
+    private final AtomicLong roomFilterBypassed = new AtomicLong();
+    private final AtomicLong roomsRemovedSinceRebuild = new AtomicLong();
+
     @Autowired
-    public RoomService(Firestore firestore) {
+    public RoomService(Firestore firestore,
+                       FanOut fanOut,
+                       MeterRegistry meterRegistry,
+                       ObjectProvider<Tracer> tracer,
+                       @Value("${room.filter.enabled:true}") boolean roomFilterEnabled,
+                       @Value("${room.filter.initial-capacity:10000}") long roomFilterInitialCapacity,
+                       @Value("${room.filter.false-positive-rate:0.01}") double roomFilterFpp,
+                       @Value("${room.filter.rebuild-after-removals:0.25}") double roomFilterRebuildAfterRemovals,
+                       @Value("${firestore.sync.enabled:true}") boolean roomSyncEnabled,
+                       @Value("${room.store:heap}") String roomStoreType) {
         this.firestore = firestore;
-        this.activeRooms = new ConcurrentHashMap<>();
-        logger.info("RoomService initialized with Firestore dependency");
+        this.fanOut = fanOut;
+        this.activeRooms = "offheap".equals(roomStoreType) ? new OffHeapRoomStore() : new HeapRoomStore();
+        this.roomSyncEnabled = roomSyncEnabled;
+        this.roomFilterEnabled = roomFilterEnabled;
+        this.roomFilterInitialCapacity = roomFilterInitialCapacity;
+        this.roomFilterFpp = roomFilterFpp;
+        this.roomFilterRebuildAfterRemovals = roomFilterRebuildAfterRemovals;
+        this.knownRoomIds = new ScalableBloomFilter(roomFilterInitialCapacity, roomFilterFpp);
+        Tracer roomTracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.joinTimer = operationTimer(meterRegistry, roomTracer, "join", "RoomService.joinRoom");
+        this.getTimer = operationTimer(meterRegistry, roomTracer, "get", "RoomService.getRoom");
+        this.statusTimer = operationTimer(meterRegistry, roomTracer, "status", "RoomService.updateRoomStatus");
+        this.availableTimer = operationTimer(meterRegistry, roomTracer, "available", "RoomService.getAvailableRooms");
+        this.cleanupTimer = operationTimer(meterRegistry, roomTracer, "cleanup", "RoomService.cleanupOldRooms");
+        Gauge.builder("room.store.size", activeRooms, RoomStore::size)
+            .description("Rooms held in memory")
+            .register(meterRegistry);
+        FunctionCounter.builder("room.filter.rejections", roomFilterRejections, AtomicLong::get)
+            .description("Room lookups answered by the Bloom filter without a Firestore read")
+            .register(meterRegistry);
+        FunctionCounter.builder("room.filter.bypassed", roomFilterBypassed, AtomicLong::get)
+            .description("Room IDs unknown to the Bloom filter read from Firestore because the rooms listener was not in sync")
+            .register(meterRegistry);
+        logger.info("RoomService initialized with Firestore dependency ({} room store)", roomStoreType);
+    }
+
+    private static OperationTimer operationTimer(MeterRegistry registry, Tracer tracer, String operation, String spanName) {
+        return new OperationTimer(registry, tracer, "room.operations", "Room service operations", spanName, "operation", operation);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (roomSyncEnabled) {
+            startRoomSync(); // the filter is built from memory once the first snapshot arrives
+        } else {
+            rebuildRoomFilter();
+        }
+    }
+
+    @PreDestroy
+    public void stopRoomSync() {
+        stopped = true;
+        ListenerRegistration registration = roomsListener;
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    private void startRoomSync() {
+        roomsListener = firestore.collection("rooms").addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                onRoomSyncError(error);
+                return;
+            }
+            applyRoomChanges(snapshot);
+        });
+        logger.info("Rooms listener registered");
+    }
+
+    // The listener is dead after an error: stop trusting (and serving) the cache and subscribe again later.
+    // The first snapshot of the new listener repopulates the cache and marks it in sync again.
+    private synchronized void onRoomSyncError(Throwable error) {
+        roomsSynced = false;
+        activeRooms.clear();
+        ListenerRegistration registration = roomsListener;
+        if (registration != null) {
+            registration.remove();
+        }
+        long delayMs = resubscribeDelayMs;
+        resubscribeDelayMs = Math.min(delayMs * 2, RESUBSCRIBE_MAX_DELAY_MS);
+        logger.error("Rooms listener failed, falling back to Firestore reads; re-registering in {} ms", delayMs, error);
+        CompletableFuture.runAsync(() -> {
+            if (!stopped) {
+                startRoomSync();
+            }
+        }, CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    // Apply incremental document changes to the cache
+    private void applyRoomChanges(QuerySnapshot snapshot) {
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            QueryDocumentSnapshot document = change.getDocument();
+            String roomId = document.getId();
+
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                if (activeRooms.remove(roomId)) {
+                    forgetRoomId();
+                }
+                continue;
+            }
+
+            // Echoes of our own writes and changes older than what we already hold are skipped
+            Room room = document.toObject(Room.class);
+            if (room != null) {
+                room.setRoomId(roomId);
+                if (activeRooms.putIfNewer(room, toVersion(document.getUpdateTime()))) {
+                    rememberRoomId(roomId);
+                }
+            }
+        }
+
+        if (!roomsSynced) {
+            synchronized (this) {
+                resubscribeDelayMs = RESUBSCRIBE_MIN_DELAY_MS;
+            }
+            roomsSynced = true;
+            logger.info("Rooms cache in sync with Firestore: {} rooms", activeRooms.size());
+            rebuildRoomFilter();
+        }
+    }
+
+    private static long toVersion(Timestamp updateTime) {
+        return updateTime.getSeconds() * 1_000_000L + updateTime.getNanos() / 1_000;
+    }
+
+    // Build the room ID filter; from memory while the rooms listener is in sync, otherwise from an ID-only
+    // Firestore query. Until the first build completes the filter is not consulted.
+    public void rebuildRoomFilter() {
+        if (!roomFilterEnabled) {
+            return;
+        }
+
+        synchronized (roomFilterLock) {
+            if (roomFilterRebuilding) {
+                return;
+            }
+            roomFilterRebuilding = true;
+            roomsAddedDuringRebuild.clear();
+        }
+
+        try {
+            List<String> ids = new ArrayList<>();
+            if (roomsSynced) {
+                ids.addAll(activeRooms.roomIds());
+            } else {
+                QuerySnapshot idSnapshot = firestore.collection("rooms").select(FieldPath.documentId()).get().get();
+                for (QueryDocumentSnapshot document : idSnapshot.getDocuments()) {
+                    ids.add(document.getId());
+                }
+            }
+
+            ScalableBloomFilter filter = new ScalableBloomFilter(
+                Math.max(roomFilterInitialCapacity, ids.size() * 2L), roomFilterFpp);
+            for (String roomId : ids) {
+                filter.put(roomId);
+            }
+
+            synchronized (roomFilterLock) {
+                // Rooms created while we were reading went into the old filter; carry them over
+                for (String roomId : roomsAddedDuringRebuild) {
+                    filter.put(roomId);
+                }
+                knownRoomIds = filter;
+                roomsRemovedSinceRebuild.set(0);
+                roomFilterReady = true;
+            }
+            logger.info("Room filter rebuilt with {} room IDs", filter.count());
+        } catch (Exception e) {
+            logger.warn("Failed to rebuild room filter, room lookups will not be filtered", e);
+        } finally {
+            synchronized (roomFilterLock) {
+                roomFilterRebuilding = false;
+                roomsAddedDuringRebuild.clear();
+            }
+        }
+    }
+
+    private void rememberRoomId(String roomId) {
+        synchronized (roomFilterLock) {
+            knownRoomIds.put(roomId);
+            if (roomFilterRebuilding) {
+                roomsAddedDuringRebuild.add(roomId);
+            }
+        }
+    }
+
+    private void forgetRoomId() {
+        long removed = roomsRemovedSinceRebuild.incrementAndGet();
+        if (roomFilterReady && removed > knownRoomIds.count() * roomFilterRebuildAfterRemovals) {
+            CompletableFuture.runAsync(this::rebuildRoomFilter);
+        }
+    }
+
+    // Room filter metrics
+    public Map<String, Object> getRoomFilterStats() {
+        ScalableBloomFilter filter = knownRoomIds;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", roomFilterEnabled);
+        stats.put("listenerSynced", roomsSynced);
+        stats.put("ready", roomFilterReady);
+        stats.put("entries", filter.count());
+        stats.put("stages", filter.stageCount());
+        stats.put("bits", filter.bitSize());
+        stats.put("configuredFalsePositiveRate", filter.getTargetFpp());
+        stats.put("expectedFalsePositiveRate", filter.expectedFpp());
+        stats.put("rejections", roomFilterRejections.get());
+        stats.put("observedFalsePositives", roomFilterFalsePositives.get());
+        stats.put("bypassed", roomFilterBypassed.get());
+        stats.put("removedSinceRebuild", roomsRemovedSinceRebuild.get());
+        return stats;
     }
 
     // Create a new room
@@ -44,10 +315,12 @@ public class RoomService {
         // Save to Firestore
         DocumentReference docRef = firestore.collection("rooms").document(room.getRoomId());
         ApiFuture<WriteResult> result = docRef.set(room);
-        result.get(); // Wait for completion
+        WriteResult writeResult = result.get(); // Wait for completion
         
         // Add to local cache
-        activeRooms.put(room.getRoomId(), room);
+        activeRooms.put(room);
+        activeRooms.recordVersion(room.getRoomId(), toVersion(writeResult.getUpdateTime()));
+        rememberRoomId(room.getRoomId());
         
         logger.info("Room created successfully: {}", room.getRoomId());
         return room;
@@ -56,6 +329,11 @@ public class RoomService {
     // Join an existing room
     public RoomJoinResult joinRoom(String roomId, String guestId, String guestName, Map<String, Object> guestCharacter) 
             throws ExecutionException, InterruptedException {
+        return joinTimer.record(() -> addGuest(roomId, guestId, guestName, guestCharacter));
+    }
+    
+    private RoomJoinResult addGuest(String roomId, String guestId, String guestName, Map<String, Object> guestCharacter) 
+            throws ExecutionException, InterruptedException {
         
         logger.info("Guest {} ({}) joining room: {}", guestName, guestId, roomId);
         
@@ -101,32 +379,95 @@ public class RoomService {
 
     // Get room by ID
     public Room getRoom(String roomId) throws ExecutionException, InterruptedException {
+        return getTimer.record(() -> lookupRoom(roomId));
+    }
+    
+    private Room lookupRoom(String roomId) throws ExecutionException, InterruptedException {
         // Check local cache first
         Room cachedRoom = activeRooms.get(roomId);
         if (cachedRoom != null) {
             return cachedRoom;
         }
         
-        // Fetch from Firestore
-        DocumentReference docRef = firestore.collection("rooms").document(roomId);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
+        // Not in memory, even with the listener in sync: the room may be newer than the last snapshot delivered.
+        // Definitely unknown room IDs never reach Firestore; the filter also learns IDs from the listener.
+        boolean known = knownToFilter(roomId);
+        if (!known && rejectedByFilter()) {
+            return null;
+        }
         
-        if (document.exists()) {
-            Room room = document.toObject(Room.class);
-            if (room != null) {
-                // Add to cache
-                activeRooms.put(roomId, room);
-                return room;
-            }
+        return fetchRoomAsync(roomId, known).get();
+    }
+    
+    // Get room by ID without blocking the caller while Firestore is read
+    public CompletableFuture<Room> getRoomAsync(String roomId) {
+        return getTimer.recordAsync(() -> lookupRoomAsync(roomId));
+    }
+    
+    private CompletableFuture<Room> lookupRoomAsync(String roomId) {
+        Room cachedRoom = activeRooms.get(roomId);
+        if (cachedRoom != null) {
+            return CompletableFuture.completedFuture(cachedRoom);
         }
         
-        return null;
+        boolean known = knownToFilter(roomId);
+        if (!known && rejectedByFilter()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        return fetchRoomAsync(roomId, known);
+    }
+    
+    // True when the filter is ready and says the room may exist
+    private boolean knownToFilter(String roomId) {
+        return roomFilterEnabled && roomFilterReady && knownRoomIds.mightContain(roomId);
+    }
+    
+    // For a room ID the filter has not seen: reject it only while the listener is in sync, otherwise count the read
+    private boolean rejectedByFilter() {
+        if (!roomFilterEnabled || !roomFilterReady) {
+            return false;
+        }
+        if (roomsSynced) {
+            roomFilterRejections.incrementAndGet();
+            return true;
+        }
+        roomFilterBypassed.incrementAndGet();
+        return false;
+    }
+    
+    private CompletableFuture<Room> fetchRoomAsync(String roomId, boolean known) {
+        DocumentReference docRef = firestore.collection("rooms").document(roomId);
+        return CacheMissEvent.timeLoad("rooms", roomId, () -> FirestoreFutures.toCompletable(docRef.get()).thenApply(document -> {
+            if (!document.exists() && known) {
+                roomFilterFalsePositives.incrementAndGet();
+            }
+            
+            if (document.exists()) {
+                Room room = document.toObject(Room.class);
+                if (room != null) {
+                    // Add to cache; a room the filter missed is added to it too
+                    room.setRoomId(roomId);
+                    activeRooms.put(room);
+                    if (!known) {
+                        rememberRoomId(roomId);
+                    }
+                    return room;
+                }
+            }
+            
+            return null;
+        }));
     }
 
     // Update room status
     public Room updateRoomStatus(String roomId, String status, String winner) 
             throws ExecutionException, InterruptedException {
+        return statusTimer.record(() -> applyRoomStatus(roomId, status, winner));
+    }
+    
+    private Room applyRoomStatus(String roomId, String status, String winner) 
+            throws ExecutionException, InterruptedException {
         
         logger.info("Updating room {} status to: {} (winner: {})", roomId, status, winner);
         
@@ -149,16 +490,34 @@ public class RoomService {
         // Update in Firestore
         DocumentReference docRef = firestore.collection("rooms").document(room.getRoomId());
         ApiFuture<WriteResult> result = docRef.set(room);
-        result.get(); // Wait for completion
+        WriteResult writeResult = result.get(); // Wait for completion
         
         // Update cache
-        activeRooms.put(room.getRoomId(), room);
+        activeRooms.put(room);
+        activeRooms.recordVersion(room.getRoomId(), toVersion(writeResult.getUpdateTime()));
         
         logger.debug("Room updated: {}", room.getRoomId());
     }
 
+    // The settlement already marked the room completed in Firestore; bring the cached copy in line
+    void onMatchSettled(String roomId, String winner) {
+        Room room = activeRooms.get(roomId);
+        if (room == null) {
+            return;
+        }
+        room.setStatus("completed");
+        room.setWinner(winner);
+        room.setLastUpdated(System.currentTimeMillis());
+        activeRooms.put(room); // the listener's echo brings the commit version
+    }
+
     // Get all active rooms
     public List<Room> getAllRooms() throws ExecutionException, InterruptedException {
+        // Served from memory while the rooms listener keeps the cache in sync
+        if (roomsSynced) {
+            return activeRooms.rooms();
+        }
+        
         List<Room> rooms = new ArrayList<>();
         
         // Fetch from Firestore to get latest data
@@ -170,7 +529,8 @@ public class RoomService {
             if (room != null) {
                 rooms.add(room);
                 // Update cache
-                activeRooms.put(room.getRoomId(), room);
+                activeRooms.put(room);
+                rememberRoomId(room.getRoomId());
             }
         }
         
@@ -178,8 +538,64 @@ public class RoomService {
         return rooms;
     }
 
-    // Get available rooms (waiting for players)
+    // Page of rooms in ID order, starting after the cursor
+    public Page<Room> getRoomsPage(String startAfter, int limit) throws ExecutionException, InterruptedException {
+        if (!roomsSynced) {
+            return FirestorePages.page(firestore.collection("rooms"), Room.class, startAfter, limit);
+        }
+        
+        // Served from memory: only the ID list is sorted, rooms are materialized for the requested page
+        List<String> roomIds = activeRooms.roomIds();
+        Collections.sort(roomIds);
+        int from = 0;
+        if (startAfter != null) {
+            int index = Collections.binarySearch(roomIds, startAfter);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        
+        List<Room> rooms = new ArrayList<>(Math.min(limit, Math.max(0, roomIds.size() - from)));
+        String lastId = null;
+        int i = from;
+        for (; i < roomIds.size() && rooms.size() < limit; i++) {
+            Room room = activeRooms.get(roomIds.get(i));
+            if (room != null) {
+                rooms.add(room);
+                lastId = roomIds.get(i);
+            }
+        }
+        return new Page<>(rooms, i < roomIds.size() ? lastId : null);
+    }
+    
+    // Stream all rooms one by one, from memory when synced, otherwise page by page from Firestore
+    public void streamRooms(int pageSize, FirestorePages.ItemWriter<? super Room> writer) 
+            throws ExecutionException, InterruptedException, IOException {
+        if (!roomsSynced) {
+            FirestorePages.forEach(firestore.collection("rooms"), Room.class, pageSize, writer);
+            return;
+        }
+        
+        for (String roomId : activeRooms.roomIds()) {
+            Room room = activeRooms.get(roomId);
+            if (room != null) {
+                writer.write(room);
+            }
+        }
+    }
+
+    // Rooms as a Flux for the reactive API: from memory when synced, otherwise paged from Firestore on demand
+    public Flux<Room> roomsFlux(int pageSize) {
+        if (!roomsSynced) {
+            return ReactiveFirestore.documents(firestore.collection("rooms"), Room.class, pageSize);
+        }
+        return Flux.defer(() -> Flux.fromIterable(activeRooms.roomIds()))
+            .mapNotNull(activeRooms::get);
+    }
+
     public List<Room> getAvailableRooms() throws ExecutionException, InterruptedException {
+        return availableTimer.record(this::findAvailableRooms);
+    }
+
+    private List<Room> findAvailableRooms() throws ExecutionException, InterruptedException {
         List<Room> allRooms = getAllRooms();
         List<Room> availableRooms = new ArrayList<>();
         
@@ -203,31 +619,49 @@ public class RoomService {
         result.get(); // Wait for completion
         
         // Remove from cache
-        activeRooms.remove(roomId);
+        if (activeRooms.remove(roomId)) {
+            forgetRoomId();
+        }
         
         logger.info("Room removed successfully: {}", roomId);
     }
 
     // Clean up old/completed rooms (utility method)
     public void cleanupOldRooms() throws ExecutionException, InterruptedException {
+        cleanupTimer.record(this::removeOldRooms);
+    }
+
+    private Void removeOldRooms() throws ExecutionException, InterruptedException {
         long cutoffTime = System.currentTimeMillis() - (24 * 60 * 60 * 1000); // 24 hours ago
         
         List<Room> allRooms = getAllRooms();
-        int removedCount = 0;
+        List<Callable<Boolean>> removals = new ArrayList<>();
         
         for (Room room : allRooms) {
             // Remove rooms that are completed or very old
             if ("completed".equals(room.getStatus()) || room.getLastUpdated() < cutoffTime) {
-                try {
-                    removeRoom(room.getRoomId());
-                    removedCount++;
-                } catch (Exception e) {
-                    logger.warn("Failed to remove old room: {}", room.getRoomId(), e);
-                }
+                removals.add(() -> {
+                    try {
+                        removeRoom(room.getRoomId());
+                        return true;
+                    } catch (Exception e) {
+                        logger.warn("Failed to remove old room: {}", room.getRoomId(), e);
+                        return false;
+                    }
+                });
+            }
+        }
+        
+        // Deletes are independent, so they run in parallel up to the fan-out limit
+        int removedCount = 0;
+        for (boolean removed : fanOut.invokeAll(removals)) {
+            if (removed) {
+                removedCount++;
             }
         }
         
         logger.info("Cleaned up {} old rooms", removedCount);
+        return null;
     }
 
     // Temporary method to clear all rooms (for debugging data structure issues)
@@ -243,6 +677,10 @@ public class RoomService {
         
         // Clear cache as well
         activeRooms.clear();
+        synchronized (roomFilterLock) {
+            knownRoomIds = new ScalableBloomFilter(roomFilterInitialCapacity, roomFilterFpp);
+            roomsRemovedSinceRebuild.set(0);
+        }
         
         logger.info("Cleared {} rooms from Firestore", deletedCount);
     }
@@ -0,0 +1,275 @@
+package com.example.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.model.Game;
+import com.example.model.User;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+
+import io.grpc.Status;
+
+// Settles a finished match in one Firestore transaction: the final game state, the room's completion and both
+// players' rating and currency rewards are committed together with a settlements/{gameId} marker.
+// The transaction reads the marker and both profiles first, so a second settlement of the same game changes nothing
+// and two matches settling at once for the same player are serialized instead of overwriting each other's rating.
+// That makes retries safe: a failed commit is retried with exponential backoff, and a game that still could not be
+// settled is kept and retried by a periodic sweep until it commits (or turns out to be settled already).
+@Service
+public class SettlementService {
+
+    private final Firestore firestore;
+    private final UserService userService;
+    private final RoomService roomService;
+    private final RatingEngine ratingEngine;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final Map<String, Game> unsettled = new ConcurrentHashMap<>(); // finished games whose settlement failed
+
+    private final AtomicLong settled = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SettlementService.class);
+
+    public SettlementService(Firestore firestore, UserService userService, RoomService roomService,
+                             RatingEngine ratingEngine,
+                             @Value("${settlement.retry.max-attempts:4}") int maxAttempts,
+                             @Value("${settlement.retry.initial-backoff-ms:200}") long initialBackoffMs) {
+        this.firestore = firestore;
+        this.userService = userService;
+        this.roomService = roomService;
+        this.ratingEngine = ratingEngine;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+    }
+
+    // Commits the settlement; completes with true, or false if the game was already settled.
+    // If every attempt fails the game is handed to the sweep and the returned future fails.
+    public CompletableFuture<Boolean> settleAsync(Game game) {
+        return settleWithRetries(game, 1).whenComplete((settledNow, error) -> {
+            if (error != null) {
+                unsettled.put(game.getId(), game);
+                logger.error("Settlement of game {} failed after {} attempts, will retry in the background",
+                             game.getId(), maxAttempts, error);
+            }
+        });
+    }
+
+    private CompletableFuture<Boolean> settleWithRetries(Game game, int attempt) {
+        return commitSettlement(game).handle((settledNow, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(settledNow);
+            }
+            if (attempt >= maxAttempts) {
+                return CompletableFuture.<Boolean>failedFuture(error);
+            }
+            retries.incrementAndGet();
+            long delayMs = initialBackoffMs << (attempt - 1);
+            logger.warn("Settlement of game {} failed (attempt {}), retrying in {} ms: {}",
+                        game.getId(), attempt, delayMs, error.toString());
+            Executor delayed = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> game, delayed).thenCompose(g -> settleWithRetries(g, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    // Games whose settlement ran out of attempts are retried until they commit
+    @Scheduled(fixedDelayString = "${settlement.retry.sweep-interval-ms:30000}")
+    public void retryUnsettled() {
+        for (Game game : unsettled.values()) {
+            settleWithRetries(game, maxAttempts).whenComplete((settledNow, error) -> {
+                if (error == null) {
+                    unsettled.remove(game.getId(), game);
+                    logger.info("Game {} settled by the background retry", game.getId());
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<Boolean> commitSettlement(Game game) {
+        String winnerId = game.getWinnerId();
+        String loserId = winnerId == null ? null
+            : winnerId.equals(game.getPlayer1().getId()) ? game.getPlayer2().getId() : game.getPlayer1().getId();
+        DocumentReference markerRef = firestore.collection("settlements").document(game.getId());
+        // Room games are created with the host as player 1
+        String roomWinner = game.getRoomId() == null || winnerId == null ? null
+            : winnerId.equals(game.getPlayer1().getId()) ? "host" : "guest";
+
+        // The function may run several times (Firestore retries it on contention), so it has no side effects
+        ApiFuture<Settlement> commit = firestore.runTransaction(transaction -> {
+            // All reads come first: the marker, then both profiles as stored on the server
+            if (transaction.get(markerRef).get().exists()) {
+                return Settlement.DUPLICATE;
+            }
+            User winner = readUser(transaction, winnerId);
+            User loser = readUser(transaction, loserId);
+
+            RatingEngine.MatchRatings ratings = ratingEngine.rateMatch(winner, loser);
+            Reward winnerReward = winner != null
+                ? new Reward(winner, ratings.winner(), UserService.WIN_COINS, UserService.WIN_GEMS) : null;
+            Reward loserReward = loser != null
+                ? new Reward(loser, ratings.loser(), UserService.LOSS_COINS, UserService.LOSS_GEMS) : null;
+
+            Map<String, Object> marker = new HashMap<>();
+            marker.put("gameId", game.getId());
+            marker.put("roomId", game.getRoomId());
+            marker.put("winnerId", winnerId);
+            marker.put("loserId", loserId);
+            marker.put("settledAt", FieldValue.serverTimestamp());
+            // The clients show each player's result from the marker, so it carries what was actually applied
+            if (winnerReward != null) {
+                marker.put("winnerRatingChange", winnerReward.ratingChange);
+                marker.put("winnerCoinChange", winnerReward.coinChange);
+                marker.put("winnerGemChange", winnerReward.gemChange);
+            }
+            if (loserReward != null) {
+                marker.put("loserRatingChange", loserReward.ratingChange);
+                marker.put("loserCoinChange", loserReward.coinChange);
+                marker.put("loserGemChange", loserReward.gemChange);
+            }
+            transaction.create(markerRef, marker);
+            transaction.set(firestore.collection("games").document(game.getId()), game);
+
+            if (game.getRoomId() != null) {
+                Map<String, Object> roomUpdate = new HashMap<>();
+                roomUpdate.put("status", "completed");
+                roomUpdate.put("winner", roomWinner);
+                roomUpdate.put("lastUpdated", System.currentTimeMillis());
+                // merge instead of update: a room deleted meanwhile must not fail the whole settlement
+                transaction.set(firestore.collection("rooms").document(game.getRoomId()), roomUpdate, SetOptions.merge());
+            }
+            for (Reward reward : new Reward[] {winnerReward, loserReward}) {
+                if (reward != null) {
+                    transaction.update(firestore.collection("users").document(reward.user.getId()), reward.updates());
+                }
+            }
+            return new Settlement(winnerReward, loserReward);
+        });
+
+        return FirestoreFutures.toCompletable(commit).handle((settlement, error) -> {
+            if (error != null && !isAlreadyExists(error)) {
+                throw new CompletionException(error);
+            }
+            if (error != null || settlement == Settlement.DUPLICATE) {
+                duplicates.incrementAndGet();
+                logger.info("Game {} was already settled", game.getId());
+                return false;
+            }
+            if (game.getRoomId() != null) {
+                roomService.onMatchSettled(game.getRoomId(), roomWinner);
+            }
+            for (Reward reward : new Reward[] {settlement.winner, settlement.loser}) {
+                if (reward != null) {
+                    userService.onMatchSettled(reward.settledUser());
+                }
+            }
+            settled.incrementAndGet();
+            logger.info("Settled game {} (winner: {})", game.getId(), winnerId);
+            return true;
+        });
+    }
+
+    // A missing (deleted) profile gets no reward and plays as a new player for the opponent's rating
+    private User readUser(Transaction transaction, String userId) throws ExecutionException, InterruptedException {
+        if (userId == null) {
+            return null;
+        }
+        DocumentSnapshot document = transaction.get(firestore.collection("users").document(userId)).get();
+        if (!document.exists()) {
+            return null;
+        }
+        User user = document.toObject(User.class);
+        user.setId(userId);
+        return user;
+    }
+
+    public boolean settle(Game game) throws ExecutionException, InterruptedException {
+        return settleAsync(game).get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("settled", settled.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("retries", retries.get());
+        stats.put("unsettled", unsettled.size());
+        return stats;
+    }
+
+    private static boolean isAlreadyExists(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof AlreadyExistsException) {
+                return true;
+            }
+            if (e instanceof FirestoreException firestoreError && firestoreError.getStatus() != null
+                    && firestoreError.getStatus().getCode() == Status.Code.ALREADY_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Outcome of the transaction; rewards hold the profiles as written
+    private record Settlement(Reward winner, Reward loser) {
+        static final Settlement DUPLICATE = new Settlement(null, null);
+    }
+
+    // Rating and currency change for one player, computed from the profile read in the settlement transaction,
+    // so the absolute values written (Glicko-2 state, zero-clamped currency) cannot overwrite a concurrent change
+    private static final class Reward {
+        final User user;
+        final Glicko2.Rating rating;
+        final int ratingChange;
+        final int coinChange;
+        final int gemChange;
+
+        Reward(User user, Glicko2.Rating rating, int coinChange, int gemChange) {
+            this.user = user;
+            this.rating = rating;
+            this.ratingChange = rating.displayRating() - user.getRating();
+            this.coinChange = Math.max(coinChange, -user.getCoin());
+            this.gemChange = Math.max(gemChange, -user.getGem());
+        }
+
+        Map<String, Object> updates() {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("rating", rating.displayRating());
+            updates.put("rank", User.rankFor(rating.displayRating()));
+            updates.put("glickoRating", rating.rating());
+            updates.put("glickoDeviation", rating.deviation());
+            updates.put("glickoVolatility", rating.volatility());
+            updates.put("coin", user.getCoin() + coinChange);
+            updates.put("gem", user.getGem() + gemChange);
+            return updates;
+        }
+
+        // The profile as committed; only called once, after the transaction succeeded
+        User settledUser() {
+            rating.applyTo(user);
+            user.setCoin(user.getCoin() + coinChange);
+            user.setGem(user.getGem() + gemChange);
+            return user;
+        }
+    }
+}
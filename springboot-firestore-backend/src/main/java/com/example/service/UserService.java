@@ -1,31 +1,130 @@
 package com.example.service;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.example.cache.ExpiringCache;
+import com.example.cache.SingleFlight;
+import com.example.model.Page;
 import com.example.model.User;
+import com.example.profiling.CacheMissEvent;
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
 import com.google.cloud.firestore.WriteResult;
 
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import reactor.core.publisher.Flux;
+
 @Service
 public class UserService {
     
     private final Firestore firestore;
+    private final LeaderboardService leaderboardService;
+    private final RatingEngine ratingEngine;
+    
+    // Read-through кэш профилей: каждая запись держит document listener, который обновляет её при внешних изменениях
+    private final ExpiringCache<User> userCache;
+    private final SingleFlight<String, User> userLoads = new SingleFlight<>();
+    private final boolean userListenersEnabled;
+    private final AtomicLong listenerUpdates = new AtomicLong();
+    private final AtomicLong listenerLagTotalMs = new AtomicLong();
+    private final AtomicLong listenerLagMaxMs = new AtomicLong();
+    
+    // Таймеры user.operations и спаны по операциям
+    private final OperationTimer getTimer;
+    private final OperationTimer createTimer;
+    private final OperationTimer updateTimer;
+    private final OperationTimer deleteTimer;
+    private final OperationTimer ratingTimer;
+    private final OperationTimer currencyTimer;
     
-    public UserService(Firestore firestore) {
+    private static final long LISTENER_LOAD_TIMEOUT_SECONDS = 10;
+    
+    // Награды за матч (рейтинг считает Glicko-2, см. RatingEngine)
+    static final int WIN_COINS = 25;  // 25 монет за победу
+    static final int LOSS_COINS = 5;  // 5 за участие
+    static final int WIN_GEMS = 1;    // 1 кристалл за победу
+    static final int LOSS_GEMS = 0;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(UserService.class);
+    
+    public UserService(Firestore firestore,
+                       LeaderboardService leaderboardService,
+                       RatingEngine ratingEngine,
+                       MeterRegistry meterRegistry,
+                       ObjectProvider<Tracer> tracer,
+                       @Value("${user.cache.max-entries:10000}") int cacheMaxEntries,
+                       @Value("${user.cache.ttl-ms:300000}") long cacheTtlMs,
+                       @Value("${user.cache.listeners.enabled:true}") boolean userListenersEnabled) {
         this.firestore = firestore;
+        this.leaderboardService = leaderboardService;
+        this.ratingEngine = ratingEngine;
+        this.userCache = new ExpiringCache<>(cacheMaxEntries, cacheTtlMs);
+        this.userListenersEnabled = userListenersEnabled;
+        
+        Tracer userTracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.getTimer = operationTimer(meterRegistry, userTracer, "get", "UserService.getUser");
+        this.createTimer = operationTimer(meterRegistry, userTracer, "create", "UserService.createUser");
+        this.updateTimer = operationTimer(meterRegistry, userTracer, "update", "UserService.updateUser");
+        this.deleteTimer = operationTimer(meterRegistry, userTracer, "delete", "UserService.deleteUser");
+        this.ratingTimer = operationTimer(meterRegistry, userTracer, "rating", "UserService.updateUserRating");
+        this.currencyTimer = operationTimer(meterRegistry, userTracer, "currency", "UserService.updateCurrency");
+        Gauge.builder("user.cache.size", userCache, ExpiringCache::size)
+            .description("User profiles held in the in-memory cache")
+            .register(meterRegistry);
+        Gauge.builder("user.cache.hit.ratio", userCache, ExpiringCache::hitRatio)
+            .description("Share of profile lookups served from the cache")
+            .register(meterRegistry);
+    }
+    
+    // Профили с истёкшим TTL удаляются вместе с их слушателями Firestore, даже если их больше никто не читает
+    @Scheduled(fixedDelayString = "${user.cache.sweep-interval-ms:60000}")
+    public void sweepUserCache() {
+        int expired = userCache.expire();
+        if (expired > 0) {
+            logger.debug("Expired {} cached user profiles", expired);
+        }
+    }
+    
+    private static OperationTimer operationTimer(MeterRegistry registry, Tracer tracer, String operation, String spanName) {
+        return new OperationTimer(registry, tracer, "user.operations", "User service operations", spanName, "operation", operation);
     }
     
     // Создание пользователя
     public String createUser(User user) throws ExecutionException, InterruptedException {
+        return createUserAsync(user).get();
+    }
+    
+    // Создание пользователя без блокировки вызывающего потока на время записи
+    public CompletableFuture<String> createUserAsync(User user) {
+        return createTimer.recordAsync(() -> writeNewUser(user));
+    }
+    
+    private CompletableFuture<String> writeNewUser(User user) {
         // Если id не указан, генерируем новый документ с автогенерированным ID
         DocumentReference docRef = user.getId() != null 
             ? firestore.collection("users").document(user.getId())
@@ -39,23 +138,140 @@ public class UserService {
         // Записываем данные пользователя
         ApiFuture<WriteResult> result = docRef.set(user);
         
-        // Ждем завершения записи
-        result.get();
-        
-        return user.getId();
+        return FirestoreFutures.toCompletable(result).thenApply(writeResult -> {
+            userCache.update(user.getId(), user, toVersion(writeResult.getUpdateTime()));
+            leaderboardService.onRatingChanged(user.getId(), user.getName(), user.getRating());
+            return user.getId();
+        });
     }
     
-    // Получение пользователя по ID
+    // Получение пользователя по ID (из кэша, при промахе - из Firestore)
     public User getUser(String userId) throws ExecutionException, InterruptedException {
+        return getTimer.record(() -> {
+            User cachedUser = userCache.get(userId);
+            if (cachedUser != null) {
+                return cachedUser;
+            }
+            
+            return userLoads.load(userId, () -> loadUserAsync(userId).get());
+        });
+    }
+    
+    // Получение пользователя без блокировки потока на время чтения из Firestore
+    public CompletableFuture<User> getUserAsync(String userId) {
+        return getTimer.recordAsync(() -> {
+            User cachedUser = userCache.get(userId);
+            if (cachedUser != null) {
+                return CompletableFuture.completedFuture(cachedUser);
+            }
+            
+            return userLoads.loadAsync(userId, () -> loadUserAsync(userId));
+        });
+    }
+    
+    private CompletableFuture<User> loadUserAsync(String userId) {
+        return CacheMissEvent.timeLoad("users", userId, () -> readUserAsync(userId));
+    }
+    
+    private CompletableFuture<User> readUserAsync(String userId) {
         DocumentReference docRef = firestore.collection("users").document(userId);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
         
-        if (document.exists()) {
-            return document.toObject(User.class);
+        if (!userListenersEnabled) {
+            return FirestoreFutures.toCompletable(docRef.get()).thenApply(document -> {
+                if (!document.exists()) {
+                    return null;
+                }
+                User user = document.toObject(User.class);
+                userCache.load(userId, user, toVersion(document.getUpdateTime()), null);
+                return user;
+            });
         }
         
-        return null;
+        // Первый снимок listener'а и есть чтение документа, отдельный get() не нужен
+        CompletableFuture<DocumentSnapshot> firstSnapshot = new CompletableFuture<>();
+        ListenerRegistration registration = docRef.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                if (!firstSnapshot.completeExceptionally(error)) {
+                    logger.warn("User listener failed for {}, dropping cached profile", userId, error);
+                    userCache.invalidate(userId);
+                }
+                return;
+            }
+            if (!firstSnapshot.complete(snapshot)) {
+                onUserChanged(userId, snapshot);
+            }
+        });
+        
+        return firstSnapshot
+            .orTimeout(LISTENER_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .handle((document, error) -> {
+                if (error != null) {
+                    registration.remove();
+                    throw new CompletionException(error instanceof TimeoutException
+                        ? new TimeoutException("Timed out loading user " + userId)
+                        : error);
+                }
+                
+                if (!document.exists()) {
+                    registration.remove();
+                    return null;
+                }
+                
+                User user = document.toObject(User.class);
+                userCache.load(userId, user, toVersion(document.getUpdateTime()), registration::remove);
+                return user;
+            });
+    }
+    
+    // Изменение документа пользователя пришло от listener'а
+    private void onUserChanged(String userId, DocumentSnapshot snapshot) {
+        if (!snapshot.exists()) {
+            userCache.invalidate(userId);
+            leaderboardService.onUserRemoved(userId);
+            return;
+        }
+        
+        Timestamp updateTime = snapshot.getUpdateTime();
+        User user = snapshot.toObject(User.class);
+        if (userCache.replaceIfNewer(userId, user, toVersion(updateTime))) {
+            leaderboardService.onRatingChanged(userId, user.getName(), user.getRating());
+            long lagMs = Math.max(0, System.currentTimeMillis() - updateTime.toDate().getTime());
+            listenerUpdates.incrementAndGet();
+            listenerLagTotalMs.addAndGet(lagMs);
+            listenerLagMaxMs.accumulateAndGet(lagMs, Math::max);
+        }
+    }
+    
+    private static long toVersion(Timestamp updateTime) {
+        return updateTime.getSeconds() * 1_000_000L + updateTime.getNanos() / 1_000;
+    }
+    
+    // Метрики кэша пользователей
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = userCache.stats();
+        long updates = listenerUpdates.get();
+        stats.put("firestoreLoads", userLoads.getLoads());
+        stats.put("coalescedLoads", userLoads.getCoalesced());
+        stats.put("listenerUpdates", updates);
+        stats.put("avgListenerLagMs", updates == 0 ? 0.0 : (double) listenerLagTotalMs.get() / updates);
+        stats.put("maxListenerLagMs", listenerLagMaxMs.get());
+        return stats;
+    }
+    
+    // Страница пользователей в порядке ID, начиная после startAfter
+    public Page<User> getUsersPage(String startAfter, int limit) throws ExecutionException, InterruptedException {
+        return FirestorePages.page(firestore.collection("users"), User.class, startAfter, limit);
+    }
+    
+    // Потоковая выдача всех пользователей постранично, без загрузки коллекции целиком
+    public void streamUsers(int pageSize, FirestorePages.ItemWriter<? super User> writer) 
+            throws ExecutionException, InterruptedException, IOException {
+        FirestorePages.forEach(firestore.collection("users"), User.class, pageSize, writer);
+    }
+    
+    // Пользователи как Flux для реактивного API: страницы читаются из Firestore по мере запроса
+    public Flux<User> usersFlux(int pageSize) {
+        return ReactiveFirestore.documents(firestore.collection("users"), User.class, pageSize);
     }
     
     // Получение всех пользователей
@@ -72,6 +288,15 @@ public class UserService {
     }
       // Обновление пользователя
     public String updateUser(User user) throws ExecutionException, InterruptedException {
+        return updateUserAsync(user).get();
+    }
+    
+    // Обновление пользователя без блокировки вызывающего потока
+    public CompletableFuture<String> updateUserAsync(User user) {
+        return updateTimer.recordAsync(() -> writeUser(user));
+    }
+    
+    private CompletableFuture<String> writeUser(User user) {
         if (user.getId() == null) {
             throw new IllegalArgumentException("User ID cannot be null for update");
         }
@@ -79,82 +304,194 @@ public class UserService {
         DocumentReference docRef = firestore.collection("users").document(user.getId());
         ApiFuture<WriteResult> result = docRef.set(user);
         
-        result.get();
-        
-        return user.getId();
+        return FirestoreFutures.toCompletable(result).handle((writeResult, error) -> {
+            if (error != null) {
+                // Кэшированный объект мог быть изменён до неудачной записи
+                userCache.invalidate(user.getId());
+                throw new CompletionException(error);
+            }
+            userCache.update(user.getId(), user, toVersion(writeResult.getUpdateTime()));
+            leaderboardService.onRatingChanged(user.getId(), user.getName(), user.getRating());
+            return user.getId();
+        });
     }
     
-    // Обновление рейтинга пользователя
+    // Обновление рейтинга пользователя по результату матча без известного соперника.
+    // Новое состояние Glicko-2 зависит от текущего, поэтому чтение и запись идут в одной транзакции.
     public User updateUserRating(String userId, boolean isWin) throws ExecutionException, InterruptedException {
-        User user = getUser(userId);
+        return ratingTimer.record(() -> rateAgainstReference(userId, isWin));
+    }
+    
+    private User rateAgainstReference(String userId, boolean isWin) throws ExecutionException, InterruptedException {
+        int coinChange = isWin ? WIN_COINS : LOSS_COINS;
+        int gemChange = isWin ? WIN_GEMS : LOSS_GEMS;
+        DocumentReference docRef = firestore.collection("users").document(userId);
         
-        if (user == null) {
-            throw new IllegalArgumentException("User not found");
+        User user;
+        try {
+            user = firestore.runTransaction(transaction -> {
+                DocumentSnapshot document = transaction.get(docRef).get();
+                if (!document.exists()) {
+                    throw new IllegalArgumentException("User not found");
+                }
+                
+                User current = document.toObject(User.class);
+                ratingEngine.rateAgainstReference(current, isWin).applyTo(current);
+                current.setCoin(Math.max(0, current.getCoin() + coinChange));
+                current.setGem(Math.max(0, current.getGem() + gemChange));
+                
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("rating", current.getRating());
+                updates.put("rank", current.getRank());
+                updates.put("glickoRating", current.getGlickoRating());
+                updates.put("glickoDeviation", current.getGlickoDeviation());
+                updates.put("glickoVolatility", current.getGlickoVolatility());
+                updates.put("coin", current.getCoin());
+                updates.put("gem", current.getGem());
+                transaction.update(docRef, updates);
+                return current;
+            }).get();
+        } catch (ExecutionException e) {
+            userCache.invalidate(userId);
+            if (e.getCause() instanceof IllegalArgumentException cause) {
+                throw cause;
+            }
+            throw e;
         }
         
-        // Обновление рейтинга
-        int ratingChange = isWin ? 15 : -10;
-        int newRating = Math.max(0, user.getRating() + ratingChange);
-        user.setRating(newRating);
-        
-        // Обновление игровой валюты
-        int coinChange = isWin ? 25 : 5;  // 25 монет за победу, 5 за участие
-        int gemChange = isWin ? 1 : 0;    // 1 кристалл за победу
-        
-        int currentCoins = user.getCoin();
-        int currentGems = user.getGem();
-        
-        user.setCoin(currentCoins + coinChange);
-        user.setGem(currentGems + gemChange);
-        
-        // Сохранение обновленных данных пользователя
-        updateUser(user);
-        
+        userCache.update(userId, user, 0);
+        leaderboardService.onRatingChanged(userId, user.getName(), user.getRating());
         return user;
     }
     
     // Обновление игровой валюты пользователя
     public User updateCurrency(String userId, int coinChange, int gemChange) throws ExecutionException, InterruptedException {
-        User user = getUser(userId);
+        return currencyTimer.record(() -> applyDeltas(userId, coinChange, gemChange));
+    }
+    
+    // Начисления (неотрицательные изменения) - один частичный update() с серверными FieldValue.increment:
+    // одна запись вместо чтения и полной перезаписи документа, параллельные награды не затирают друг друга.
+    // Списания идут через транзакцию, которая читает значение на сервере: проверка по кэшу не защищает
+    // от двух одновременных покупок, уводящих баланс в минус.
+    private User applyDeltas(String userId, int coinChange, int gemChange) 
+            throws ExecutionException, InterruptedException {
+        if (coinChange < 0 || gemChange < 0) {
+            return applyClampedDeltas(userId, coinChange, gemChange);
+        }
         
-        if (user == null) {
-            throw new IllegalArgumentException("User not found");
+        Map<String, Object> updates = new HashMap<>();
+        if (coinChange != 0) {
+            updates.put("coin", FieldValue.increment(coinChange));
+        }
+        if (gemChange != 0) {
+            updates.put("gem", FieldValue.increment(gemChange));
+        }
+        if (updates.isEmpty()) {
+            User user = getUser(userId);
+            if (user == null) {
+                throw new IllegalArgumentException("User not found");
+            }
+            return user;
         }
         
-        int currentCoins = user.getCoin();
-        int currentGems = user.getGem();
+        updateFields(userId, updates);
         
-        user.setCoin(Math.max(0, currentCoins + coinChange));
-        user.setGem(Math.max(0, currentGems + gemChange));
+        // Кэшированный профиль получает то же приращение на месте, без повторного чтения. Точный итог
+        // (с чужими начислениями) знает только сервер: его принесёт listener со снимком этой же записи
+        User patched = userCache.patch(userId, user -> {
+            user.setCoin(user.getCoin() + coinChange);
+            user.setGem(user.getGem() + gemChange);
+        });
+        return patched != null ? patched : getUser(userId);
+    }
+    
+    // Частичная запись полей существующего документа; отсутствующий пользователь - IllegalArgumentException
+    private void updateFields(String userId, Map<String, Object> updates) 
+            throws ExecutionException, InterruptedException {
+        try {
+            firestore.collection("users").document(userId).update(updates).get();
+        } catch (ExecutionException e) {
+            userCache.invalidate(userId);
+            if (e.getCause() instanceof FirestoreException cause && cause.getStatus() != null
+                    && cause.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                throw new IllegalArgumentException("User not found");
+            }
+            throw e;
+        }
+    }
+    
+    // Награды за матч уже записаны транзакцией SettlementService: кэш получает профиль в записанном виде
+    // (новый объект, прочитанный в транзакции), рейтинговая таблица - новый рейтинг
+    void onMatchSettled(User user) {
+        userCache.update(user.getId(), user, 0);
+        leaderboardService.onRatingChanged(user.getId(), user.getName(), user.getRating());
+    }
+    
+    // Рейтинг пересчитан RatingRecomputeService и уже записан: кэшированный профиль просто сбрасываем
+    void onRatingRecomputed(String userId, int rating) {
+        userCache.invalidate(userId);
+        leaderboardService.onRatingChanged(userId, rating);
+    }
+    
+    // Медленный путь с ограничением в ноль: чтение и частичная запись в одной транзакции
+    private User applyClampedDeltas(String userId, int coinChange, int gemChange) 
+            throws ExecutionException, InterruptedException {
+        DocumentReference docRef = firestore.collection("users").document(userId);
         
-        // Сохранение обновленных данных пользователя
-        updateUser(user);
+        User user;
+        try {
+            user = firestore.runTransaction(transaction -> {
+                DocumentSnapshot document = transaction.get(docRef).get();
+                if (!document.exists()) {
+                    throw new IllegalArgumentException("User not found");
+                }
+                
+                User current = document.toObject(User.class);
+                current.setCoin(Math.max(0, current.getCoin() + coinChange));
+                current.setGem(Math.max(0, current.getGem() + gemChange));
+                
+                transaction.update(docRef, Map.of(
+                    "coin", current.getCoin(),
+                    "gem", current.getGem()));
+                return current;
+            }).get();
+        } catch (ExecutionException e) {
+            userCache.invalidate(userId);
+            if (e.getCause() instanceof IllegalArgumentException cause) {
+                throw cause;
+            }
+            throw e;
+        }
         
+        userCache.update(userId, user, 0);
         return user;
     }
     
     // Удаление пользователя
     public String deleteUser(String userId) throws ExecutionException, InterruptedException {
-        ApiFuture<WriteResult> result = firestore.collection("users").document(userId).delete();
-        result.get();
-        
-        return userId;
+        return deleteUserAsync(userId).get();
     }
     
-    // Добавление предмета в инвентарь
+    // Удаление пользователя без блокировки вызывающего потока
+    public CompletableFuture<String> deleteUserAsync(String userId) {
+        return deleteTimer.recordAsync(() -> {
+            ApiFuture<WriteResult> result = firestore.collection("users").document(userId).delete();
+            
+            return FirestoreFutures.toCompletable(result).thenApply(writeResult -> {
+                userCache.invalidate(userId);
+                leaderboardService.onUserRemoved(userId);
+                return userId;
+            });
+        });
+    }
+    
+    // Добавление предмета в инвентарь: FieldValue.arrayUnion на сервере вместо полной перезаписи профиля
+    // из кэша, так что параллельная запись (начисление, другая покупка) не теряется
     public User addToInventory(String userId, String itemId) throws ExecutionException, InterruptedException {
-        User user = getUser(userId);
-        
-        if (user == null) {
-            throw new IllegalArgumentException("User not found");
-        }
-        
-        user.addToInventory(itemId);
+        updateFields(userId, Map.of("inventory", FieldValue.arrayUnion(itemId)));
         
-        // Сохранение обновленных данных пользователя
-        updateUser(user);
-        
-        return user;
+        User patched = userCache.patch(userId, user -> user.addToInventory(itemId));
+        return patched != null ? patched : getUser(userId);
     }
     
     // Проверка наличия предмета в инвентаре
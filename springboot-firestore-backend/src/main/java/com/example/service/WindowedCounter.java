@@ -0,0 +1,127 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free row of counters (e.g. attempts / landed / damage of a move) with all-time totals and
+// sliding-window rollups. Each window is a ring of time buckets (1m = 60 x 1s, 1h = 60 x 1m, 1d = 24 x 1h);
+// a bucket holds one LongAdder per field and is tagged with its epoch. Recording finds one bucket per window
+// and does striped increments; a bucket from an older lap of the ring is replaced by CAS, so there are
+// no locks and no resets racing with writers.
+final class WindowedCounter {
+
+    enum Window {
+        MINUTE("1m", 60, 1_000),
+        HOUR("1h", 60, 60_000),
+        DAY("1d", 24, 3_600_000);
+
+        final String label;
+        final int buckets;
+        final long bucketMs;
+
+        Window(String label, int buckets, long bucketMs) {
+            this.label = label;
+            this.buckets = buckets;
+            this.bucketMs = bucketMs;
+        }
+
+        static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equals(label)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Window[] WINDOWS = Window.values();
+
+    private final int fields;
+    private final LongAdder[] totals;
+    private final List<AtomicReferenceArray<Bucket>> rings; // indexed by Window.ordinal()
+
+    WindowedCounter(int fields) {
+        this.fields = fields;
+        this.totals = newAdders(fields);
+        List<AtomicReferenceArray<Bucket>> rings = new ArrayList<>(WINDOWS.length);
+        for (Window window : WINDOWS) {
+            rings.add(new AtomicReferenceArray<>(window.buckets));
+        }
+        this.rings = List.copyOf(rings);
+    }
+
+    // Adds deltas[i] to field i; zero deltas are skipped
+    void add(long nowMs, long... deltas) {
+        add(totals, deltas);
+        for (int w = 0; w < WINDOWS.length; w++) {
+            add(bucket(w, nowMs / WINDOWS[w].bucketMs).counts, deltas);
+        }
+    }
+
+    long total(int field) {
+        return totals[field].sum();
+    }
+
+    // Sum over the window ending now; the oldest bucket may be partially outside it
+    long sum(int field, Window window, long nowMs) {
+        AtomicReferenceArray<Bucket> ring = rings.get(window.ordinal());
+        long epoch = nowMs / window.bucketMs;
+        long sum = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch > epoch - window.buckets && bucket.epoch <= epoch) {
+                sum += bucket.counts[field].sum();
+            }
+        }
+        return sum;
+    }
+
+    // All-time total for a null window
+    long read(int field, Window window, long nowMs) {
+        return window == null ? total(field) : sum(field, window, nowMs);
+    }
+
+    private Bucket bucket(int window, long epoch) {
+        AtomicReferenceArray<Bucket> ring = rings.get(window);
+        int index = (int) (epoch % ring.length());
+        while (true) {
+            Bucket bucket = ring.get(index);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket; // newer epoch: a writer with a slightly later clock already moved on, count it there
+            }
+            Bucket fresh = new Bucket(epoch, newAdders(fields));
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static void add(LongAdder[] counts, long[] deltas) {
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] != 0) {
+                counts[i].add(deltas[i]);
+            }
+        }
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static final class Bucket {
+        final long epoch;
+        final LongAdder[] counts;
+
+        Bucket(long epoch, LongAdder[] counts) {
+            this.epoch = epoch;
+            this.counts = counts;
+        }
+    }
+}
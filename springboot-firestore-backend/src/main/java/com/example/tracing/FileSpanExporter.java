@@ -0,0 +1,134 @@
+package com.example.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+// Local stand-in for an OTLP exporter: one span per line in the OTLP/JSON span shape (trace and span IDs,
+// unix-nano timestamps, typed attributes, status), so traces can be inspected offline with jq or loaded into
+// a collector's file receiver. The file is rotated to <file>.1 once it grows past maxFileBytes.
+public class FileSpanExporter implements SpanExporter {
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BufferedWriter writer; // guarded by this
+    private long fileBytes; // guarded by this
+
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(FileSpanExporter.class);
+
+    public FileSpanExporter(Path file, long maxFileBytes) throws IOException {
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                String line = objectMapper.writeValueAsString(toOtlp(span));
+                if (writer == null || fileBytes >= maxFileBytes) {
+                    open();
+                }
+                writer.write(line);
+                writer.newLine();
+                fileBytes += line.length() + 1;
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            logger.warn("Failed to write {} spans to {}", spans.size(), file, e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private void open() throws IOException {
+        if (writer != null) {
+            writer.close();
+            Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileBytes = Files.size(file);
+    }
+
+    private static Map<String, Object> toOtlp(SpanData span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        if (span.getParentSpanContext().isValid()) {
+            json.put("parentSpanId", span.getParentSpanId());
+        }
+        json.put("name", span.getName());
+        json.put("kind", "SPAN_KIND_" + span.getKind().name());
+        json.put("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+        json.put("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+        json.put("durationMs", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+
+        List<Map<String, Object>> attributes = new ArrayList<>();
+        span.getAttributes().forEach((key, value) -> attributes.add(Map.of("key", key.getKey(), "value", typed(key, value))));
+        json.put("attributes", attributes);
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("code", "STATUS_CODE_" + span.getStatus().getStatusCode().name());
+        if (!span.getStatus().getDescription().isEmpty()) {
+            status.put("message", span.getStatus().getDescription());
+        }
+        json.put("status", status);
+        json.put("service", span.getResource().getAttribute(AttributeKey.stringKey("service.name")));
+        return json;
+    }
+
+    private static Map<String, Object> typed(AttributeKey<?> key, Object value) {
+        return switch (key.getType()) {
+            case BOOLEAN -> Map.of("boolValue", value);
+            case LONG -> Map.of("intValue", value.toString());
+            case DOUBLE -> Map.of("doubleValue", value);
+            default -> Map.of("stringValue", value.toString());
+        };
+    }
+
+    @Override
+    public synchronized CompletableResultCode flush() {
+        try {
+            if (writer != null) {
+                writer.flush();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.tracing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+// Head + tail sampling in one processor. Every span is recorded; finished spans are buffered per trace until
+// the trace's local root span ends, and then the whole trace is either exported or dropped:
+//   error - some span of the trace failed
+//   slow  - the root took at least slowThresholdMs (all slow traces are kept)
+//   head  - the trace ID falls in the headRate fraction (decided from the ID alone, so every instance agrees)
+// Spans that end after their root (async continuations) follow the decision already made for their trace.
+// Both the buffer and the remembered decisions are bounded; the oldest entries are dropped first.
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private final SpanProcessor exportProcessor;
+    private final double headRate;
+    private final long headBound;
+    private final long slowThresholdNanos;
+    private final int maxPendingTraces;
+    private final int maxSpansPerTrace;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, List<ReadableSpan>> pending = new LinkedHashMap<>(); // guarded by lock
+    private final LinkedHashMap<String, Boolean> decided = new LinkedHashMap<>(); // guarded by lock
+
+    private final AtomicLong keptError = new AtomicLong();
+    private final AtomicLong keptSlow = new AtomicLong();
+    private final AtomicLong keptHead = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spansDiscarded = new AtomicLong(); // buffer overflow or evicted before a decision
+    private final AtomicLong spansExported = new AtomicLong();
+
+    public TailSamplingSpanProcessor(SpanExporter exporter, double headRate, long slowThresholdMs,
+                                     int maxPendingTraces, int maxSpansPerTrace) {
+        this.exportProcessor = BatchSpanProcessor.builder(exporter).build();
+        this.headRate = headRate;
+        this.headBound = (long) (Math.max(0, Math.min(1, headRate)) * Long.MAX_VALUE);
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.maxPendingTraces = maxPendingTraces;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!span.getSpanContext().isSampled()) {
+            return;
+        }
+        String traceId = span.getSpanContext().getTraceId();
+        SpanContext parent = span.getParentSpanContext();
+        boolean localRoot = !parent.isValid() || parent.isRemote();
+
+        List<ReadableSpan> export;
+        synchronized (lock) {
+            Boolean decision = decided.get(traceId);
+            if (decision != null) {
+                export = decision ? List.of(span) : List.of();
+            } else if (!localRoot) {
+                buffer(traceId, span);
+                return;
+            } else {
+                List<ReadableSpan> spans = pending.remove(traceId);
+                if (spans == null) {
+                    spans = new ArrayList<>(1);
+                }
+                spans.add(span);
+                boolean keep = decide(span, spans);
+                remember(traceId, keep);
+                export = keep ? spans : List.of();
+            }
+        }
+
+        for (ReadableSpan finished : export) {
+            exportProcessor.onEnd(finished);
+        }
+        spansExported.addAndGet(export.size());
+    }
+
+    private void buffer(String traceId, ReadableSpan span) {
+        List<ReadableSpan> spans = pending.get(traceId);
+        if (spans == null) {
+            if (pending.size() >= maxPendingTraces) {
+                var eldest = pending.entrySet().iterator();
+                spansDiscarded.addAndGet(eldest.next().getValue().size());
+                eldest.remove();
+            }
+            spans = new ArrayList<>();
+            pending.put(traceId, spans);
+        }
+        if (spans.size() < maxSpansPerTrace) {
+            spans.add(span);
+        } else {
+            spansDiscarded.incrementAndGet();
+        }
+    }
+
+    private void remember(String traceId, boolean keep) {
+        if (decided.size() >= maxPendingTraces) {
+            var eldest = decided.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        decided.put(traceId, keep);
+    }
+
+    private boolean decide(ReadableSpan root, List<ReadableSpan> spans) {
+        for (ReadableSpan span : spans) {
+            if (span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR) {
+                keptError.incrementAndGet();
+                return true;
+            }
+        }
+        if (root.getLatencyNanos() >= slowThresholdNanos) {
+            keptSlow.incrementAndGet();
+            return true;
+        }
+        if (headSampled(root.getSpanContext().getTraceId())) {
+            keptHead.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    // Same rule as the OpenTelemetry trace-ID ratio sampler: the low 64 bits of the ID against the rate
+    private boolean headSampled(String traceId) {
+        if (headRate >= 1) {
+            return true;
+        }
+        long random = Long.parseUnsignedLong(traceId, 16, 32, 16);
+        return (random >>> 1) < headBound;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("headRate", headRate);
+        stats.put("slowThresholdMs", TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos));
+        synchronized (lock) {
+            stats.put("pendingTraces", pending.size());
+        }
+        stats.put("keptError", keptError.get());
+        stats.put("keptSlow", keptSlow.get());
+        stats.put("keptHead", keptHead.get());
+        stats.put("dropped", dropped.get());
+        stats.put("spansExported", spansExported.get());
+        stats.put("spansDiscarded", spansDiscarded.get());
+        return stats;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return exportProcessor.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return exportProcessor.shutdown();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.model.Game;
+import com.example.model.Player;
+
+// GameCache eviction order (finished, then idle, never a live match), demotion of abandoned running games, and
+// replaceIfNewer and eviction under concurrent load.
+class GameCacheTest {
+
+    @Test
+    void evictsFinishedThenIdleAndKeepsLiveMatchesOverTheBound() {
+        GameCache cache = new GameCache(4, Long.MAX_VALUE, 60_000);
+        Game finished = game("finished");
+        Game idle = game("waiting");
+        List<Game> running = List.of(game("running"), game("running"), game("running"));
+        cache.put(finished);
+        cache.put(idle);
+        running.forEach(cache::put);
+
+        assertThat(cache.contains(finished.getId())).isFalse();
+        assertThat(cache.contains(idle.getId())).isTrue();
+
+        Game fourth = game("running");
+        cache.put(fourth);
+        assertThat(cache.contains(idle.getId())).isFalse();
+        assertThat(cache.getEvictions()).isEqualTo(2);
+
+        Game fifth = game("running");
+        cache.put(fifth);
+        assertThat(cache.size()).isEqualTo(5);
+        running.forEach(game -> assertThat(cache.contains(game.getId())).isTrue());
+        assertThat(cache.stats()).containsEntry("overCapacityPuts", 1L);
+    }
+
+    @Test
+    void demotesOnlyAbandonedRunningGames() throws Exception {
+        GameCache cache = new GameCache(2, Long.MAX_VALUE, 100);
+        Game abandoned = game("running");
+        Game live = game("running");
+        cache.put(abandoned);
+        cache.put(live);
+        Thread.sleep(200);
+        cache.get(live.getId()); // a player is still reading it
+
+        cache.put(game("running"));
+
+        assertThat(cache.contains(abandoned.getId())).isFalse();
+        assertThat(cache.contains(live.getId())).isTrue();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void replaceIfNewerKeepsTheNewestVersionUnderConcurrentWriters() throws Exception {
+        GameCache cache = new GameCache(1_000, Long.MAX_VALUE, 60_000);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Game game = game("running");
+            cache.put(game);
+            ids.add(game.getId());
+        }
+        Map<String, Long> newestOffered = new ConcurrentHashMap<>();
+
+        runConcurrently(8, 20_000, random -> {
+            String gameId = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(4) == 0) {
+                cache.get(gameId);
+                return;
+            }
+            long version = 1 + random.nextInt(1_000_000);
+            Game game = game("running");
+            game.setId(gameId);
+            game.setWinner(Long.toString(version)); // marks which version this copy is
+            cache.replaceIfNewer(game, version);
+            newestOffered.merge(gameId, version, Math::max);
+        });
+
+        for (String gameId : ids) {
+            assertThat(cache.peek(gameId).getWinner()).isEqualTo(Long.toString(newestOffered.get(gameId)));
+            assertThat(cache.replaceIfNewer(cache.peek(gameId), newestOffered.get(gameId))).isFalse();
+        }
+        assertThat(cache.size()).isEqualTo(ids.size());
+        assertThat(cache.weight()).isEqualTo(totalWeight(cache));
+    }
+
+    @Test
+    void staysWithinItsBoundsUnderConcurrentChurn() throws Exception {
+        int maxEntries = 200;
+        GameCache cache = new GameCache(maxEntries, 64 * 1024, 60_000);
+        List<Game> live = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Game game = game("running");
+            cache.put(game);
+            live.add(game);
+        }
+
+        runConcurrently(8, 20_000, random -> {
+            Game game = game(random.nextBoolean() ? "finished" : "waiting");
+            cache.put(game);
+            if (random.nextInt(3) == 0) {
+                Game running = live.get(random.nextInt(live.size()));
+                cache.get(running.getId());
+            }
+            if (random.nextInt(5) == 0) {
+                cache.remove(game.getId());
+            }
+        });
+
+        assertThat(cache.size()).isLessThanOrEqualTo(maxEntries);
+        assertThat(cache.weight()).isLessThanOrEqualTo(64 * 1024).isEqualTo(totalWeight(cache));
+        live.forEach(game -> assertThat(cache.contains(game.getId())).isTrue());
+        assertThat(cache.getEvictions()).isPositive();
+    }
+
+    private interface Step {
+        void run(ThreadLocalRandom random);
+    }
+
+    private static void runConcurrently(int threads, int stepsPerThread, Step step) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < stepsPerThread; i++) {
+                        step.run(random);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long totalWeight(GameCache cache) {
+        return cache.games().stream().mapToLong(GameCache::estimateWeight).sum();
+    }
+
+    private static Game game(String status) {
+        Game game = new Game(new Player("p1-" + UUID.randomUUID(), "One"), new Player("p2", "Two"));
+        game.setStatus(status);
+        return game;
+    }
+}
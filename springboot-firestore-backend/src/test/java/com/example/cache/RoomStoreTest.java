@@ -0,0 +1,166 @@
+package com.example.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.example.model.Room;
+
+// Both RoomStore implementations must round-trip every room field, hand out snapshots rather than the stored
+// object, and agree with each other on any sequence of operations.
+class RoomStoreTest {
+
+    static Stream<Arguments> stores() {
+        return Stream.of(
+            Arguments.of("heap", (Supplier<RoomStore>) HeapRoomStore::new),
+            Arguments.of("offheap", (Supplier<RoomStore>) OffHeapRoomStore::new));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("stores")
+    void roundTripsEveryField(String name, Supplier<RoomStore> factory) {
+        RoomStore store = factory.get();
+        Room full = room(UUID.randomUUID().toString(), new Random(1));
+        full.setCreatedAt("2024-05-01T10:00:00Z"); // not numeric
+        Room sparse = new Room();
+        sparse.setRoomId("lobby-7"); // not a UUID
+
+        store.put(full);
+        store.put(sparse);
+
+        assertThat(store.get(full.getRoomId())).usingRecursiveComparison().isEqualTo(full);
+        assertThat(store.get(sparse.getRoomId())).usingRecursiveComparison().isEqualTo(sparse);
+        assertThat(store.get("missing")).isNull();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("stores")
+    void handsOutSnapshots(String name, Supplier<RoomStore> factory) {
+        RoomStore store = factory.get();
+        Room room = room(UUID.randomUUID().toString(), new Random(2));
+        store.put(room);
+        Object characterId = room.getHostCharacter().get("id");
+        room.setStatus("finished"); // the caller's object after put
+        room.getHostCharacter().put("id", "changed");
+
+        Room read = store.get(room.getRoomId());
+        assertThat(read.getStatus()).isEqualTo("waiting");
+        assertThat(read.getHostCharacter()).containsEntry("id", characterId);
+
+        read.setGuestName("someone else");
+        read.getHostCharacter().put("skin", "gold");
+        store.rooms().get(0).setWinner("host");
+
+        Room again = store.get(room.getRoomId());
+        assertThat(again).isNotSameAs(read);
+        assertThat(again.getGuestName()).isNotEqualTo("someone else");
+        assertThat(again.getHostCharacter()).doesNotContainKey("skin");
+        assertThat(again.getWinner()).isNull();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("stores")
+    void appliesOnlyNewerVersions(String name, Supplier<RoomStore> factory) {
+        RoomStore store = factory.get();
+        Room room = room(UUID.randomUUID().toString(), new Random(3));
+        assertThat(store.putIfNewer(room, 10)).isTrue();
+
+        Room older = new Room(room);
+        older.setStatus("older");
+        assertThat(store.putIfNewer(older, 10)).isFalse();
+        assertThat(store.get(room.getRoomId()).getStatus()).isEqualTo("waiting");
+
+        store.recordVersion(room.getRoomId(), 20);
+        assertThat(store.putIfNewer(older, 15)).isFalse();
+        Room newer = new Room(room);
+        newer.setStatus("playing");
+        assertThat(store.putIfNewer(newer, 21)).isTrue();
+        assertThat(store.get(room.getRoomId()).getStatus()).isEqualTo("playing");
+
+        // put keeps the version; remove forgets it
+        store.put(older);
+        assertThat(store.putIfNewer(newer, 21)).isFalse();
+        assertThat(store.remove(room.getRoomId())).isTrue();
+        assertThat(store.putIfNewer(older, 1)).isTrue();
+    }
+
+    @Test
+    void offHeapBehavesLikeHeapUnderRandomOperations() {
+        RoomStore heap = new HeapRoomStore();
+        RoomStore offHeap = new OffHeapRoomStore();
+        Random random = new Random(42);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(i % 5 == 0 ? "room-" + i : UUID.randomUUID().toString());
+        }
+
+        for (int step = 0; step < 20_000; step++) {
+            String roomId = ids.get(random.nextInt(ids.size()));
+            switch (random.nextInt(6)) {
+                case 0, 1 -> {
+                    Room room = room(roomId, random);
+                    heap.put(room);
+                    offHeap.put(room);
+                }
+                case 2 -> {
+                    Room room = room(roomId, random);
+                    long version = random.nextInt(1000);
+                    assertThat(offHeap.putIfNewer(room, version)).isEqualTo(heap.putIfNewer(room, version));
+                }
+                case 3 -> {
+                    long version = random.nextInt(1000);
+                    heap.recordVersion(roomId, version);
+                    offHeap.recordVersion(roomId, version);
+                }
+                case 4 -> assertThat(offHeap.remove(roomId)).isEqualTo(heap.remove(roomId));
+                default -> {
+                    assertThat(offHeap.contains(roomId)).isEqualTo(heap.contains(roomId));
+                    assertThat(offHeap.get(roomId)).usingRecursiveComparison().isEqualTo(heap.get(roomId));
+                }
+            }
+            if (step % 5_000 == 4_999) {
+                heap.clear();
+                offHeap.clear();
+            }
+            assertThat(offHeap.size()).isEqualTo(heap.size());
+        }
+
+        assertThat(offHeap.roomIds()).containsExactlyInAnyOrderElementsOf(heap.roomIds());
+        for (String roomId : heap.roomIds()) {
+            assertThat(offHeap.get(roomId)).usingRecursiveComparison().isEqualTo(heap.get(roomId));
+        }
+    }
+
+    private static Room room(String roomId, Random random) {
+        Room room = new Room("host-" + random.nextInt(50), "Host " + random.nextInt(50), character(random));
+        room.setRoomId(roomId);
+        if (random.nextBoolean()) {
+            room.addGuest("guest-" + random.nextInt(50), "Guest", character(random));
+            room.setGuestReady(random.nextBoolean());
+            room.setGameId(random.nextBoolean() ? roomId + "~" + random.nextInt(1000) : null);
+            room.setHostAction(random.nextBoolean() ? Map.of("type", "attack", "x", random.nextInt(1200)) : null);
+        }
+        room.setBackendRoomId(random.nextBoolean() ? "backend-" + random.nextInt(10) : null);
+        room.setLastUpdated(random.nextLong());
+        return room;
+    }
+
+    private static Map<String, Object> character(Random random) {
+        Map<String, Object> character = new HashMap<>();
+        character.put("id", "char-" + random.nextInt(3));
+        character.put("level", random.nextInt(10));
+        return character;
+    }
+}
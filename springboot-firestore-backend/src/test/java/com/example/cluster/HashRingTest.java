@@ -0,0 +1,65 @@
+package com.example.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> THREE = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+
+    @Test
+    void sameNodesGiveTheSameOwnersInAnyOrder() {
+        HashRing ring = new HashRing(THREE, 128);
+        HashRing shuffled = new HashRing(List.of(THREE.get(2), THREE.get(0), THREE.get(1)), 128);
+        for (int i = 0; i < 1_000; i++) {
+            String key = UUID.randomUUID().toString();
+            assertThat(shuffled.ownerOf(key)).isEqualTo(ring.ownerOf(key));
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        HashRing before = new HashRing(THREE, 128);
+        HashRing after = new HashRing(List.of(THREE.get(0), THREE.get(1), THREE.get(2), "http://d:8080"), 128);
+        int moved = 0;
+        int keys = 20_000;
+        for (int i = 0; i < keys; i++) {
+            String key = UUID.randomUUID().toString();
+            if (!before.ownerOf(key).equals(after.ownerOf(key))) {
+                moved++;
+                assertThat(after.ownerOf(key)).isEqualTo("http://d:8080");
+            }
+        }
+        assertThat(moved).isBetween(keys / 8, keys * 3 / 8); // about a quarter
+    }
+
+    @Test
+    void successorTakesTheKeysOfARemovedNode() {
+        HashRing ring = new HashRing(THREE, 128);
+        for (int i = 0; i < 1_000; i++) {
+            String key = UUID.randomUUID().toString();
+            String owner = ring.ownerOf(key);
+            String successor = ring.successorOf(key);
+            assertThat(successor).isNotNull().isNotEqualTo(owner);
+            List<String> rest = THREE.stream().filter(node -> !node.equals(owner)).toList();
+            assertThat(new HashRing(rest, 128).ownerOf(key)).isEqualTo(successor);
+        }
+        assertThat(new HashRing(List.of(THREE.get(0)), 128).successorOf("game")).isNull();
+    }
+
+    @Test
+    void childKeysLandWithTheirParent() {
+        HashRing ring = new HashRing(THREE, 128);
+        for (int i = 0; i < 1_000; i++) {
+            String room = UUID.randomUUID().toString();
+            String game = HashRing.childKey(room, UUID.randomUUID().toString());
+            assertThat(game).isNotEqualTo(room);
+            assertThat(ring.ownerOf(game)).isEqualTo(ring.ownerOf(room));
+            assertThat(ring.successorOf(game)).isEqualTo(ring.successorOf(room));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.service.AdmissionService;
+import com.example.service.AdmissionService.Priority;
+import com.google.firestore.v1.Document;
+import com.google.firestore.v1.GetDocumentRequest;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Admission control against a latency-injecting Firestore stand-in: the real FirestoreCallInterceptor and
+// FirestoreLatencyInjector sit on a fake channel whose latency the test raises mid-run, while a pool of workers
+// plays requests of every priority through AdmissionService.
+class AdmissionUnderLatencyTest {
+
+    private static final MethodDescriptor<GetDocumentRequest, Document> GET_DOCUMENT =
+        MethodDescriptor.<GetDocumentRequest, Document>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("google.firestore.v1.Firestore", "GetDocument"))
+            .setRequestMarshaller(ProtoUtils.marshaller(GetDocumentRequest.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(Document.getDefaultInstance()))
+            .build();
+
+    private final SlowBackend backend = new SlowBackend();
+
+    @AfterEach
+    void stopBackend() {
+        backend.timer.shutdownNow();
+    }
+
+    @Test
+    void injectedLatencyDelaysEveryCall() throws Exception {
+        Channel channel = ClientInterceptors.intercept(backend, new FirestoreLatencyInjector(50, 0));
+
+        long start = System.nanoTime();
+        Document document = get(channel);
+
+        assertThat(document).isNotNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void slowdownShrinksTheLimitAndShedsListingsFirst() throws Exception {
+        AdmissionService admission = new AdmissionService(new SimpleMeterRegistry(), true,
+            40, 8, 100, 1.5, 1, 0.8, 0.8, 0.5);
+        // Listed last, so the call interceptor runs first and measures the injected delay, as in FirebaseConfig
+        Channel channel = ClientInterceptors.intercept(backend, new FirestoreLatencyInjector(2, 2),
+            new FirestoreCallInterceptor(new SimpleMeterRegistry(), admission));
+
+        // Open loop like real traffic: 400 requests/s onto a pool the size of Tomcat's, each doing two reads.
+        // One in five is an in-match action, two are other reads, two are listings.
+        Map<Priority, LongAdder> rejected = counters();
+        List<Long> criticalMillis = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean degraded = new AtomicBoolean();
+        AtomicLong sequence = new AtomicLong();
+        ExecutorService server = Executors.newFixedThreadPool(200);
+        ScheduledExecutorService clients = Executors.newSingleThreadScheduledExecutor();
+        clients.scheduleAtFixedRate(() -> {
+            long n = sequence.getAndIncrement();
+            Priority priority = n % 5 == 0 ? Priority.CRITICAL : n % 5 < 3 ? Priority.NORMAL : Priority.LOW;
+            long submittedAt = System.nanoTime();
+            server.execute(() -> {
+                if (!admission.tryAcquire(priority)) {
+                    if (degraded.get()) {
+                        rejected.get(priority).increment();
+                    }
+                    return;
+                }
+                try {
+                    get(channel);
+                    get(channel);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    admission.release();
+                }
+                if (degraded.get() && priority == Priority.CRITICAL) {
+                    criticalMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt));
+                }
+            });
+        }, 0, 2_500, TimeUnit.MICROSECONDS);
+
+        backend.latencyMs.set(5);
+        Thread.sleep(1_500);
+        double healthyLimit = admission.getLimit();
+        backend.latencyMs.set(400);
+        degraded.set(true);
+        double lowestLimit = healthyLimit;
+        for (int i = 0; i < 300; i++) {
+            lowestLimit = Math.min(lowestLimit, admission.getLimit());
+            Thread.sleep(10);
+        }
+        clients.shutdownNow();
+        server.shutdown();
+        assertThat(server.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Long> sorted = new ArrayList<>(criticalMillis);
+        Collections.sort(sorted);
+        assertThat(lowestLimit).isLessThan(healthyLimit * 0.75);
+        assertThat(rejected.get(Priority.LOW).sum()).isGreaterThan(rejected.get(Priority.NORMAL).sum());
+        assertThat(rejected.get(Priority.NORMAL).sum()).isGreaterThanOrEqualTo(rejected.get(Priority.CRITICAL).sum());
+        assertThat(sorted).isNotEmpty();
+        // Two 400 ms reads: 400/s would need 320 threads, so without admission requests queue for pool threads
+        assertThat(sorted.get((int) (sorted.size() * 0.99))).isLessThan(1_200L);
+    }
+
+    private static Document get(Channel channel) throws Exception {
+        return ClientCalls.futureUnaryCall(channel.newCall(GET_DOCUMENT, CallOptions.DEFAULT),
+            GetDocumentRequest.newBuilder().setName("projects/p/databases/(default)/documents/games/g").build())
+            .get(5, TimeUnit.SECONDS);
+    }
+
+    private static Map<Priority, LongAdder> counters() {
+        Map<Priority, LongAdder> counters = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            counters.put(priority, new LongAdder());
+        }
+        return counters;
+    }
+
+    // Firestore stand-in: answers every call with an empty document after latencyMs
+    private static final class SlowBackend extends Channel {
+
+        final AtomicLong latencyMs = new AtomicLong();
+        final ScheduledExecutorService timer = Executors.newScheduledThreadPool(4);
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions options) {
+            return new ClientCall<>() {
+                private Listener<RespT> listener;
+
+                @Override
+                public void start(Listener<RespT> responseListener, Metadata headers) {
+                    listener = responseListener;
+                }
+
+                @Override
+                public void request(int numMessages) {
+                }
+
+                @Override
+                public void cancel(String message, Throwable cause) {
+                }
+
+                @Override
+                public void halfClose() {
+                    timer.schedule(() -> {
+                        listener.onMessage(method.parseResponse(Document.getDefaultInstance().toByteString().newInput()));
+                        listener.onClose(Status.OK, new Metadata());
+                    }, latencyMs.get(), TimeUnit.MILLISECONDS);
+                }
+
+                @Override
+                public void sendMessage(ReqT message) {
+                }
+            };
+        }
+
+        @Override
+        public String authority() {
+            return "firestore.test";
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.cluster.HashRing;
+import com.example.controller.ClusterController;
+import com.example.service.ArchiveService;
+import com.example.service.ClusterService;
+import com.example.service.GameService;
+import com.example.service.ReplicationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Three cluster nodes in one JVM on free localhost ports, with the real ClusterService, routing and internal auth
+// filters and an echo controller in place of the game endpoints: every request must be answered by its key's owner,
+// whichever node it reaches.
+class ShardRoutingClusterTest {
+
+    private static final String SECRET = "test-secret";
+
+    private final Map<String, ConfigurableApplicationContext> nodes = new LinkedHashMap<>();
+    private final HttpClient http = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+
+    @Configuration
+    @EnableScheduling
+    @ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class, JacksonAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class})
+    @Import({ClusterService.class, ShardRoutingFilter.class, InternalAuthFilter.class, ClusterController.class,
+        EchoController.class})
+    static class Node {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        GameService gameService() {
+            return Mockito.mock(GameService.class);
+        }
+
+        @Bean
+        ReplicationService replicationService() {
+            return Mockito.mock(ReplicationService.class);
+        }
+    }
+
+    // Stands in for the game, action and archive endpoints: answers with the node that served the request
+    @RestController
+    static class EchoController {
+
+        private final ClusterService cluster;
+
+        EchoController(ClusterService cluster) {
+            this.cluster = cluster;
+        }
+
+        @GetMapping("/api/games/{gameId}")
+        Map<String, String> game(@PathVariable String gameId) {
+            return Map.of("servedBy", cluster.getSelf(), "key", gameId);
+        }
+
+        @PostMapping("/api/games/action")
+        Map<String, String> action(@RequestBody JsonNode action) {
+            return Map.of("servedBy", cluster.getSelf(), "key", action.path("gameId").asText());
+        }
+
+        @GetMapping("/api/archive/summary")
+        Map<String, String> archive() {
+            return Map.of("servedBy", cluster.getSelf(), "key", ArchiveService.ARCHIVE_KEY);
+        }
+    }
+
+    @BeforeEach
+    void startNodes() throws Exception {
+        List<Integer> ports = List.of(freePort(), freePort(), freePort());
+        String members = String.join(",", ports.stream().map(port -> "http://localhost:" + port).toList());
+        for (int port : ports) {
+            nodes.put("http://localhost:" + port, new SpringApplicationBuilder(Node.class).run(
+                "--server.port=" + port, "--cluster.enabled=true", "--cluster.self=http://localhost:" + port,
+                "--cluster.nodes=" + members, "--cluster.secret=" + SECRET, "--cluster.heartbeat-interval-ms=100",
+                "--spring.main.banner-mode=off", "--logging.level.root=WARN"));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!nodes.values().stream().allMatch(node -> cluster(node).getRing().getNodes().size() == 3)) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.values().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void requestsReachTheOwnerFromAnyNode() throws Exception {
+        HashRing ring = cluster(nodes.values().iterator().next()).getRing();
+        for (String entry : nodes.keySet()) {
+            for (int i = 0; i < 10; i++) {
+                String gameId = UUID.randomUUID().toString();
+                assertThat(servedBy(get(entry + "/api/games/" + gameId))).isEqualTo(ring.ownerOf(gameId));
+
+                String body = "{\"gameId\":\"" + gameId + "\",\"actionType\":\"move\"}";
+                assertThat(servedBy(post(entry + "/api/games/action", body))).isEqualTo(ring.ownerOf(gameId));
+            }
+            assertThat(servedBy(get(entry + "/api/archive/summary"))).isEqualTo(ring.ownerOf(ArchiveService.ARCHIVE_KEY));
+        }
+    }
+
+    @Test
+    void roomGamesAreServedWithTheirRoom() throws Exception {
+        HashRing ring = cluster(nodes.values().iterator().next()).getRing();
+        for (String entry : nodes.keySet()) {
+            String roomId = UUID.randomUUID().toString();
+            String gameId = HashRing.childKey(roomId, UUID.randomUUID().toString());
+            assertThat(servedBy(get(entry + "/api/games/" + gameId))).isEqualTo(ring.ownerOf(roomId));
+        }
+    }
+
+    @Test
+    void survivorsServeTheKeysOfAStoppedNode() throws Exception {
+        List<String> members = new ArrayList<>(nodes.keySet());
+        String victim = members.get(1);
+        List<String> gameIds = new ArrayList<>();
+        HashRing ring = cluster(nodes.get(members.get(0))).getRing();
+        while (gameIds.size() < 10) {
+            String gameId = UUID.randomUUID().toString();
+            if (ring.ownerOf(gameId).equals(victim)) {
+                gameIds.add(gameId);
+            }
+        }
+        nodes.remove(victim).close();
+
+        // The first request notices the owner is gone, drops it from the ring and goes to the successor
+        for (String gameId : gameIds) {
+            String served = servedBy(get(members.get(0) + "/api/games/" + gameId));
+            assertThat(served).isNotEqualTo(victim).isEqualTo(ring.successorOf(gameId));
+        }
+    }
+
+    @Test
+    void internalEndpointsNeedTheClusterSecret() throws Exception {
+        String node = nodes.keySet().iterator().next();
+        String ping = node + ClusterService.PING_PATH;
+        assertThat(send(HttpRequest.newBuilder(URI.create(ping)).GET()).statusCode()).isEqualTo(403);
+        assertThat(send(HttpRequest.newBuilder(URI.create(ping)).header(ClusterService.SECRET_HEADER, "wrong").GET())
+            .statusCode()).isEqualTo(403);
+        assertThat(send(HttpRequest.newBuilder(URI.create(ping)).header(ClusterService.SECRET_HEADER, SECRET).GET())
+            .statusCode()).isEqualTo(200);
+        HttpRequest.Builder handOff = HttpRequest.newBuilder(URI.create(node + ClusterService.HANDOFF_PATH))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("[]"));
+        assertThat(send(handOff).statusCode()).isEqualTo(403);
+    }
+
+    private HttpResponse<String> get(String url) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(url)).GET());
+    }
+
+    private HttpResponse<String> post(String url, String json) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(url))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String servedBy(HttpResponse<String> response) throws IOException {
+        assertThat(response.statusCode()).isEqualTo(200);
+        return new ObjectMapper().readTree(response.body()).path("servedBy").asText();
+    }
+
+    private static ClusterService cluster(ConfigurableApplicationContext node) {
+        return node.getBean(ClusterService.class);
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.example.model.Game;
+import com.example.model.Player;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+
+// After a games listener error the cached running games are untrusted. The listener is re-registered after a
+// backoff, and its first snapshot drops every cached running game that is no longer running in Firestore.
+class GameServiceSyncTest {
+
+    private final AtomicInteger reads = new AtomicInteger();
+    private final List<EventListener<QuerySnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final ListenerRegistration registration = Mockito.mock(ListenerRegistration.class);
+    private GameService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.stopGameSync();
+        }
+    }
+
+    @Test
+    void listenerErrorResubscribesAndReconcilesTheCache() throws Exception {
+        ClusterService cluster = Mockito.mock(ClusterService.class);
+        Mockito.when(cluster.isLocal(Mockito.anyString())).thenReturn(true);
+        service = new GameService(firestore(), Mockito.mock(SettlementService.class), Mockito.mock(MatchStatsService.class),
+            cluster, Mockito.mock(ReplicationService.class), new SimpleMeterRegistry(),
+            new StaticListableBeanFactory().getBeanProvider(Tracer.class), 1000, 1 << 20, 60_000, 5_000, 1000, true);
+
+        service.startGameSync();
+        listeners.get(0).onEvent(snapshot(List.of()), null);
+        assertThat(service.getCacheStats()).containsEntry("listenerSynced", true);
+
+        Game kept = runningGame();
+        Game finishedElsewhere = runningGame();
+        assertThat(service.adoptGames(List.of(kept, finishedElsewhere))).isEqualTo(2);
+
+        listeners.get(0).onEvent(null, Mockito.mock(FirestoreException.class));
+        Mockito.verify(registration).remove();
+        assertThat(service.getCacheStats()).containsEntry("listenerSynced", false).containsEntry("size", 2);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (listeners.size() < 2) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+        listeners.get(1).onEvent(snapshot(List.of(kept.getId())), null);
+
+        assertThat(service.getCacheStats()).containsEntry("listenerSynced", true).containsEntry("size", 1);
+        assertThat(service.getGame(kept.getId())).isSameAs(kept);
+        assertThat(reads.get()).isZero();
+        service.getGame(finishedElsewhere.getId());
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    private static Game runningGame() {
+        Game game = new Game(new Player("p1", "One"), new Player("p2", "Two"));
+        game.setStatus("running");
+        return game;
+    }
+
+    private Firestore firestore() {
+        Query running = Mockito.mock(Query.class, invocation -> {
+            if ("addSnapshotListener".equals(invocation.getMethod().getName())) {
+                listeners.add(invocation.getArgument(0));
+                return registration;
+            }
+            return null;
+        });
+        DocumentSnapshot missing = Mockito.mock(DocumentSnapshot.class);
+        DocumentReference document = Mockito.mock(DocumentReference.class, invocation -> {
+            if ("get".equals(invocation.getMethod().getName())) {
+                reads.incrementAndGet();
+                return ApiFutures.immediateFuture(missing);
+            }
+            return null;
+        });
+        CollectionReference games = Mockito.mock(CollectionReference.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "whereEqualTo" -> running;
+            case "document" -> document;
+            default -> null;
+        });
+        Firestore firestore = Mockito.mock(Firestore.class);
+        Mockito.when(firestore.collection("games")).thenReturn(games);
+        return firestore;
+    }
+
+    private static QuerySnapshot snapshot(List<String> runningIds) {
+        List<QueryDocumentSnapshot> documents = runningIds.stream()
+            .map(gameId -> Mockito.mock(QueryDocumentSnapshot.class, document -> "getId".equals(document.getMethod().getName()) ? gameId : null))
+            .toList();
+        return Mockito.mock(QuerySnapshot.class, snapshot -> switch (snapshot.getMethod().getName()) {
+            case "getDocuments" -> documents;
+            case "getDocumentChanges" -> List.of();
+            default -> null;
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// RankedSkipList against a sorted-list oracle (rating descending, ties by user ID): ranks, access by rank, ranges
+// and every link's span must match the oracle after any mix of inserts, rating changes and removals.
+class RankedSkipListTest {
+
+    private record Entry(String userId, String name, int rating) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::rating).reversed()
+        .thenComparing(Entry::userId);
+
+    @Test
+    void matchesASortedListUnderRandomChanges() {
+        RankedSkipList list = new RankedSkipList();
+        Map<String, Entry> players = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 20_000; step++) {
+            String userId = "user-" + random.nextInt(500);
+            if (random.nextInt(5) == 0) {
+                list.remove(userId);
+                players.remove(userId);
+            } else {
+                // A narrow rating range, so ties (ordered by user ID) are common
+                Entry entry = new Entry(userId, "name-" + random.nextInt(3), 1000 + random.nextInt(100));
+                list.put(entry.userId(), entry.name(), entry.rating());
+                players.put(userId, entry);
+            }
+            if (step % 500 == 0) {
+                check(list, players);
+            }
+        }
+        check(list, players);
+
+        list.clear();
+        players.clear();
+        check(list, players);
+        list.put("again", "Again", 1200);
+        players.put("again", new Entry("again", "Again", 1200));
+        check(list, players);
+    }
+
+    @Test
+    void rangesStopAtTheEnd() {
+        RankedSkipList list = new RankedSkipList();
+        for (int i = 0; i < 10; i++) {
+            list.put("user-" + i, "User " + i, 1000 + i);
+        }
+        assertThat(list.range(1, 3)).extracting(node -> node.userId).containsExactly("user-9", "user-8", "user-7");
+        assertThat(list.range(9, 5)).extracting(node -> node.userId).containsExactly("user-1", "user-0");
+        assertThat(list.range(11, 5)).isEmpty();
+        assertThat(list.byRank(0)).isNull();
+        assertThat(list.byRank(11)).isNull();
+        assertThat(list.rankOf("missing")).isZero();
+    }
+
+    private static void check(RankedSkipList list, Map<String, Entry> players) {
+        List<Entry> oracle = new ArrayList<>(players.values());
+        oracle.sort(ORDER);
+
+        assertThat(list.size()).isEqualTo(oracle.size());
+        for (int i = 0; i < oracle.size(); i++) {
+            Entry expected = oracle.get(i);
+            assertThat(list.rankOf(expected.userId())).isEqualTo(i + 1);
+            RankedSkipList.Node node = list.byRank(i + 1);
+            assertThat(node.userId).isEqualTo(expected.userId());
+            assertThat(node.rating).isEqualTo(expected.rating());
+            assertThat(node.name).isEqualTo(expected.name());
+        }
+        if (!oracle.isEmpty()) {
+            int from = 1 + oracle.size() / 3;
+            assertThat(list.range(from, 25)).extracting(node -> node.userId)
+                .containsExactlyElementsOf(oracle.subList(from - 1, Math.min(oracle.size(), from - 1 + 25))
+                    .stream().map(Entry::userId).toList());
+        }
+        checkSpans(list, oracle);
+    }
+
+    // Every forward link at every level must skip exactly the level-0 nodes between its two ends
+    private static void checkSpans(RankedSkipList list, List<Entry> oracle) {
+        Map<RankedSkipList.Node, Integer> position = new HashMap<>();
+        for (int i = 0; i < oracle.size(); i++) {
+            position.put(list.get(oracle.get(i).userId()), i + 1);
+        }
+        RankedSkipList.Node head = headOf(list);
+        for (int level = 0; level < head.next.length; level++) {
+            RankedSkipList.Node x = head;
+            int at = 0;
+            while (x.next[level] != null) {
+                int nextAt = position.get(x.next[level]);
+                assertThat(x.span[level]).as("span at level %d from position %d", level, at).isEqualTo(nextAt - at);
+                x = x.next[level];
+                at = nextAt;
+            }
+        }
+    }
+
+    // The head sentinel (position 0) is private to the list
+    private static RankedSkipList.Node headOf(RankedSkipList list) {
+        try {
+            Field field = RankedSkipList.class.getDeclaredField("head");
+            field.setAccessible(true);
+            return (RankedSkipList.Node) field.get(list);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
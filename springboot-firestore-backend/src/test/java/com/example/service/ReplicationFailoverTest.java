@@ -0,0 +1,200 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.example.cluster.HashRing;
+import com.example.config.InternalAuthFilter;
+import com.example.controller.ClusterController;
+import com.example.model.Game;
+import com.example.model.GameAction;
+import com.example.model.Room;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Kill test for primary/backup replication: three nodes in one JVM with the real GameService, ReplicationService
+// and ClusterService over a Firestore stand-in that stores nothing. Matches are played on their primaries, one
+// node is stopped, and its matches must come back on their backups with the latest state, without a Firestore read.
+class ReplicationFailoverTest {
+
+    private static final String SECRET = "test-secret";
+    private static final int MATCHES = 30;
+    private static final int TICKS = 20;
+
+    private final Map<String, ConfigurableApplicationContext> nodes = new LinkedHashMap<>();
+
+    // Game reads across all nodes; the stand-in never finds a document, so only replicas can restore a match
+    private static final AtomicInteger firestoreReads = new AtomicInteger();
+
+    @Configuration
+    @EnableScheduling
+    @ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class, JacksonAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class})
+    @Import({ClusterService.class, ReplicationService.class, GameService.class, ClusterController.class,
+        InternalAuthFilter.class})
+    static class Node {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        SettlementService settlementService() {
+            SettlementService settlement = Mockito.mock(SettlementService.class);
+            Mockito.when(settlement.settleAsync(Mockito.any())).thenReturn(CompletableFuture.completedFuture(true));
+            return settlement;
+        }
+
+        @Bean
+        MatchStatsService matchStatsService() {
+            return Mockito.mock(MatchStatsService.class);
+        }
+
+        @Bean
+        Firestore firestore() {
+            WriteResult written = Mockito.mock(WriteResult.class);
+            Mockito.when(written.getUpdateTime()).thenAnswer(invocation -> Timestamp.now());
+            DocumentSnapshot missing = Mockito.mock(DocumentSnapshot.class);
+            DocumentReference document = Mockito.mock(DocumentReference.class, invocation -> switch (invocation.getMethod().getName()) {
+                case "set" -> ApiFutures.immediateFuture(written);
+                case "get" -> {
+                    firestoreReads.incrementAndGet();
+                    yield ApiFutures.immediateFuture(missing);
+                }
+                default -> null;
+            });
+            CollectionReference collection = Mockito.mock(CollectionReference.class);
+            Mockito.when(collection.document(Mockito.anyString())).thenReturn(document);
+            Firestore firestore = Mockito.mock(Firestore.class, Mockito.RETURNS_DEEP_STUBS);
+            Mockito.when(firestore.collection(Mockito.anyString())).thenReturn(collection);
+            return firestore;
+        }
+    }
+
+    @BeforeEach
+    void startNodes() throws Exception {
+        List<Integer> ports = List.of(freePort(), freePort(), freePort());
+        String members = String.join(",", ports.stream().map(port -> "http://localhost:" + port).toList());
+        for (int port : ports) {
+            nodes.put("http://localhost:" + port, new SpringApplicationBuilder(Node.class).run(
+                "--server.port=" + port, "--cluster.enabled=true", "--cluster.self=http://localhost:" + port,
+                "--cluster.nodes=" + members, "--cluster.secret=" + SECRET, "--cluster.heartbeat-interval-ms=100",
+                "--firestore.sync.enabled=false", "--spring.main.banner-mode=off", "--logging.level.root=WARN"));
+        }
+        awaitRingSize(nodes.keySet(), 3);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.values().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void backupsTakeOverTheMatchesOfAStoppedNode() throws Exception {
+        List<String> members = new ArrayList<>(nodes.keySet());
+        HashRing ring = bean(members.get(0), ClusterService.class).getRing();
+
+        // Room matches are created and played on the room's owner
+        Map<String, String> owners = new HashMap<>();
+        Map<String, Integer> expectedX = new HashMap<>();
+        for (int i = 0; i < MATCHES; i++) {
+            Room room = new Room();
+            room.setRoomId("room-" + i);
+            room.setHostId("host-" + i);
+            room.setHostName("Host");
+            room.setGuestId("guest-" + i);
+            room.setGuestName("Guest");
+            String owner = ring.ownerOf(room.getRoomId());
+            Game game = bean(owner, GameService.class).createRoomGame(room);
+            owners.put(game.getId(), owner);
+        }
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (Map.Entry<String, String> match : owners.entrySet()) {
+                GameService games = bean(match.getValue(), GameService.class);
+                GameAction action = new GameAction();
+                action.setGameId(match.getKey());
+                action.setPlayerId(games.getGame(match.getKey()).getPlayer1().getId());
+                action.setActionType("move");
+                action.setDirection("right");
+                expectedX.put(match.getKey(), games.processActionAsync(action).get().getPlayer1().getX());
+            }
+        }
+        Thread.sleep(200); // a few replication flushes
+
+        String victim = members.get(1);
+        List<String> victimMatches = owners.entrySet().stream()
+            .filter(match -> match.getValue().equals(victim)).map(Map.Entry::getKey).toList();
+        assertThat(victimMatches).isNotEmpty();
+        int readsBefore = firestoreReads.get();
+        nodes.remove(victim).close();
+        awaitRingSize(nodes.keySet(), 2);
+
+        for (String gameId : victimMatches) {
+            String backup = ring.successorOf(gameId);
+            assertThat(bean(members.get(0), ClusterService.class).ownerOf(gameId)).isEqualTo(backup);
+            Game promoted = bean(backup, GameService.class).getGame(gameId);
+            assertThat(promoted).as("match %s on its backup", gameId).isNotNull();
+            assertThat(promoted.getPlayer1().getX()).isEqualTo(expectedX.get(gameId));
+        }
+        assertThat(firestoreReads.get()).isEqualTo(readsBefore);
+        assertThat((long) bean(ring.successorOf(victimMatches.get(0)), ReplicationService.class)
+            .getStats().get("promoted")).isPositive();
+    }
+
+    private void awaitRingSize(Iterable<String> members, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (String member : members) {
+            while (bean(member, ClusterService.class).getRing().getNodes().size() != size) {
+                assertThat(System.currentTimeMillis()).isLessThan(deadline);
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private <T> T bean(String node, Class<T> type) {
+        return nodes.get(node).getBean(type);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
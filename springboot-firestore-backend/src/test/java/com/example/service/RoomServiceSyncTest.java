@@ -0,0 +1,176 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.example.model.Room;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.EventListener;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+
+// RoomService nodes over one in-memory rooms collection. The room ID filter may only turn a lookup away without a
+// Firestore read while the rooms listener is in sync; otherwise a room created on another node must still be found.
+class RoomServiceSyncTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Map<String, Room> stored = new ConcurrentHashMap<>();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final List<EventListener<QuerySnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final ListenerRegistration registration = Mockito.mock(ListenerRegistration.class);
+    private final Firestore firestore = firestore();
+    private final List<RoomService> services = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stop() {
+        services.forEach(RoomService::stopRoomSync);
+    }
+
+    @Test
+    void roomCreatedOnOneNodeIsReadThroughAnother() throws Exception {
+        RoomService creator = node(false);
+        RoomService reader = node(false);
+        creator.onApplicationReady();
+        reader.onApplicationReady();
+
+        Room created = creator.createRoom("host-1", "Host", Map.of("id", "knight"));
+        int readsBefore = reads.get();
+        Room found = reader.getRoom(created.getRoomId());
+
+        assertThat(found).isNotNull();
+        assertThat(found.getHostName()).isEqualTo("Host");
+        assertThat(reads.get()).isEqualTo(readsBefore + 1);
+        assertThat(reader.getRoomFilterStats()).containsEntry("bypassed", 1L).containsEntry("rejections", 0L);
+
+        // Now known to the reader's cache and filter
+        assertThat(reader.getRoom(created.getRoomId())).isNotNull();
+        assertThat(reads.get()).isEqualTo(readsBefore + 1);
+    }
+
+    @Test
+    void filterRejectsOnlyWhileTheListenerIsInSync() throws Exception {
+        RoomService node = node(true);
+        node.onApplicationReady();
+        assertThat(listeners).hasSize(1);
+
+        // Before the first snapshot there is no filter yet: unknown IDs are read
+        assertThat(node.getRoom(UUID.randomUUID().toString())).isNull();
+        assertThat(reads.get()).isEqualTo(1);
+
+        listeners.get(0).onEvent(emptySnapshot(), null);
+        assertThat(node.getRoomFilterStats()).containsEntry("listenerSynced", true).containsEntry("ready", true);
+        assertThat(node.getRoom(UUID.randomUUID().toString())).isNull();
+        assertThat(reads.get()).isEqualTo(1);
+        assertThat(node.getRoomFilterStats()).containsEntry("rejections", 1L);
+
+        // Listener error: the filter stops rejecting, and a room written elsewhere meanwhile is found
+        listeners.get(0).onEvent(null, Mockito.mock(FirestoreException.class));
+        Mockito.verify(registration).remove();
+        assertThat(node.getRoomFilterStats()).containsEntry("listenerSynced", false);
+        Room elsewhere = new Room("host-2", "Other", Map.of("id", "mage"));
+        stored.put(elsewhere.getRoomId(), elsewhere);
+        assertThat(node.getRoom(elsewhere.getRoomId())).isNotNull();
+        assertThat(reads.get()).isEqualTo(2);
+        assertThat(node.getRoomFilterStats()).containsEntry("bypassed", 1L).containsEntry("rejections", 1L);
+
+        // Re-registered after the backoff; its first snapshot brings the filter back into use
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (listeners.size() < 2) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+        listeners.get(1).onEvent(emptySnapshot(), null);
+        assertThat(node.getRoomFilterStats()).containsEntry("listenerSynced", true);
+        assertThat(node.getRoom(UUID.randomUUID().toString())).isNull();
+        assertThat(reads.get()).isEqualTo(2);
+        assertThat(node.getRoomFilterStats()).containsEntry("rejections", 2L);
+    }
+
+    private RoomService node(boolean sync) {
+        RoomService service = new RoomService(firestore, new FanOut(false, 2, 4), new SimpleMeterRegistry(),
+            new StaticListableBeanFactory().getBeanProvider(Tracer.class), true, 1000, 0.01, 0.25, sync, "heap");
+        services.add(service);
+        return service;
+    }
+
+    private Firestore firestore() {
+        CollectionReference rooms = Mockito.mock(CollectionReference.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "document" -> document(invocation.getArgument(0));
+            case "select" -> Mockito.mock(Query.class, get -> "get".equals(get.getMethod().getName())
+                ? ApiFutures.immediateFuture(idSnapshot()) : null);
+            case "addSnapshotListener" -> {
+                listeners.add(invocation.getArgument(0));
+                yield registration;
+            }
+            default -> null;
+        });
+        Firestore firestore = Mockito.mock(Firestore.class);
+        Mockito.when(firestore.collection("rooms")).thenReturn(rooms);
+        return firestore;
+    }
+
+    private DocumentReference document(String roomId) {
+        return Mockito.mock(DocumentReference.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "set" -> {
+                stored.put(roomId, copy(invocation.getArgument(0)));
+                WriteResult written = Mockito.mock(WriteResult.class, result -> Timestamp.now());
+                yield ApiFutures.immediateFuture(written);
+            }
+            case "get" -> {
+                reads.incrementAndGet();
+                Room room = stored.get(roomId);
+                yield ApiFutures.immediateFuture(Mockito.mock(DocumentSnapshot.class, snapshot -> switch (snapshot.getMethod().getName()) {
+                    case "exists" -> room != null;
+                    case "toObject" -> room != null ? copy(room) : null;
+                    default -> null;
+                }));
+            }
+            default -> null;
+        });
+    }
+
+    private QuerySnapshot idSnapshot() {
+        List<QueryDocumentSnapshot> documents = stored.keySet().stream()
+            .map(roomId -> Mockito.mock(QueryDocumentSnapshot.class, document -> "getId".equals(document.getMethod().getName()) ? roomId : null))
+            .toList();
+        return Mockito.mock(QuerySnapshot.class, snapshot -> "getDocuments".equals(snapshot.getMethod().getName()) ? documents : null);
+    }
+
+    private static QuerySnapshot emptySnapshot() {
+        return Mockito.mock(QuerySnapshot.class, snapshot -> switch (snapshot.getMethod().getName()) {
+            case "getDocumentChanges", "getDocuments" -> List.of();
+            default -> null;
+        });
+    }
+
+    private static Room copy(Room room) {
+        return MAPPER.convertValue(room, Room.class);
+    }
+}
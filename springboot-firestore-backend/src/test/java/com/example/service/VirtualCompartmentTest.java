@@ -0,0 +1,70 @@
+package com.example.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// The virtual-thread compartment must keep the platform pool's limits. The test runs it over a cached platform
+// pool, since the build's Java 17 has no virtual threads; the semaphores are what is under test.
+class VirtualCompartmentTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final Bulkheads.VirtualCompartment compartment = new Bulkheads.VirtualCompartment(threads, 2, 1);
+
+    @AfterEach
+    void shutdown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void runsAtMostLimitAndQueuesAtMostQueueThenRejects() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 3; i++) {
+            compartment.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(compartment.active()).isEqualTo(2);
+        assertThat(compartment.queued()).isEqualTo(1);
+
+        assertThatThrownBy(() -> compartment.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (compartment.completed.sum() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(compartment.completed.sum()).isEqualTo(3);
+        assertThat(compartment.active()).isZero();
+        assertThat(compartment.queued()).isZero();
+
+        CountDownLatch ran = new CountDownLatch(1);
+        compartment.execute(ran::countDown);
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void refusesAfterShutdown() {
+        compartment.shutdown();
+        assertThatThrownBy(() -> compartment.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
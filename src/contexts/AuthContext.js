@@ -689,6 +689,20 @@ export function AuthProvider({ children }) {
       console.error("Error listening to room:", error);
     });
     
+    return unsubscribe;
+  }
+    // Итог онлайн-матча: маркер settlements/{gameId} записывается сервером в одной транзакции с рейтингом
+  // и наградами обоих игроков, поэтому после его появления профиль уже содержит начисления
+  function listenToSettlement(gameId, callback) {
+    const settlementRef = doc(db, "settlements", gameId);
+    const unsubscribe = onSnapshot(settlementRef, (doc) => {
+      if (doc.exists()) {
+        callback(doc.data());
+      }
+    }, (error) => {
+      console.error("Error listening to settlement:", error);
+    });
+    
     return unsubscribe;
   }
     async function updateRoomStatus(roomId, statusOrData, winner = null) {
@@ -885,6 +899,7 @@ export function AuthProvider({ children }) {
     joinRoom,
     getRoomData,
     listenToRoom,
+    listenToSettlement,
     updateRoomStatus,
     getLocalIp,
     syncPlayerAction,
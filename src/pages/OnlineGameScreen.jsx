@@ -9,16 +9,16 @@ const OnlineGameScreen = () => {
   const location = useLocation();
   const navigate = useNavigate();
   const { roomCode } = useParams();
-  const { currentUser, updateRating, listenToRoom, updateRoomStatus, syncPlayerAction, processGameAction } = useAuth();
+  const { currentUser, getUserData, listenToRoom, listenToSettlement, updateRoomStatus, syncPlayerAction, processGameAction } = useAuth();
   
   const [isHost, setIsHost] = useState(false);
   const [isGameOver, setIsGameOver] = useState(false);
   const [winner, setWinner] = useState(null);
   const [playerCharacter, setPlayerCharacter] = useState(null);
   const [opponentCharacter, setOpponentCharacter] = useState(null);
-  // eslint-disable-next-line no-unused-vars
   const [roomData, setRoomData] = useState(null);
   const [rewardData, setRewardData] = useState(null);
+  const [settlementTimedOut, setSettlementTimedOut] = useState(false);
   const [playerPosition, setPlayerPosition] = useState({ x: 100, y: 0 });
   const [opponentPosition, setOpponentPosition] = useState({ x: 800, y: 0 });
   const [playerAttack, setPlayerAttack] = useState(null);
@@ -152,6 +152,39 @@ const OnlineGameScreen = () => {
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [currentUser, navigate, roomCode, location.state, listenToRoom, isGameOver]);
   
+  // Итог матча берём из маркера settlements/{gameId}, который сервер пишет в одной транзакции
+  // с начислением рейтинга и наград: до его появления профиль ещё не обновлён
+  const gameId = roomData?.gameId;
+  useEffect(() => {
+    if (!isGameOver || !gameId || !currentUser) return;
+    
+    // Если расчёт не пришёл за 10 секунд, показываем окно без наград
+    const timeout = setTimeout(() => setSettlementTimedOut(true), 10000);
+    const unsubscribe = listenToSettlement(gameId, async (settlement) => {
+      clearTimeout(timeout);
+      const won = settlement.winnerId === currentUser.uid;
+      setWinner(won ? 'player1' : 'player2');
+      
+      const userData = await getUserData(currentUser.uid);
+      setRewardData({
+        ratingChange: won ? settlement.winnerRatingChange : settlement.loserRatingChange,
+        newRating: userData?.rating,
+        newRank: userData?.rank,
+        coinEarned: (won ? settlement.winnerCoinChange : settlement.loserCoinChange) || 0,
+        gemEarned: (won ? settlement.winnerGemChange : settlement.loserGemChange) || 0,
+        totalCoin: userData?.coin,
+        totalGem: userData?.gem
+      });
+    });
+    
+    return () => {
+      clearTimeout(timeout);
+      unsubscribe();
+    };
+    // Функции контекста пересоздаются при каждом рендере, переподписка сбрасывала бы таймаут
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [isGameOver, gameId, currentUser?.uid]);
+  
   // Monitor connection status based on opponent updates
   useEffect(() => {
     // Reset timeout when we receive opponent data
@@ -209,11 +242,8 @@ const OnlineGameScreen = () => {
             winner: isHost ? (isWin ? 'host' : 'guest') : (isWin ? 'guest' : 'host')
           });
           
-          // Обновляем рейтинг пользователя
-          if (currentUser) {
-            const result = await updateRating(currentUser.uid, isWin);
-            setRewardData(result);
-          }
+          // Рейтинг и награды онлайн-матча начисляет сервер при расчёте игры (SettlementService);
+          // победителя и награды окно покажет по маркеру расчёта, а не по локальному результату
         } catch (error) {
           console.error('Ошибка при обработке завершения игры:', error);
         }
@@ -369,7 +399,7 @@ const OnlineGameScreen = () => {
          connectionStatus === 'weak' ? 'Соединение: слабое' : 'Соединение: потеряно'}
       </div>
       
-      {isGameOver && (
+      {isGameOver && (rewardData || settlementTimedOut || !roomData?.gameId) && (
         <GameOverModal 
           winner={winner}
           onNewGame={handlePlayAgain}